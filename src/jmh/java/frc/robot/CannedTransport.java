@@ -0,0 +1,118 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+/**
+ * Transport for benchmarks that plays the same canned pixy frames over and
+ * over. The frames are sent back to back with no idle zeros between them,
+ * so every poll of a PixyCam decodes a whole frame without waiting.
+ *
+ */
+class CannedTransport implements PixyTransport
+{
+    /**
+     * The word that starts every block
+     */
+    private static final int SYNC = 0xaa55;
+
+    /**
+     * The canned bytes, played from the start again when they run out
+     */
+    private final byte[] stream;
+
+    /**
+     * The index of the next byte to send
+     */
+    private int index;
+
+    /**
+     * Constructs a transport playing the given bytes.
+     * @param stream
+     *  The bytes to play
+     */
+    CannedTransport(byte[] stream)
+    {
+        this.stream = stream;
+    }
+
+    /**
+     * Makes the bytes of several frames, each with the given number of
+     * blocks spread across the image, in the original pixy protocol.
+     * @param frames
+     *  The number of frames
+     * @param blocks
+     *  The number of blocks in each frame
+     * @return
+     *  The frames' bytes
+     */
+    static byte[] pixyFrames(int frames, int blocks)
+    {
+        byte[] stream = new byte[frames * (2 + blocks * 14)];
+        int offset = 0;
+        for(int frame = 0; frame < frames; frame++)
+        {
+            //A frame starts with two sync words, and every block after the first has its own
+            offset = putWord(stream, offset, SYNC);
+            for(int block = 0; block < blocks; block++)
+            {
+                int signature = 1 + block % 7;
+                int x = (frame * 7 + block * 13) % 200;
+                int y = (frame * 11 + block * 17) % 320;
+                int width = 10 + block;
+                int height = 20 + frame % 10;
+
+                //Switch x with y and width with height since pixy is rotated 90
+                offset = putWord(stream, offset, SYNC);
+                offset = putWord(stream, offset, (signature + x + y + width + height) & 0xFFFF);
+                offset = putWord(stream, offset, signature);
+                offset = putWord(stream, offset, y);
+                offset = putWord(stream, offset, x);
+                offset = putWord(stream, offset, height);
+                offset = putWord(stream, offset, width);
+            }
+        }
+
+        return stream;
+    }
+
+    /**
+     * Puts a word into a buffer, high byte first.
+     * @param buffer
+     *  The buffer to put the word in
+     * @param offset
+     *  The index to put the word at
+     * @param word
+     *  The unsigned 16 bit value to put
+     * @return
+     *  The index after the word
+     */
+    private static int putWord(byte[] buffer, int offset, int word)
+    {
+        buffer[offset] = (byte) (word >> 8);
+        buffer[offset + 1] = (byte) word;
+        return offset + 2;
+    }
+
+    @Override
+    public int read(byte[] buffer, int count)
+    {
+        for(int i = 0; i < count; i++)
+        {
+            buffer[i] = stream[index];
+            index = index + 1 == stream.length ? 0 : index + 1;
+        }
+
+        return count;
+    }
+
+    @Override
+    public int write(byte[] buffer, int count)
+    {
+        return count;
+    }
+}
@@ -0,0 +1,91 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one LEDScheduler tick with a controller on every PCM channel
+ * playing the same mode. Time is simulated so each tick moves the patterns
+ * forward by one tick time, and no solenoids or scheduler threads are made.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LEDSchedulerBenchmark
+{
+    /**
+     * The time between ticks in nanoseconds
+     */
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(LEDScheduler.TICK_TIME);
+
+    /**
+     * The mode every controller plays
+     */
+    @Param({"ON", "FLASH", "MORSE"})
+    public LEDController.Mode mode;
+
+    /**
+     * The scheduler being ticked
+     */
+    private LEDScheduler scheduler;
+
+    /**
+     * Switches to simulated time and makes a controller for every channel.
+     */
+    @Setup
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+        scheduler = LEDScheduler.getInstance();
+        for(int channel = 0; channel < PCMOutput.CHANNELS; channel++)
+        {
+            LEDController controller = new LEDController(channel, mode);
+            controller.setMorseText("SOS");
+        }
+    }
+
+    /**
+     * Switches back to real time.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Moves time forward one tick and ticks the scheduler.
+     * @return
+     *  The number of writes sent to the PCM so far
+     */
+    @Benchmark
+    public long tick()
+    {
+        RobotClock.advanceTo(RobotClock.nanoTime() + TICK);
+        scheduler.tick();
+        return PCMOutput.getInstance().getWrites();
+    }
+}
@@ -0,0 +1,72 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long a PixyCam takes to decode and publish one frame from
+ * the SPI bytes, for frames with few and many blocks.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PixyDecodeBenchmark
+{
+    /**
+     * The number of different frames in the canned stream
+     */
+    private static final int FRAMES = 64;
+
+    /**
+     * The number of blocks in each frame
+     */
+    @Param({"1", "4", "16"})
+    public int blocks;
+
+    /**
+     * The pixy decoding the canned frames
+     */
+    private PixyCam pixy;
+
+    /**
+     * Makes a pixy reading canned frames.
+     */
+    @Setup
+    public void setUp()
+    {
+        pixy = new PixyCam(new CannedTransport(CannedTransport.pixyFrames(FRAMES, blocks)), PixyFrame.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Decodes and publishes one frame.
+     * @return
+     *  True if a frame was published
+     */
+    @Benchmark
+    public boolean poll()
+    {
+        return pixy.poll();
+    }
+}
@@ -0,0 +1,120 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading a PixyCam's values from one thread while another thread
+ * keeps publishing frames, like the robot loop reading a pixy that the
+ * scheduler thread is reading. One reader and one writer fit the two cores
+ * of the roboRIO.
+ *
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PixyReadBenchmark
+{
+    /**
+     * The pixy shared by the writer and reader of a group
+     */
+    private PixyCam pixy;
+
+    /**
+     * Makes a pixy reading canned frames with a few blocks each.
+     */
+    @Setup
+    public void setUp()
+    {
+        pixy = new PixyCam(new CannedTransport(CannedTransport.pixyFrames(64, 4)), PixyFrame.DEFAULT_CAPACITY);
+        pixy.poll();
+    }
+
+    /**
+     * Publishes frames while the values are read.
+     * @return
+     *  True if a frame was published
+     */
+    @Benchmark
+    @Group("values")
+    @GroupThreads(1)
+    public boolean valuesWriter()
+    {
+        return pixy.poll();
+    }
+
+    /**
+     * Reads the largest object's values, retrying when a frame is published during the read.
+     * @return
+     *  The values added together
+     */
+    @Benchmark
+    @Group("values")
+    @GroupThreads(1)
+    public int valuesReader()
+    {
+        return pixy.getX() + pixy.getY() + pixy.getWidth() + pixy.getHeight();
+    }
+
+    /**
+     * Publishes frames while snapshots are copied.
+     * @return
+     *  True if a frame was published
+     */
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(1)
+    public boolean snapshotWriter()
+    {
+        return pixy.poll();
+    }
+
+    /**
+     * Copies the whole latest frame.
+     * @param reader
+     *  The reader's own frame to copy into
+     * @return
+     *  The number of blocks copied
+     */
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(1)
+    public int snapshotReader(Reader reader)
+    {
+        return pixy.getSnapshot(reader.frame).getBlockCount();
+    }
+
+    /**
+     * The frame each reader thread copies into.
+     */
+    @State(Scope.Thread)
+    public static class Reader
+    {
+        /**
+         * The frame to copy into, reused like the robot loop would
+         */
+        private final PixyFrame frame = new PixyFrame();
+    }
+}
@@ -0,0 +1,104 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one TelemetryScheduler tick with every printer due, so it shows
+ * what the scheduler and governor cost on top of the printers themselves.
+ * The printers only count their prints. Time is simulated so every tick is
+ * one tick time after the last and no scheduler thread is made.
+ *
+ * The tick reads DashboardPublisher's counts, so a publisher without a
+ * table is used and NetworkTables is never opened.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrinterDispatchBenchmark
+{
+    /**
+     * The time between ticks in nanoseconds
+     */
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(TelemetryScheduler.TICK_TIME);
+
+    /**
+     * The number of printers run each tick
+     */
+    @Param({"1", "16", "64"})
+    public int printers;
+
+    /**
+     * The scheduler being ticked
+     */
+    private TelemetryScheduler scheduler;
+
+    /**
+     * The number of prints made
+     */
+    private long prints;
+
+    /**
+     * Switches to simulated time and a publisher without a table, and adds
+     * printers that print every tick.
+     */
+    @Setup
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+        DashboardPublisher.setInstance(new DashboardPublisher());
+        scheduler = TelemetryScheduler.getInstance();
+        for(int i = 0; i < printers; i++)
+        {
+            new ValuePrinter(() -> prints++, TelemetryScheduler.TICK_TIME);
+        }
+    }
+
+    /**
+     * Removes the printers and switches back to real time and the
+     * SmartDashboard publisher.
+     */
+    @TearDown
+    public void tearDown()
+    {
+        scheduler.shutdown();
+        DashboardPublisher.setInstance(null);
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Moves time forward one tick and prints every printer.
+     * @return
+     *  The number of prints made so far
+     */
+    @Benchmark
+    public long tick()
+    {
+        RobotClock.advanceTo(RobotClock.nanoTime() + TICK);
+        scheduler.tick();
+        return prints;
+    }
+}
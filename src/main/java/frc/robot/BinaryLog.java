@@ -0,0 +1,534 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.wpi.first.wpilibj.RobotBase;
+
+/**
+ * Binary log of pixy frames, LED mode changes, and printed values, written
+ * to a memory mapped file. Writing a record only reserves space with one
+ * atomic add and copies the record into the mapped file, so any thread can
+ * log without locking or waiting on the disk. The operating system writes
+ * the file out, so records are kept even if the robot program crashes.
+ *
+ * The file starts with a header, then records follow one after another:
+ * <pre>
+ * int    type &lt;&lt; 24 | record length in bytes, written last
+ * int    key, the source named by a NAME record
+ * long   RobotClock.nanoTime()
+ * ...    the data for the type, then padding to a multiple of 4 bytes
+ * </pre>
+ * The length is written as soon as a record is reserved and the type when
+ * it is finished, so a record with a type of 0 was never finished and is
+ * skipped. A header of 0 marks the end of the log. Values are little
+ * endian. Use BinaryLogReader to read a log or convert it to CSV.
+ *
+ * Closing a log cuts the file to the records written. Opening a log with
+ * open() deletes the oldest logs in the directory so only the newest few
+ * are kept and the robot's flash does not fill up.
+ *
+ */
+public class BinaryLog implements AutoCloseable
+{
+    /**
+     * The first bytes of every log, "FRCLOG01" as a little endian long
+     */
+    static final long MAGIC = 0x3130474f4c435246L;
+
+    /**
+     * The size of the file header: magic, start nanoTime, and start time in milliseconds
+     */
+    static final int FILE_HEADER_SIZE = 24;
+
+    /**
+     * The size of the header of each record: type and length, key, and time
+     */
+    static final int RECORD_HEADER_SIZE = 16;
+
+    /*
+     * Record types.
+     * NAME:   short length, UTF-8 name of the key
+     * NUMBER: double value
+     * STRING: short length, UTF-8 value
+     * FRAME:  short block count, then signature, x, y, width, height shorts for each block
+     */
+    static final int NAME = 1;
+    static final int NUMBER = 2;
+    static final int STRING = 3;
+    static final int FRAME = 4;
+
+    /**
+     * The directory logs are written to on the robot
+     */
+    public static final String ROBOT_DIRECTORY = "/home/lvuser/logs";
+
+    /**
+     * The system property that sets the log directory on the desktop
+     */
+    public static final String DIRECTORY_PROPERTY = "frc.log.dir";
+
+    /**
+     * The default size of a log file in bytes
+     */
+    public static final int DEFAULT_CAPACITY = 32 * 1024 * 1024;
+
+    /**
+     * The default number of logs kept in the log directory, counting the new one
+     */
+    public static final int DEFAULT_KEEP = 10;
+
+    /**
+     * The file extension of logs
+     */
+    private static final String EXTENSION = ".frclog";
+
+    /**
+     * The log shared by the robot, null until one is opened
+     */
+    private static volatile BinaryLog current;
+
+    /**
+     * The file being written
+     */
+    private final Path path;
+
+    /**
+     * The channel of the file
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped file
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * The offset of the next record to reserve, can go past the end once full
+     */
+    private final AtomicInteger position;
+
+    /**
+     * The number of records dropped because the file was full or closed
+     */
+    private final AtomicLong dropped;
+
+    /**
+     * The number of threads writing records right now, so closing can wait for them
+     */
+    private final AtomicInteger writers;
+
+    /**
+     * The key of each name already logged
+     */
+    private final Map<String, Integer> keys;
+
+    /**
+     * True once the log is closed
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructs a log writing to a new file of the given size.
+     * @param path
+     *  The file to write, replaced if it exists
+     * @param capacity
+     *  The size of the file in bytes
+     * @throws IOException
+     *  If the file could not be created or mapped
+     */
+    public BinaryLog(Path path, int capacity) throws IOException
+    {
+        this.path = path;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(0, MAGIC);
+        buffer.putLong(8, RobotClock.nanoTime());
+        buffer.putLong(16, System.currentTimeMillis());
+
+        position = new AtomicInteger(FILE_HEADER_SIZE);
+        dropped = new AtomicLong();
+        writers = new AtomicInteger();
+        keys = new HashMap<>();
+    }
+
+    /**
+     * Opens a log named with the current date in the log directory and makes
+     * it the current log, keeping the newest DEFAULT_KEEP logs. The directory
+     * is /home/lvuser/logs on the robot, and the frc.log.dir system property
+     * or logs in the working directory on the desktop.
+     * @return
+     *  The log, null if it could not be opened
+     */
+    public static synchronized BinaryLog open()
+    {
+        String directory = RobotBase.isReal() ? ROBOT_DIRECTORY : System.getProperty(DIRECTORY_PROPERTY, "logs");
+        return open(Paths.get(directory), DEFAULT_KEEP);
+    }
+
+    /**
+     * Opens a log named with the current date in the given directory and
+     * makes it the current log, keeping the newest DEFAULT_KEEP logs.
+     * @param directory
+     *  The directory to write the log in, created if needed
+     * @return
+     *  The log, null if it could not be opened
+     */
+    public static BinaryLog open(Path directory)
+    {
+        return open(directory, DEFAULT_KEEP);
+    }
+
+    /**
+     * Opens a log named with the current date in the given directory and
+     * makes it the current log, closing the log that was current. The
+     * oldest logs in the directory are deleted first so that only the given
+     * number are left, counting the new one.
+     * @param directory
+     *  The directory to write the log in, created if needed
+     * @param keep
+     *  The number of logs to keep in the directory, at least 1
+     * @return
+     *  The log, null if it could not be opened
+     */
+    public static synchronized BinaryLog open(Path directory, int keep)
+    {
+        try
+        {
+            Files.createDirectories(directory);
+            deleteOldLogs(directory, Math.max(1, keep) - 1);
+            String name = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + EXTENSION;
+            BinaryLog log = new BinaryLog(directory.resolve(name), DEFAULT_CAPACITY);
+            if(current != null)
+            {
+                current.close();
+            }
+            current = log;
+            return log;
+        }
+        catch(IOException e)
+        {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the oldest logs in a directory. Logs are named by the date
+     * they were opened, so the oldest sort first.
+     * @param directory
+     *  The directory of the logs
+     * @param keep
+     *  The number of the newest logs to leave
+     * @throws IOException
+     *  If the directory could not be listed
+     */
+    private static void deleteOldLogs(Path directory, int keep) throws IOException
+    {
+        List<Path> logs = new ArrayList<>();
+        try(Stream<Path> files = Files.list(directory))
+        {
+            files.filter(file -> file.getFileName().toString().endsWith(EXTENSION)).forEach(logs::add);
+        }
+        Collections.sort(logs);
+
+        for(int i = 0; i < logs.size() - keep; i++)
+        {
+            Path log = logs.get(i);
+            if(current == null || !log.equals(current.path))
+            {
+                Files.deleteIfExists(log);
+            }
+        }
+    }
+
+    /**
+     * Returns the log opened with open().
+     * @return
+     *  The current log, null if none is open
+     */
+    public static BinaryLog getCurrent()
+    {
+        return current;
+    }
+
+    /**
+     * Returns the file being written.
+     * @return
+     *  The path of the log
+     */
+    public Path getPath()
+    {
+        return path;
+    }
+
+    /**
+     * Returns the key of a source, logging its name the first time.
+     * Look keys up once and keep them, this method locks.
+     * @param name
+     *  The name of the source
+     * @return
+     *  The key to log the source's records with
+     */
+    public synchronized int key(String name)
+    {
+        Integer key = keys.get(name);
+        if(key == null)
+        {
+            key = keys.size() + 1;
+            keys.put(name, key);
+            logBytes(NAME, key, RobotClock.nanoTime(), name.getBytes(StandardCharsets.UTF_8));
+        }
+
+        return key;
+    }
+
+    /**
+     * Logs a number.
+     * @param key
+     *  The key of the source
+     * @param value
+     *  The value to log
+     */
+    public void logNumber(int key, double value)
+    {
+        writers.incrementAndGet();
+        try
+        {
+            int offset = reserve(RECORD_HEADER_SIZE + 8);
+            if(offset != -1)
+            {
+                buffer.putDouble(offset + RECORD_HEADER_SIZE, value);
+                commit(offset, NUMBER, key, RobotClock.nanoTime(), RECORD_HEADER_SIZE + 8);
+            }
+        }
+        finally
+        {
+            writers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Logs a string.
+     * @param key
+     *  The key of the source
+     * @param value
+     *  The value to log
+     */
+    public void logString(int key, String value)
+    {
+        logBytes(STRING, key, RobotClock.nanoTime(), value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Logs every block of a pixy frame.
+     * @param key
+     *  The key of the pixy
+     * @param frame
+     *  The frame to log
+     */
+    public void logFrame(int key, PixyFrame frame)
+    {
+        int blocks = frame.getBlockCount();
+        int length = RECORD_HEADER_SIZE + 2 + blocks * 10;
+        writers.incrementAndGet();
+        try
+        {
+            int offset = reserve(length);
+            if(offset == -1)
+            {
+                return;
+            }
+
+            int at = offset + RECORD_HEADER_SIZE;
+            buffer.putShort(at, (short) blocks);
+            at += 2;
+            for(int i = 0; i < blocks; i++)
+            {
+                buffer.putShort(at, (short) frame.getSignature(i));
+                buffer.putShort(at + 2, (short) frame.getX(i));
+                buffer.putShort(at + 4, (short) frame.getY(i));
+                buffer.putShort(at + 6, (short) frame.getWidth(i));
+                buffer.putShort(at + 8, (short) frame.getHeight(i));
+                at += 10;
+            }
+            commit(offset, FRAME, key, frame.getTime(), length);
+        }
+        finally
+        {
+            writers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of records dropped because the file was full or closed.
+     * @return
+     *  The dropped record count
+     */
+    public long getDropped()
+    {
+        return dropped.get();
+    }
+
+    /**
+     * Asks the operating system to write the log to the disk now.
+     */
+    public synchronized void flush()
+    {
+        if(!closed)
+        {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Stops logging, writes the log to the disk, and cuts the file to the
+     * records written. Records being written when it is called are finished
+     * first, since cutting the file under a thread still copying a record
+     * would crash that thread.
+     */
+    @Override
+    public synchronized void close()
+    {
+        if(closed)
+        {
+            return;
+        }
+        closed = true;
+        if(current == this)
+        {
+            current = null;
+        }
+
+        //Writers that got in before closed was set are still copying
+        while(writers.get() != 0)
+        {
+            Thread.onSpinWait();
+        }
+
+        try
+        {
+            buffer.force();
+            channel.truncate(Math.min(position.get(), buffer.capacity()));
+            channel.close();
+        }
+        catch(IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Logs a record holding a length and bytes.
+     * @param type
+     *  The record type
+     * @param key
+     *  The key of the source
+     * @param time
+     *  The RobotClock.nanoTime() of the record
+     * @param bytes
+     *  The bytes to log
+     */
+    private void logBytes(int type, int key, long time, byte[] bytes)
+    {
+        int count = Math.min(bytes.length, Short.MAX_VALUE);
+        int length = RECORD_HEADER_SIZE + 2 + count;
+        writers.incrementAndGet();
+        try
+        {
+            int offset = reserve(length);
+            if(offset != -1)
+            {
+                buffer.putShort(offset + RECORD_HEADER_SIZE, (short) count);
+                for(int i = 0; i < count; i++)
+                {
+                    buffer.put(offset + RECORD_HEADER_SIZE + 2 + i, bytes[i]);
+                }
+                commit(offset, type, key, time, length);
+            }
+        }
+        finally
+        {
+            writers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Reserves space for a record and writes its length with a type of 0,
+     * so readers can skip it if it is never finished. Must be called while
+     * counted as a writer.
+     * @param length
+     *  The length of the record without padding
+     * @return
+     *  The offset of the record, -1 if it does not fit
+     */
+    private int reserve(int length)
+    {
+        int size = (length + 3) & ~3;
+        //Check first so the position stops growing once the log is full
+        if(closed || position.get() > buffer.capacity() - size)
+        {
+            dropped.incrementAndGet();
+            return -1;
+        }
+
+        int offset = position.getAndAdd(size);
+        if(offset > buffer.capacity() - size)
+        {
+            dropped.incrementAndGet();
+            return -1;
+        }
+
+        buffer.putInt(offset, length);
+        return offset;
+    }
+
+    /**
+     * Writes the header of a record after its data, so a reader never sees
+     * a record that is only partly written.
+     * @param offset
+     *  The offset of the record
+     * @param type
+     *  The record type
+     * @param key
+     *  The key of the source
+     * @param time
+     *  The RobotClock.nanoTime() of the record
+     * @param length
+     *  The length of the record without padding
+     */
+    private void commit(int offset, int type, int key, long time, int length)
+    {
+        buffer.putInt(offset + 4, key);
+        buffer.putLong(offset + 8, time);
+        VarHandle.storeStoreFence();
+        buffer.putInt(offset, type << 24 | length);
+    }
+}
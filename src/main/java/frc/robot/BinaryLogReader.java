@@ -0,0 +1,334 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the records of a BinaryLog one at a time, and converts logs to CSV.
+ * Run it on a computer with the log and an optional CSV file to write:
+ * <pre>
+ * java -cp robot.jar frc.robot.BinaryLogReader 20190315-101500.frclog out.csv
+ * </pre>
+ *
+ */
+public class BinaryLogReader
+{
+    /**
+     * The log
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The RobotClock.nanoTime() the log was opened
+     */
+    private final long startNanos;
+
+    /**
+     * The time in milliseconds since 1970 the log was opened
+     */
+    private final long startMillis;
+
+    /**
+     * The name of each key read so far
+     */
+    private final Map<Integer, String> names;
+
+    /**
+     * The offset of the next record
+     */
+    private int position;
+
+    /*
+     * The record last read.
+     */
+    private int type;
+    private int key;
+    private long time;
+    private double number;
+    private String string;
+
+    /**
+     * The frame of the record last read, if it was a frame
+     */
+    private final PixyFrame frame;
+
+    /**
+     * Constructs a reader for the given log file.
+     * @param path
+     *  The log file
+     * @throws IOException
+     *  If the file could not be read or is not a log
+     */
+    public BinaryLogReader(Path path) throws IOException
+    {
+        buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if(buffer.capacity() < BinaryLog.FILE_HEADER_SIZE || buffer.getLong(0) != BinaryLog.MAGIC)
+        {
+            throw new IOException(path + " is not a binary log");
+        }
+
+        startNanos = buffer.getLong(8);
+        startMillis = buffer.getLong(16);
+        names = new HashMap<>();
+        position = BinaryLog.FILE_HEADER_SIZE;
+        frame = new PixyFrame(255);
+    }
+
+    /**
+     * Reads the next record. Name records are read and remembered but
+     * skipped, as are records a writer reserved but never finished.
+     * @return
+     *  True if a record was read, false at the end of the log
+     */
+    public boolean next()
+    {
+        while(position + BinaryLog.RECORD_HEADER_SIZE <= buffer.capacity())
+        {
+            int header = buffer.getInt(position);
+            int length = header & 0xFFFFFF;
+            if(header == 0 || length < BinaryLog.RECORD_HEADER_SIZE || position + length > buffer.capacity())
+            {
+                return false;
+            }
+
+            int offset = position;
+            int data = offset + BinaryLog.RECORD_HEADER_SIZE;
+            position += (length + 3) & ~3;
+            type = header >>> 24;
+            key = buffer.getInt(offset + 4);
+            time = buffer.getLong(offset + 8);
+
+            switch(type)
+            {
+                case BinaryLog.NAME:
+                    names.put(key, readString(data));
+                    break;
+
+                case BinaryLog.NUMBER:
+                    number = buffer.getDouble(data);
+                    return true;
+
+                case BinaryLog.STRING:
+                    string = readString(data);
+                    return true;
+
+                case BinaryLog.FRAME:
+                    frame.clear();
+                    int blocks = unsigned(data);
+                    for(int i = 0; i < blocks; i++)
+                    {
+                        int block = data + 2 + i * 10;
+                        frame.addBlock(unsigned(block), unsigned(block + 2), unsigned(block + 4),
+                            unsigned(block + 6), unsigned(block + 8));
+                    }
+                    frame.setTime(time);
+                    return true;
+
+                default:
+                    //Skip records that were never finished and types added after this reader
+                    break;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads an unsigned short.
+     * @param offset
+     *  The offset of the short
+     * @return
+     *  The value from 0 to 65535
+     */
+    private int unsigned(int offset)
+    {
+        return buffer.getShort(offset) & 0xFFFF;
+    }
+
+    /**
+     * Reads a string stored as a length and UTF-8 bytes.
+     * @param offset
+     *  The offset of the length
+     * @return
+     *  The string
+     */
+    private String readString(int offset)
+    {
+        int length = unsigned(offset);
+        byte[] bytes = new byte[length];
+        for(int i = 0; i < length; i++)
+        {
+            bytes[i] = buffer.get(offset + 2 + i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the type of the record last read.
+     * @return
+     *  BinaryLog.NUMBER, BinaryLog.STRING, or BinaryLog.FRAME
+     */
+    public int getType()
+    {
+        return type;
+    }
+
+    /**
+     * Returns the name of the source of the record last read.
+     * @return
+     *  The source name
+     */
+    public String getName()
+    {
+        String name = names.get(key);
+        return name == null ? "#" + key : name;
+    }
+
+    /**
+     * Returns the time of the record last read.
+     * @return
+     *  The seconds since the log was opened
+     */
+    public double getTime()
+    {
+        return (time - startNanos) / 1e9;
+    }
+
+    /**
+     * Returns the time the log was opened.
+     * @return
+     *  The milliseconds since 1970
+     */
+    public long getStartTime()
+    {
+        return startMillis;
+    }
+
+    /**
+     * Returns the value of the number record last read.
+     * @return
+     *  The number
+     */
+    public double getNumber()
+    {
+        return number;
+    }
+
+    /**
+     * Returns the value of the string record last read.
+     * @return
+     *  The string
+     */
+    public String getString()
+    {
+        return string;
+    }
+
+    /**
+     * Returns the frame record last read. The frame is reused by the next record.
+     * @return
+     *  The frame
+     */
+    public PixyFrame getFrame()
+    {
+        return frame;
+    }
+
+    /**
+     * Writes every remaining record as CSV with the columns time, name, value,
+     * block, signature, x, y, width, height. Frames get one row for each
+     * block, or a row with no block if they are empty.
+     * @param out
+     *  The writer to write to
+     * @throws IOException
+     *  If writing fails
+     */
+    public void exportCsv(Writer out) throws IOException
+    {
+        out.write("time,name,value,block,signature,x,y,width,height\n");
+        while(next())
+        {
+            String prefix = String.format(Locale.ROOT, "%.6f,%s,", getTime(), quote(getName()));
+            if(type == BinaryLog.NUMBER)
+            {
+                out.write(prefix + number + ",,,,,,\n");
+            }
+            else if(type == BinaryLog.STRING)
+            {
+                out.write(prefix + quote(string) + ",,,,,,\n");
+            }
+            else if(frame.getBlockCount() == 0)
+            {
+                out.write(prefix + "0,,,,,,\n");
+            }
+            else
+            {
+                for(int i = 0; i < frame.getBlockCount(); i++)
+                {
+                    out.write(prefix + frame.getBlockCount() + "," + i + "," + frame.getSignature(i) + "," + frame.getX(i)
+                        + "," + frame.getY(i) + "," + frame.getWidth(i) + "," + frame.getHeight(i) + "\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Quotes a CSV field if it needs it.
+     * @param field
+     *  The field
+     * @return
+     *  The field, quoted if it has a comma, quote, or line break
+     */
+    private static String quote(String field)
+    {
+        if(field.indexOf(',') == -1 && field.indexOf('"') == -1 && field.indexOf('\n') == -1)
+        {
+            return field;
+        }
+
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Converts a log to CSV.
+     * @param args
+     *  The log file, then the CSV file to write, the log file with .csv added if not given
+     */
+    public static void main(String[] args)
+    {
+        if(args.length == 0)
+        {
+            System.out.println("Usage: BinaryLogReader log [csv]");
+            return;
+        }
+
+        Path in = Paths.get(args[0]);
+        Path out = Paths.get(args.length > 1 ? args[1] : args[0] + ".csv");
+        try(BufferedWriter writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8))
+        {
+            new BinaryLogReader(in).exportCsv(writer);
+        }
+        catch(IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+}
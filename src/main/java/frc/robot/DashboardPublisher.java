@@ -0,0 +1,500 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * Puts values on a NetworkTable only when they change. Printers get an
+ * entry for each key once, when they are made, and set it every print; the
+ * entry remembers the last value sent and skips values that are the same,
+ * so printing often costs no network traffic while nothing changes.
+ *
+ * Entries are meant to be set from the TelemetryScheduler thread, the
+ * counts may be off if several threads set entries at once. If a log is
+ * set, every value sent is also written to it.
+ *
+ * A publisher made without a table counts and logs values the same way
+ * but sends them nowhere, so benchmarks and tests can run the telemetry
+ * without the NetworkTables natives.
+ *
+ */
+public class DashboardPublisher
+{
+    /**
+     * The name of the table the SmartDashboard uses
+     */
+    public static final String SMART_DASHBOARD = "SmartDashboard";
+
+    /**
+     * About how many bytes a NetworkTables entry update takes before its
+     * value: message type, entry id, sequence number, and value type
+     */
+    public static final int UPDATE_SIZE = 6;
+
+    /**
+     * The publisher for the SmartDashboard table
+     */
+    private static DashboardPublisher instance;
+
+    /**
+     * The table values are put on, null if values are only counted
+     */
+    private final NetworkTable table;
+
+    /**
+     * The entries already made, by key
+     */
+    private final Map<String, Entry> entries;
+
+    /**
+     * The number of values sent
+     */
+    private volatile long updates;
+
+    /**
+     * The number of values skipped because they had not changed
+     */
+    private volatile long skipped;
+
+    /**
+     * About how many bytes of updates were sent
+     */
+    private volatile long bytes;
+
+    /**
+     * The log values sent are written to, null if none
+     */
+    private volatile BinaryLog log;
+
+    /**
+     * Constructs a publisher that puts values on the given table.
+     * @param table
+     *  The table to put values on
+     */
+    public DashboardPublisher(NetworkTable table)
+    {
+        this.table = table;
+        entries = new HashMap<>();
+    }
+
+    /**
+     * Constructs a publisher that counts and logs values without putting
+     * them on a table.
+     */
+    DashboardPublisher()
+    {
+        this(null);
+    }
+
+    /**
+     * Returns the publisher for the SmartDashboard table.
+     * @return
+     *  The SmartDashboard publisher
+     */
+    public static synchronized DashboardPublisher getInstance()
+    {
+        if(instance == null)
+        {
+            instance = new DashboardPublisher(NetworkTableInstance.getDefault().getTable(SMART_DASHBOARD));
+        }
+
+        return instance;
+    }
+
+    /**
+     * Replaces the publisher returned by getInstance(), so the telemetry can
+     * be run on a publisher without a table. Entries already handed out keep
+     * using the old publisher.
+     * @param publisher
+     *  The publisher to use, null to go back to the SmartDashboard publisher
+     */
+    static synchronized void setInstance(DashboardPublisher publisher)
+    {
+        instance = publisher;
+    }
+
+    /**
+     * Returns the number entry for a key, sent every time the value changes.
+     * @param key
+     *  The key of the value
+     * @return
+     *  The entry to set the value with
+     */
+    public NumberEntry getNumber(String key)
+    {
+        return getNumber(key, 0);
+    }
+
+    /**
+     * Returns the number entry for a key, sent when the value changes by more
+     * than the given amount from the value last sent. If the entry already
+     * exists its epsilon is changed.
+     * @param key
+     *  The key of the value
+     * @param epsilon
+     *  The most the value can change without being sent
+     * @return
+     *  The entry to set the value with
+     */
+    public synchronized NumberEntry getNumber(String key, double epsilon)
+    {
+        Entry entry = entries.get(key);
+        if(!(entry instanceof NumberEntry))
+        {
+            entry = new NumberEntry(this, getEntry(key));
+            add(key, entry);
+        }
+
+        NumberEntry number = (NumberEntry) entry;
+        number.epsilon = Math.abs(epsilon);
+        return number;
+    }
+
+    /**
+     * Returns the boolean entry for a key.
+     * @param key
+     *  The key of the value
+     * @return
+     *  The entry to set the value with
+     */
+    public synchronized BooleanEntry getBoolean(String key)
+    {
+        Entry entry = entries.get(key);
+        if(!(entry instanceof BooleanEntry))
+        {
+            entry = new BooleanEntry(this, getEntry(key));
+            add(key, entry);
+        }
+
+        return (BooleanEntry) entry;
+    }
+
+    /**
+     * Returns the string entry for a key.
+     * @param key
+     *  The key of the value
+     * @return
+     *  The entry to set the value with
+     */
+    public synchronized StringEntry getString(String key)
+    {
+        Entry entry = entries.get(key);
+        if(!(entry instanceof StringEntry))
+        {
+            entry = new StringEntry(this, getEntry(key));
+            add(key, entry);
+        }
+
+        return (StringEntry) entry;
+    }
+
+    /**
+     * Sets a log to write every value sent to, under the key of its entry.
+     * Every entry sends its next value so the log starts with all of them.
+     * @param binaryLog
+     *  The log to write to, null to stop logging
+     */
+    public synchronized void setLog(BinaryLog binaryLog)
+    {
+        for(Map.Entry<String, Entry> entry : entries.entrySet())
+        {
+            entry.getValue().logKey = binaryLog == null ? 0 : binaryLog.key(entry.getKey());
+            entry.getValue().sent = false;
+        }
+        log = binaryLog;
+    }
+
+    /**
+     * Makes every entry send its next value even if it has not changed, for
+     * when the dashboard reconnects and needs every value again.
+     */
+    public synchronized void republish()
+    {
+        for(Entry entry : entries.values())
+        {
+            entry.sent = false;
+        }
+    }
+
+    /**
+     * Returns the number of values sent.
+     * @return
+     *  The update count
+     */
+    public long getUpdates()
+    {
+        return updates;
+    }
+
+    /**
+     * Returns the number of values skipped because they had not changed.
+     * @return
+     *  The skipped count
+     */
+    public long getSkipped()
+    {
+        return skipped;
+    }
+
+    /**
+     * Returns about how many bytes of NetworkTables updates were sent, used
+     * to measure how much each printer sends.
+     * @return
+     *  The estimated bytes sent
+     */
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * Returns the table entry for a key.
+     * @param key
+     *  The key of the value
+     * @return
+     *  The NetworkTable entry, null if there is no table
+     */
+    private NetworkTableEntry getEntry(String key)
+    {
+        return table == null ? null : table.getEntry(key);
+    }
+
+    /**
+     * Keeps an entry, giving it a key in the log if there is one.
+     * @param key
+     *  The key of the value
+     * @param entry
+     *  The entry to keep
+     */
+    private void add(String key, Entry entry)
+    {
+        BinaryLog binaryLog = log;
+        if(binaryLog != null)
+        {
+            entry.logKey = binaryLog.key(key);
+        }
+        entries.put(key, entry);
+    }
+
+    /**
+     * Counts a value as sent or skipped.
+     * @param size
+     *  The bytes of the value sent, 0 if it was skipped
+     */
+    private void count(int size)
+    {
+        if(size > 0)
+        {
+            updates = updates + 1;
+            bytes = bytes + UPDATE_SIZE + size;
+        }
+        else
+        {
+            skipped = skipped + 1;
+        }
+    }
+
+    /**
+     * An entry on the table and whether a value has been sent to it.
+     */
+    private abstract static class Entry
+    {
+        /**
+         * The publisher the entry belongs to
+         */
+        final DashboardPublisher publisher;
+
+        /**
+         * The NetworkTable entry values are sent to, null if values are only counted
+         */
+        final NetworkTableEntry entry;
+
+        /**
+         * False until a value is sent, so the first value is always sent
+         */
+        volatile boolean sent;
+
+        /**
+         * The key of the entry in the publisher's log
+         */
+        volatile int logKey;
+
+        /**
+         * Constructs an entry that has not sent a value.
+         * @param publisher
+         *  The publisher the entry belongs to
+         * @param entry
+         *  The NetworkTable entry values are sent to
+         */
+        Entry(DashboardPublisher publisher, NetworkTableEntry entry)
+        {
+            this.publisher = publisher;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * A number value on the table.
+     */
+    public static class NumberEntry extends Entry
+    {
+        /**
+         * The value last sent
+         */
+        private double last;
+
+        /**
+         * The most the value can change without being sent
+         */
+        private volatile double epsilon;
+
+        /**
+         * Constructs a number entry.
+         * @param publisher
+         *  The publisher the entry belongs to
+         * @param entry
+         *  The NetworkTable entry values are sent to
+         */
+        private NumberEntry(DashboardPublisher publisher, NetworkTableEntry entry)
+        {
+            super(publisher, entry);
+        }
+
+        /**
+         * Sends the value if it changed by more than epsilon since the value last sent.
+         * @param value
+         *  The value to put on the table
+         */
+        public void set(double value)
+        {
+            boolean changed = !sent
+                || Math.abs(value - last) > epsilon
+                || Double.isNaN(value) != Double.isNaN(last);
+            if(changed)
+            {
+                if(entry != null)
+                {
+                    entry.setDouble(value);
+                }
+                last = value;
+                sent = true;
+                BinaryLog binaryLog = publisher.log;
+                if(binaryLog != null)
+                {
+                    binaryLog.logNumber(logKey, value);
+                }
+            }
+            publisher.count(changed ? 8 : 0);
+        }
+    }
+
+    /**
+     * A boolean value on the table.
+     */
+    public static class BooleanEntry extends Entry
+    {
+        /**
+         * The value last sent
+         */
+        private boolean last;
+
+        /**
+         * Constructs a boolean entry.
+         * @param publisher
+         *  The publisher the entry belongs to
+         * @param entry
+         *  The NetworkTable entry values are sent to
+         */
+        private BooleanEntry(DashboardPublisher publisher, NetworkTableEntry entry)
+        {
+            super(publisher, entry);
+        }
+
+        /**
+         * Sends the value if it changed since the value last sent.
+         * @param value
+         *  The value to put on the table
+         */
+        public void set(boolean value)
+        {
+            boolean changed = !sent || value != last;
+            if(changed)
+            {
+                if(entry != null)
+                {
+                    entry.setBoolean(value);
+                }
+                last = value;
+                sent = true;
+                BinaryLog binaryLog = publisher.log;
+                if(binaryLog != null)
+                {
+                    binaryLog.logNumber(logKey, value ? 1 : 0);
+                }
+            }
+            publisher.count(changed ? 1 : 0);
+        }
+    }
+
+    /**
+     * A string value on the table.
+     */
+    public static class StringEntry extends Entry
+    {
+        /**
+         * The value last sent
+         */
+        private String last;
+
+        /**
+         * Constructs a string entry.
+         * @param publisher
+         *  The publisher the entry belongs to
+         * @param entry
+         *  The NetworkTable entry values are sent to
+         */
+        private StringEntry(DashboardPublisher publisher, NetworkTableEntry entry)
+        {
+            super(publisher, entry);
+        }
+
+        /**
+         * Sends the value if it changed since the value last sent.
+         * @param value
+         *  The value to put on the table, null is sent as an empty string
+         */
+        public void set(String value)
+        {
+            String text = value == null ? "" : value;
+            boolean changed = !sent || !Objects.equals(text, last);
+            if(changed)
+            {
+                if(entry != null)
+                {
+                    entry.setString(text);
+                }
+                last = text;
+                sent = true;
+                BinaryLog binaryLog = publisher.log;
+                if(binaryLog != null)
+                {
+                    binaryLog.logString(logKey, text);
+                }
+            }
+            //A string is sent as its length and then its characters
+            publisher.count(changed ? 2 + text.length() : 0);
+        }
+    }
+}
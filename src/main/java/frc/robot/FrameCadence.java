@@ -0,0 +1,177 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+/**
+ * Learns when a pixy sends its frames so it is only polled around the time
+ * the next frame should start, instead of every millisecond.
+ *
+ * After a frame the next poll is just before one frame period later. Polls
+ * that find no frame close to when one was expected are retried quickly.
+ * Once an expected frame does not come, such as when no object is seen,
+ * polls back off to later frames, up to MAX_BACKOFF apart. The frame period
+ * is measured from frames that were found right as they started.
+ *
+ * Only used by the thread polling the pixy, except getPeriod().
+ *
+ */
+public class FrameCadence
+{
+    /**
+     * The time in nanoseconds between frames of a pixy running at 50 fps
+     */
+    public static final long DEFAULT_PERIOD = 20_000_000L;
+
+    /**
+     * The time in nanoseconds before an expected frame to start polling
+     */
+    static final long GUARD_TIME = 1_000_000L;
+
+    /**
+     * The time in nanoseconds between polls while a frame is expected
+     */
+    private static final long RETRY_TIME = 250_000L;
+
+    /**
+     * The time in nanoseconds after an expected frame to keep retrying
+     */
+    private static final long LATE_TIME = 2_000_000L;
+
+    /**
+     * The longest time in nanoseconds to back off between polls
+     */
+    private static final long MAX_BACKOFF = 50_000_000L;
+
+    /**
+     * The measured time between frames in nanoseconds
+     */
+    private volatile long period;
+
+    /**
+     * The RobotClock.nanoTime() the last frame started
+     */
+    private long lastFrameTime;
+
+    /**
+     * True once a frame has been read
+     */
+    private boolean locked;
+
+    /**
+     * True if the last frame was found as it started instead of waiting to be read
+     */
+    private boolean lastFramePrompt;
+
+    /**
+     * True if the last poll was a retry waiting for an expected frame
+     */
+    private boolean waiting;
+
+    /**
+     * The current time in nanoseconds to back off after a missed frame
+     */
+    private long backoff;
+
+    /**
+     * The RobotClock.nanoTime() to poll next
+     */
+    private long nextPollTime;
+
+    /**
+     * Constructs a cadence that starts polling right away and expects 50 fps.
+     */
+    public FrameCadence()
+    {
+        period = DEFAULT_PERIOD;
+        backoff = RETRY_TIME;
+        nextPollTime = RobotClock.nanoTime();
+    }
+
+    /**
+     * Updates the cadence after a frame was read.
+     * @param frameTime
+     *  The RobotClock.nanoTime() the frame started
+     * @param now
+     *  The current RobotClock.nanoTime()
+     */
+    public void frameRead(long frameTime, long now)
+    {
+        //Only measure frames that were found as they started, not ones that were waiting
+        boolean prompt = waiting;
+        if(locked && prompt && lastFramePrompt)
+        {
+            long interval = frameTime - lastFrameTime;
+            long currentPeriod = period;
+            long frames = Math.max(1, (interval + currentPeriod / 2) / currentPeriod);
+            if(interval > 0 && frames <= 4)
+            {
+                period = currentPeriod + (interval / frames - currentPeriod) / 8;
+            }
+        }
+
+        lastFrameTime = frameTime;
+        lastFramePrompt = prompt;
+        locked = true;
+        waiting = false;
+        backoff = RETRY_TIME;
+        nextPollTime = Math.max(frameTime + period - GUARD_TIME, now);
+    }
+
+    /**
+     * Updates the cadence after a poll found no frame.
+     * @param now
+     *  The current RobotClock.nanoTime()
+     */
+    public void frameMissed(long now)
+    {
+        if(!locked)
+        {
+            backoff = Math.min(backoff * 2, MAX_BACKOFF);
+            waiting = false;
+            nextPollTime = now + backoff;
+            return;
+        }
+
+        long currentPeriod = period;
+        long sinceFrame = now - lastFrameTime;
+        long phase = sinceFrame % currentPeriod;
+        if(phase < LATE_TIME || currentPeriod - phase <= GUARD_TIME)
+        {
+            //A frame should be starting soon
+            waiting = true;
+            nextPollTime = now + RETRY_TIME;
+            return;
+        }
+
+        //The expected frame did not come, so skip ahead whole frames
+        backoff = Math.min(backoff * 2, MAX_BACKOFF);
+        waiting = false;
+        long frames = (sinceFrame + backoff) / currentPeriod + 1;
+        nextPollTime = lastFrameTime + frames * currentPeriod - GUARD_TIME;
+    }
+
+    /**
+     * Returns when the pixy should be polled next.
+     * @return
+     *  The RobotClock.nanoTime() to poll next
+     */
+    public long getNextPollTime()
+    {
+        return nextPollTime;
+    }
+
+    /**
+     * Returns the measured time between frames.
+     * @return
+     *  The frame period in nanoseconds
+     */
+    public long getPeriod()
+    {
+        return period;
+    }
+}
@@ -7,14 +7,18 @@
 
 package frc.robot;
 
-import edu.wpi.first.wpilibj.Solenoid;
-
 /**
  * Controller for the LEDs through the PCM. The robot must be enabled for
  * the LEDs to work since the PCM can only function when the robot is enabled.
  * 
  * Warning: Make sure PCM and LED voltage are the same.
  * 
+ * All controllers are run by the shared LEDScheduler, so changing the mode
+ * only swaps the controller's state and the LEDs switch on the next tick.
+ * Flash and morse settings are compiled into an LEDPattern when they are 
+ * set, and patterns are played from the start of each cycle so they do not drift.
+ * Writes go through PCMOutput, so only changes are sent to the PCM.
+ * 
  * @author JoelNeppel
  * 
  */
@@ -34,37 +38,94 @@ public class LEDController
     /**
      * The channel the LEDs are plugged into on the PCM
      */
-    private Solenoid ledPort;
+    private final int ledPort;
+
+    /**
+     * The output the LED state is written through
+     */
+    private final PCMOutput output;
 
     /**
      * The time in milliseconds between flashes
      */
-    private int interval;
+    private volatile int interval;
 
     /**
      * How long the LEDs should be on during flashes in milliseconds
      */
-    private int onTime;
+    private volatile int onTime;
 
     /**
      * How long the LEDs should be off during flashes in milliseconds
      */
-    private int offTime;
+    private volatile int offTime;
 
     /**
      * The number of pulses each flash cycle
      */
-    private int numPulses;
+    private volatile int numPulses;
+
+    /**
+     * The default length of a dot in milliseconds for morse text
+     */
+    public static final int MORSE_UNIT_TIME = 250;
+
+    /**
+     * The pattern played in flash mode
+     */
+    private volatile LEDPattern flashPattern;
+
+    /**
+     * The pattern played in morse mode
+     */
+    private volatile LEDPattern morsePattern;
+
+    /**
+     * The current mode
+     */
+    private volatile Mode mode;
+
+    /**
+     * The number of times the mode has been set, used by the scheduler to 
+     * see that the mode changed
+     */
+    private volatile int modeChanges;
 
     /**
-     * The message flashed when using morse code
+     * The number of mode changes the scheduler has applied
      */
-    private String message;
+    private int appliedChanges;
 
     /**
-     * The thread for the LED control, only active when in flash or morse mode
+     * The log mode changes are written to, null if none
      */
-    private Thread ledThread;
+    private volatile BinaryLog log;
+
+    /**
+     * The key of this controller in the log
+     */
+    private volatile int logKey;
+
+    /**
+     * True once the controller is closed, the scheduler then turns the LEDs
+     * off and removes it
+     */
+    private volatile boolean closed;
+
+    /**
+     * The pattern being played, null in on or off mode
+     */
+    private LEDPattern playing;
+
+    /**
+     * The RobotClock.nanoTime() the current cycle of the pattern started
+     */
+    private long cycleStart;
+
+    /**
+     * The index of the step of the pattern being played, -1 before the first step of a cycle
+     */
+    private int step;
 
     /**
      * Constructor for an LED Controller with the given parameters.
@@ -83,15 +144,18 @@ public class LEDController
      */
     public LEDController(int channel, Mode mode, int interval, int onTime, int offTime, int numPulses)
     {
-        ledPort = new Solenoid(channel);
+        ledPort = channel;
+        output = PCMOutput.getInstance();
+        output.open(channel);
         this.interval = interval;
         this.onTime = onTime;
         this.offTime = offTime;
         this.numPulses = numPulses;
-        message = "";
-        ledThread = new Thread();
+        flashPattern = LEDPattern.flash(interval, onTime, offTime, numPulses);
+        morsePattern = LEDPattern.encoded("");
 
         setMode(mode);
+        LEDScheduler.getInstance().add(this);
     }
 
     /**
@@ -127,6 +191,7 @@ public class LEDController
     public void setFlashInterval(int interval)
     {
         this.interval = interval;
+        flashPattern = LEDPattern.flash(interval, onTime, offTime, numPulses);
     }
 
     /**
@@ -137,34 +202,32 @@ public class LEDController
     public void setFlashPulses(int pulses)
     {
         numPulses = pulses;
+        flashPattern = LEDPattern.flash(interval, onTime, offTime, numPulses);
     }
 
     /**
-     * Sets the mode of the lights.
+     * Sets the mode of the lights. The LEDs change on the next scheduler tick.
      * @param mode
      *  The mode to set the lights to
      */
     public void setMode(Mode mode)
     {
-        ledThread.interrupt();
-        if(mode == Mode.ON)
-        {
-            ledPort.set(true);
-        }
-        else if(mode == Mode.OFF)
-        {
-            ledPort.set(false);
-        }
-        else if(mode == Mode.FLASH)
-        {
-            ledThread = new Thread(this::flash);
-            ledThread.start(); 
-        }
-        else if(mode == Mode.MORSE)
+        this.mode = mode;
+        modeChanges = modeChanges + 1;
+    }
+
+    /**
+     * Sets a log to write mode changes to.
+     * @param binaryLog
+     *  The log to write to, null to stop logging
+     */
+    public void setLog(BinaryLog binaryLog)
+    {
+        if(binaryLog != null)
         {
-            ledThread = new Thread(this::morse);
-            ledThread.start(); 
+            logKey = binaryLog.key("LED " + ledPort + " Mode");
         }
+        log = binaryLog;
     }
 
     /**
@@ -175,65 +238,113 @@ public class LEDController
      */
     public void setMessage(String morseMessage)
     {
-        message = morseMessage;
+        morsePattern = LEDPattern.encoded(morseMessage);
+    }
+
+    /**
+     * Sets text to display in morse mode using international morse code 
+     * with the default dot length.
+     * @param text
+     *  The text to send, letters and digits are sent and anything else is
+     *  a space between words
+     */
+    public void setMorseText(String text)
+    {
+        setMorseText(text, MORSE_UNIT_TIME);
+    }
+
+    /**
+     * Sets text to display in morse mode using international morse code.
+     * @param text
+     *  The text to send, letters and digits are sent and anything else is
+     *  a space between words
+     * @param unitTime
+     *  The length of a dot in milliseconds
+     */
+    public void setMorseText(String text, int unitTime)
+    {
+        morsePattern = LEDPattern.morse(text, unitTime);
+    }
+
+    /**
+     * Stops the controller. The LEDs are turned off and the controller is
+     * removed from the LEDScheduler on the next tick, so it can be dropped
+     * instead of being run forever. It can not be used again after this.
+     */
+    public void close()
+    {
+        closed = true;
     }
 
     /**
-     * Method to set the LEDs to flash.
+     * Switches the LEDs for the current mode. Called by the scheduler each tick.
+     * @param now
+     *  The current RobotClock.nanoTime()
      */
-    private void flash()
+    void update(long now)
     {
-        try
+        //Turn off and leave on the scheduler thread so no tick writes after this
+        if(closed)
+        {
+            output.set(ledPort, false);
+            LEDScheduler.getInstance().remove(this);
+            return;
+        }
+
+        int changes = modeChanges;
+        Mode current = mode;
+        if(changes != appliedChanges)
         {
-            while(!Thread.interrupted())
+            appliedChanges = changes;
+            playing = null;
+            BinaryLog modeLog = log;
+            if(modeLog != null)
+            {
+                modeLog.logString(logKey, current.name());
+            }
+            if(current == Mode.ON || current == Mode.OFF)
             {
-                for(int i = 0; i < numPulses; i++)
-                {
-                    ledPort.set(true);
-                    Thread.sleep(onTime);
-                    ledPort.set(false);
-                    Thread.sleep(offTime);
-                    Thread.sleep(Math.max(0, interval - offTime));
-                }
+                output.set(ledPort, current == Mode.ON);
             }
         }
-        catch(InterruptedException e)
+
+        LEDPattern pattern = current == Mode.FLASH ? flashPattern : current == Mode.MORSE ? morsePattern : null;
+        if(pattern == null)
         {
-            //Do nothing - let the thread end
+            return;
         }
-    }
 
-    /**
-     * Method to set the LEDs to morse.
-     */
-    private void morse()
-    {
-        try
+        //Start over when the mode or the pattern changes
+        if(pattern != playing)
         {
-            while(!Thread.interrupted())
+            playing = pattern;
+            cycleStart = now;
+            step = -1;
+            if(pattern.isEmpty())
             {
-                for(int i = 0; i < message.length(); i++)
-                {
-                    if(message.charAt(i) == '-')
-                    {
-                        ledPort.set(true);
-                        Thread.sleep(1333);
-                        ledPort.set(false);
-                        Thread.sleep(1000);
-                    }
-                    if(message.charAt(i) == '.')
-                    {
-                        ledPort.set(true);
-                        Thread.sleep(667);
-                        ledPort.set(false);
-                        Thread.sleep(1000);
-                    }
-                }
+                output.set(ledPort, false);
             }
         }
-        catch(InterruptedException e)
+        if(pattern.isEmpty())
+        {
+            return;
+        }
+
+        //Move the cycle start by whole cycles so timing never drifts
+        long elapsed = now - cycleStart;
+        if(elapsed >= pattern.getCycleLength())
+        {
+            long cycles = elapsed / pattern.getCycleLength();
+            cycleStart += cycles * pattern.getCycleLength();
+            elapsed -= cycles * pattern.getCycleLength();
+            step = -1;
+        }
+
+        int newStep = pattern.stepAt(elapsed, step);
+        if(newStep != step)
         {
-            //Do nothing - let the thread end
+            step = newStep;
+            output.set(ledPort, LEDPattern.isOn(step));
         }
     }
 }
\ No newline at end of file
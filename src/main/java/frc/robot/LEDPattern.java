@@ -0,0 +1,278 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+/**
+ * A repeating pattern of LED on and off times compiled once into an array
+ * of step start times. Even steps are on and odd steps are off. Playing the
+ * pattern only compares the time since the cycle started against the array,
+ * so it never drifts and never allocates.
+ *
+ */
+public class LEDPattern
+{
+    /**
+     * The morse code for A to Z
+     */
+    private static final String[] LETTERS =
+    {
+        ".-", "-...", "-.-.", "-..", ".", "..-.", "--.", "....", "..", ".---", "-.-", ".-..", "--",
+        "-.", "---", ".--.", "--.-", ".-.", "...", "-", "..-", "...-", ".--", "-..-", "-.--", "--.."
+    };
+
+    /**
+     * The morse code for 0 to 9
+     */
+    private static final String[] DIGITS =
+    {
+        "-----", ".----", "..---", "...--", "....-", ".....", "-....", "--...", "---..", "----."
+    };
+
+    /**
+     * The time each step starts in nanoseconds after the start of the cycle
+     */
+    private final long[] stepStarts;
+
+    /**
+     * The length of one cycle of the pattern in nanoseconds
+     */
+    private final long cycleLength;
+
+    /**
+     * Constructs a pattern from alternating on and off times.
+     * @param durations
+     *  The length of each step in milliseconds, starting with on
+     */
+    private LEDPattern(int[] durations)
+    {
+        stepStarts = new long[durations.length];
+        long start = 0;
+        for(int i = 0; i < durations.length; i++)
+        {
+            stepStarts[i] = start;
+            start += Math.max(0, durations[i]) * 1_000_000L;
+        }
+        cycleLength = start;
+    }
+
+    /**
+     * Compiles a flash pattern of the given number of pulses in each set.
+     * @param interval
+     *  The time in milliseconds from the last pulse of a set turning off to
+     *  the next set turning on, at least the off time
+     * @param onTime
+     *  The time each pulse is on in milliseconds
+     * @param offTime
+     *  The time between pulses of a set in milliseconds
+     * @param numPulses
+     *  The number of pulses in each set
+     * @return
+     *  The flash pattern
+     */
+    public static LEDPattern flash(int interval, int onTime, int offTime, int numPulses)
+    {
+        int pulses = Math.max(0, numPulses);
+        int[] durations = new int[pulses * 2];
+        for(int i = 0; i < pulses; i++)
+        {
+            durations[i * 2] = onTime;
+            durations[i * 2 + 1] = i == pulses - 1 ? Math.max(offTime, interval) : offTime;
+        }
+
+        return new LEDPattern(durations);
+    }
+
+    /**
+     * Compiles a message already encoded with "-" and "." into the long and
+     * short flashes LEDController has always used: 1333 milliseconds on for
+     * "-", 667 milliseconds on for ".", and 1000 milliseconds off after each.
+     * @param symbols
+     *  The encoded message, characters other than "-" and "." are ignored
+     * @return
+     *  The morse pattern
+     */
+    public static LEDPattern encoded(String symbols)
+    {
+        int count = 0;
+        for(int i = 0; i < symbols.length(); i++)
+        {
+            char symbol = symbols.charAt(i);
+            if(symbol == '-' || symbol == '.')
+            {
+                count++;
+            }
+        }
+
+        int[] durations = new int[count * 2];
+        int step = 0;
+        for(int i = 0; i < symbols.length(); i++)
+        {
+            char symbol = symbols.charAt(i);
+            if(symbol == '-' || symbol == '.')
+            {
+                durations[step++] = symbol == '-' ? 1333 : 667;
+                durations[step++] = 1000;
+            }
+        }
+
+        return new LEDPattern(durations);
+    }
+
+    /**
+     * Compiles text into international morse code timing: a dot is one unit
+     * on, a dash is three units on, and the LEDs are off one unit between
+     * symbols, three units between letters, and seven units between words and
+     * before the message repeats.
+     * @param text
+     *  The message, letters and digits are sent and other characters are
+     *  treated as spaces between words
+     * @param unitTime
+     *  The length of a dot in milliseconds
+     * @return
+     *  The morse pattern
+     */
+    public static LEDPattern morse(String text, int unitTime)
+    {
+        //Count the symbols first so the array is only made once
+        int count = 0;
+        for(int i = 0; i < text.length(); i++)
+        {
+            String code = code(text.charAt(i));
+            if(code != null)
+            {
+                count += code.length();
+            }
+        }
+
+        int[] durations = new int[count * 2];
+        int step = 0;
+        for(int i = 0; i < text.length(); i++)
+        {
+            String code = code(text.charAt(i));
+            if(code == null)
+            {
+                //Stretch the gap after the last letter to a word gap
+                if(step > 0)
+                {
+                    durations[step - 1] = 7 * unitTime;
+                }
+                continue;
+            }
+
+            for(int j = 0; j < code.length(); j++)
+            {
+                durations[step++] = code.charAt(j) == '-' ? 3 * unitTime : unitTime;
+                durations[step++] = unitTime;
+            }
+            durations[step - 1] = 3 * unitTime;
+        }
+        if(step > 0)
+        {
+            durations[step - 1] = 7 * unitTime;
+        }
+
+        return new LEDPattern(durations);
+    }
+
+    /**
+     * Returns the morse code of a character.
+     * @param character
+     *  The character to encode
+     * @return
+     *  The "-" and "." code, null if the character has none
+     */
+    private static String code(char character)
+    {
+        char upper = Character.toUpperCase(character);
+        if(upper >= 'A' && upper <= 'Z')
+        {
+            return LETTERS[upper - 'A'];
+        }
+        if(upper >= '0' && upper <= '9')
+        {
+            return DIGITS[upper - '0'];
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns whether the pattern has no time to play, in which case the LEDs stay off.
+     * @return
+     *  True if the pattern is empty
+     */
+    public boolean isEmpty()
+    {
+        return cycleLength == 0;
+    }
+
+    /**
+     * Returns the length of one cycle of the pattern.
+     * @return
+     *  The cycle length in nanoseconds
+     */
+    public long getCycleLength()
+    {
+        return cycleLength;
+    }
+
+    /**
+     * Returns the number of on and off steps in the pattern.
+     * @return
+     *  The number of steps
+     */
+    public int getSteps()
+    {
+        return stepStarts.length;
+    }
+
+    /**
+     * Returns when the given step starts.
+     * @param step
+     *  The index of the step
+     * @return
+     *  The nanoseconds after the start of the cycle the step starts
+     */
+    public long getStepStart(int step)
+    {
+        return stepStarts[step];
+    }
+
+    /**
+     * Returns the step playing at the given time, starting the search from
+     * the step playing before so playing the pattern only moves forward.
+     * @param elapsed
+     *  The nanoseconds since the start of the cycle, less than the cycle length
+     * @param fromStep
+     *  The step to start searching from, 0 at the start of a cycle
+     * @return
+     *  The index of the step playing
+     */
+    public int stepAt(long elapsed, int fromStep)
+    {
+        int step = Math.max(0, fromStep);
+        while(step + 1 < stepStarts.length && stepStarts[step + 1] <= elapsed)
+        {
+            step++;
+        }
+
+        return step;
+    }
+
+    /**
+     * Returns whether the LEDs are on during the given step.
+     * @param step
+     *  The index of the step
+     * @return
+     *  True for on steps, false for off steps
+     */
+    public static boolean isOn(int step)
+    {
+        return step % 2 == 0;
+    }
+}
@@ -0,0 +1,148 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every LEDController from one thread. Each tick the controllers
+ * switch their LEDs for any flash or morse edges that have come due, so
+ * no controller needs a thread of its own and changing modes never
+ * creates a thread. The LED changes from all controllers are written to
+ * the PCM together at the end of each tick.
+ *
+ */
+public class LEDScheduler
+{
+    /**
+     * The time between ticks in milliseconds
+     */
+    public static final int TICK_TIME = 5;
+
+    /**
+     * The scheduler shared by all LED controllers
+     */
+    private static LEDScheduler instance;
+
+    /**
+     * The controllers being run, replaced instead of changed so ticks can
+     * loop through it without locking
+     */
+    private volatile LEDController[] controllers;
+
+    /**
+     * The executor running the ticks, null until a controller is added
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructs a scheduler with no controllers.
+     */
+    private LEDScheduler()
+    {
+        controllers = new LEDController[0];
+    }
+
+    /**
+     * Returns the scheduler shared by all LED controllers.
+     * @return
+     *  The LED scheduler
+     */
+    public static synchronized LEDScheduler getInstance()
+    {
+        if(instance == null)
+        {
+            instance = new LEDScheduler();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Adds a controller to run each tick, starting the thread if needed.
+     * No thread is started in a Simulation.
+     * @param controller
+     *  The controller to add
+     */
+    synchronized void add(LEDController controller)
+    {
+        LEDController[] current = controllers;
+        LEDController[] updated = new LEDController[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = controller;
+        controllers = updated;
+
+        //A simulation ticks the scheduler itself
+        if(executor == null && !RobotClock.isSimulated())
+        {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable ->
+            {
+                Thread thread = new Thread(runnable, "LEDScheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleAtFixedRate(this::tick, 0, TICK_TIME, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Removes a controller so it is no longer run each tick.
+     * @param controller
+     *  The controller to remove
+     */
+    synchronized void remove(LEDController controller)
+    {
+        LEDController[] current = controllers;
+        for(int i = 0; i < current.length; i++)
+        {
+            if(current[i] == controller)
+            {
+                LEDController[] updated = new LEDController[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                controllers = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Updates every controller for the current time and writes the changes.
+     * Called by the scheduler thread, or by a Simulation.
+     */
+    void tick()
+    {
+        PCMOutput output = PCMOutput.getInstance();
+        long now = RobotClock.nanoTime();
+        LEDController[] current = controllers;
+        for(int i = 0; i < current.length; i++)
+        {
+            try
+            {
+                current[i].update(now);
+            }
+            catch(RuntimeException e)
+            {
+                //Keep running the other controllers
+                e.printStackTrace();
+            }
+        }
+
+        //An exception escaping a tick would stop the executor running any more ticks
+        try
+        {
+            output.flush();
+        }
+        catch(RuntimeException e)
+        {
+            e.printStackTrace();
+        }
+    }
+}
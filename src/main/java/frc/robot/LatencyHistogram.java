@@ -0,0 +1,143 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations with fixed power of two buckets, so recording is a
+ * few array operations and never allocates. Bucket 0 holds durations under
+ * 2 microseconds, bucket i holds durations from 2^i up to 2^(i + 1)
+ * microseconds, and the last bucket holds everything longer.
+ *
+ * Only one thread may record. Any thread can read, though values read
+ * while recording may be off by the samples being recorded.
+ *
+ */
+public class LatencyHistogram
+{
+    /**
+     * The number of buckets, the last starting at about 1 second
+     */
+    public static final int BUCKETS = 21;
+
+    /*
+     * Indexes of the totals stored after the buckets.
+     */
+    private static final int COUNT = BUCKETS;
+    private static final int SUM = BUCKETS + 1;
+    private static final int MAX = BUCKETS + 2;
+
+    /**
+     * The number of samples in each bucket followed by the count, sum, and max
+     */
+    private final AtomicLongArray values = new AtomicLongArray(BUCKETS + 3);
+
+    /**
+     * Adds a duration to the histogram. Must only be called by one thread.
+     * @param nanos
+     *  The duration in nanoseconds
+     */
+    public void record(long nanos)
+    {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, Math.max(0, 63 - Long.numberOfLeadingZeros(micros)));
+
+        values.lazySet(bucket, values.get(bucket) + 1);
+        values.lazySet(COUNT, values.get(COUNT) + 1);
+        values.lazySet(SUM, values.get(SUM) + nanos);
+        if(nanos > values.get(MAX))
+        {
+            values.lazySet(MAX, nanos);
+        }
+    }
+
+    /**
+     * Returns the number of samples recorded.
+     * @return
+     *  The sample count
+     */
+    public long getCount()
+    {
+        return values.get(COUNT);
+    }
+
+    /**
+     * Returns the number of samples in the given bucket.
+     * @param bucket
+     *  The index of the bucket
+     * @return
+     *  The bucket's sample count
+     */
+    public long getBucket(int bucket)
+    {
+        return values.get(bucket);
+    }
+
+    /**
+     * Returns the average duration.
+     * @return
+     *  The mean in milliseconds, 0 if nothing was recorded
+     */
+    public double getMean()
+    {
+        long count = values.get(COUNT);
+        return count == 0 ? 0 : values.get(SUM) / 1e6 / count;
+    }
+
+    /**
+     * Returns the longest duration.
+     * @return
+     *  The max in milliseconds
+     */
+    public double getMax()
+    {
+        return values.get(MAX) / 1e6;
+    }
+
+    /**
+     * Returns the duration that the given fraction of samples are under,
+     * rounded up to the top of its bucket.
+     * @param fraction
+     *  The fraction of samples from 0 to 1, 0.99 for the 99th percentile
+     * @return
+     *  The percentile in milliseconds, 0 if nothing was recorded
+     */
+    public double getPercentile(double fraction)
+    {
+        long count = values.get(COUNT);
+        if(count == 0)
+        {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for(int i = 0; i < BUCKETS - 1; i++)
+        {
+            seen += values.get(i);
+            if(seen >= target)
+            {
+                return (2L << i) / 1000.0;
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Clears every sample. Must only be called by the recording thread.
+     */
+    public void reset()
+    {
+        for(int i = 0; i < values.length(); i++)
+        {
+            values.lazySet(i, 0);
+        }
+    }
+}
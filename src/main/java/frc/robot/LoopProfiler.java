@@ -0,0 +1,382 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times named sections of a periodic loop, like teleopPeriodic(), into
+ * LatencyHistograms. Sections are added once before the loop runs and then
+ * started and stopped by index, so timing them never allocates. When a loop
+ * takes longer than its budget the overrun is counted against the section
+ * that took the most time in that loop.
+ *
+ * Only the loop's thread may time sections. It is a Printer, so the
+ * summaries can be put on the SmartDashboard with a ValuePrinter.
+ *
+ */
+public class LoopProfiler implements Printer
+{
+    /**
+     * The name reported for overruns caused by time outside every section
+     */
+    public static final String UNPROFILED = "Unprofiled";
+
+    /**
+     * The prefix of the SmartDashboard keys
+     */
+    private final String name;
+
+    /**
+     * The time a loop may take in nanoseconds
+     */
+    private volatile long budget;
+
+    /**
+     * The sections, replaced instead of changed so printing can loop
+     * through it without locking
+     */
+    private volatile Section[] sections;
+
+    /**
+     * The RobotClock.nanoTime() the current loop started
+     */
+    private long loopStart;
+
+    /**
+     * True between startLoop() and endLoop()
+     */
+    private boolean inLoop;
+
+    /**
+     * True once the first loop has started, so there is a period to measure
+     */
+    private boolean started;
+
+    /**
+     * The time each loop took
+     */
+    private final LatencyHistogram loopTime = new LatencyHistogram();
+
+    /**
+     * The time from the start of one loop to the start of the next
+     */
+    private final LatencyHistogram loopPeriod = new LatencyHistogram();
+
+    /**
+     * The number of loops that took longer than the budget
+     */
+    private volatile long overruns;
+
+    /**
+     * The name of the section that took the most time in the last loop over budget
+     */
+    private volatile String lastOverrun;
+
+    /**
+     * The time the last loop over budget took in nanoseconds
+     */
+    private volatile long lastOverrunTime;
+
+    /*
+     * The dashboard entries for print(), made again when sections are added.
+     */
+    private int printedSections = -1;
+    private DashboardPublisher.NumberEntry[] entries;
+    private DashboardPublisher.StringEntry lastOverrunEntry;
+
+    /**
+     * Constructs a profiler for a loop with the given budget.
+     * @param name
+     *  The name of the loop, the prefix of the SmartDashboard keys
+     * @param budget
+     *  The time a loop may take in milliseconds
+     */
+    public LoopProfiler(String name, int budget)
+    {
+        this.name = name;
+        sections = new Section[0];
+        lastOverrun = "None";
+        setBudget(budget);
+    }
+
+    /**
+     * Sets the time a loop may take before it counts as an overrun.
+     * @param budget
+     *  The budget in milliseconds
+     */
+    public void setBudget(int budget)
+    {
+        this.budget = TimeUnit.MILLISECONDS.toNanos(budget);
+    }
+
+    /**
+     * Adds a section to time. Add sections before the loop runs.
+     * @param sectionName
+     *  The name of the section
+     * @return
+     *  The index to start and stop the section with
+     */
+    public synchronized int addSection(String sectionName)
+    {
+        Section[] current = sections;
+        Section[] updated = new Section[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = new Section(sectionName);
+        sections = updated;
+        return current.length;
+    }
+
+    /**
+     * Marks the start of a loop.
+     */
+    public void startLoop()
+    {
+        long now = RobotClock.nanoTime();
+        if(started)
+        {
+            loopPeriod.record(now - loopStart);
+        }
+        started = true;
+        inLoop = true;
+        loopStart = now;
+
+        Section[] current = sections;
+        for(int i = 0; i < current.length; i++)
+        {
+            current[i].loopTotal = 0;
+        }
+    }
+
+    /**
+     * Starts timing a section.
+     * @param section
+     *  The index returned by addSection()
+     */
+    public void start(int section)
+    {
+        sections[section].start = RobotClock.nanoTime();
+    }
+
+    /**
+     * Stops timing a section. A section can be started and stopped more than
+     * once in a loop, its times are added up for overruns.
+     * @param section
+     *  The index returned by addSection()
+     */
+    public void stop(int section)
+    {
+        Section timed = sections[section];
+        long elapsed = RobotClock.nanoTime() - timed.start;
+        timed.time.record(elapsed);
+        timed.loopTotal += elapsed;
+    }
+
+    /**
+     * Marks the end of a loop, counting an overrun if it took longer than the budget.
+     */
+    public void endLoop()
+    {
+        if(!inLoop)
+        {
+            return;
+        }
+
+        long elapsed = RobotClock.nanoTime() - loopStart;
+        inLoop = false;
+        loopTime.record(elapsed);
+        if(elapsed <= budget)
+        {
+            return;
+        }
+
+        //Blame the section that took the most time, or the time outside every section
+        Section[] current = sections;
+        Section worst = null;
+        long profiled = 0;
+        for(int i = 0; i < current.length; i++)
+        {
+            profiled += current[i].loopTotal;
+            if(worst == null || current[i].loopTotal > worst.loopTotal)
+            {
+                worst = current[i];
+            }
+        }
+
+        overruns = overruns + 1;
+        lastOverrunTime = elapsed;
+        if(worst == null || elapsed - profiled > worst.loopTotal)
+        {
+            lastOverrun = UNPROFILED;
+        }
+        else
+        {
+            worst.overruns = worst.overruns + 1;
+            lastOverrun = worst.name;
+        }
+    }
+
+    /**
+     * Returns the histogram of the time each loop took.
+     * @return
+     *  The loop time histogram
+     */
+    public LatencyHistogram getLoopTime()
+    {
+        return loopTime;
+    }
+
+    /**
+     * Returns the histogram of the time from the start of one loop to the start of the next.
+     * @return
+     *  The loop period histogram
+     */
+    public LatencyHistogram getLoopPeriod()
+    {
+        return loopPeriod;
+    }
+
+    /**
+     * Returns the histogram of the time a section took.
+     * @param section
+     *  The index returned by addSection()
+     * @return
+     *  The section time histogram
+     */
+    public LatencyHistogram getSectionTime(int section)
+    {
+        return sections[section].time;
+    }
+
+    /**
+     * Returns the number of overruns blamed on a section.
+     * @param section
+     *  The index returned by addSection()
+     * @return
+     *  The section's overrun count
+     */
+    public long getSectionOverruns(int section)
+    {
+        return sections[section].overruns;
+    }
+
+    /**
+     * Returns the number of loops that took longer than the budget.
+     * @return
+     *  The overrun count
+     */
+    public long getOverruns()
+    {
+        return overruns;
+    }
+
+    /**
+     * Returns the section that took the most time in the last loop over budget.
+     * @return
+     *  The section name, "Unprofiled" if it was time outside every section,
+     *  or "None" if no loop was over budget
+     */
+    public String getLastOverrun()
+    {
+        return lastOverrun;
+    }
+
+    /**
+     * Returns the time the last loop over budget took.
+     * @return
+     *  The loop time in milliseconds
+     */
+    public double getLastOverrunTime()
+    {
+        return lastOverrunTime / 1e6;
+    }
+
+    /**
+     * Prints the loop and section times and the overruns to the SmartDashboard.
+     */
+    @Override
+    public void print()
+    {
+        Section[] current = sections;
+        if(printedSections != current.length)
+        {
+            DashboardPublisher dashboard = DashboardPublisher.getInstance();
+            entries = new DashboardPublisher.NumberEntry[6 + current.length * 3];
+            entries[0] = dashboard.getNumber(name + " Loop Mean", 0.01);
+            entries[1] = dashboard.getNumber(name + " Loop 99%", 0.01);
+            entries[2] = dashboard.getNumber(name + " Loop Max", 0.01);
+            entries[3] = dashboard.getNumber(name + " Period 99%", 0.01);
+            entries[4] = dashboard.getNumber(name + " Overruns");
+            entries[5] = dashboard.getNumber(name + " Last Overrun Time", 0.01);
+            for(int i = 0; i < current.length; i++)
+            {
+                String prefix = name + " " + current[i].name;
+                entries[6 + i * 3] = dashboard.getNumber(prefix + " 99%", 0.01);
+                entries[7 + i * 3] = dashboard.getNumber(prefix + " Max", 0.01);
+                entries[8 + i * 3] = dashboard.getNumber(prefix + " Overruns");
+            }
+            lastOverrunEntry = dashboard.getString(name + " Last Overrun");
+            printedSections = current.length;
+        }
+
+        entries[0].set(loopTime.getMean());
+        entries[1].set(loopTime.getPercentile(0.99));
+        entries[2].set(loopTime.getMax());
+        entries[3].set(loopPeriod.getPercentile(0.99));
+        entries[4].set(overruns);
+        entries[5].set(getLastOverrunTime());
+        for(int i = 0; i < current.length; i++)
+        {
+            entries[6 + i * 3].set(current[i].time.getPercentile(0.99));
+            entries[7 + i * 3].set(current[i].time.getMax());
+            entries[8 + i * 3].set(current[i].overruns);
+        }
+        lastOverrunEntry.set(lastOverrun);
+    }
+
+    /**
+     * A named section of the loop and its times.
+     */
+    private static class Section
+    {
+        /**
+         * The name of the section
+         */
+        final String name;
+
+        /**
+         * The time the section took each time it ran
+         */
+        final LatencyHistogram time = new LatencyHistogram();
+
+        /**
+         * The RobotClock.nanoTime() the section was last started
+         */
+        long start;
+
+        /**
+         * The time the section took in the current loop in nanoseconds
+         */
+        long loopTotal;
+
+        /**
+         * The number of overruns blamed on the section
+         */
+        volatile long overruns;
+
+        /**
+         * Constructs a section with no times.
+         * @param name
+         *  The name of the section
+         */
+        Section(String name)
+        {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import edu.wpi.first.wpilibj.Solenoid;
+
+/**
+ * Output layer for the PCM channels used by LEDControllers. Controllers
+ * only record the state they want, and once each LEDScheduler tick the
+ * channels whose state changed since they were last written are written.
+ * Setting a channel to the state it already has sends nothing to the PCM,
+ * and a channel that switches on and off within one tick is not written.
+ *
+ * WPILib has no call that sets every channel of a PCM at once, so each
+ * changed channel is still its own Solenoid.set() call, one per changed
+ * channel per tick rather than one per tick. The calls of a tick are made
+ * back to back so they land in the same periodic PCM control frame.
+ *
+ * Channel states are set and flushed by the scheduler thread. In a
+ * Simulation no solenoids are made, the channels only keep their state so
+ * the LEDs can be checked with isOn().
+ *
+ */
+public class PCMOutput
+{
+    /**
+     * The number of channels on a PCM
+     */
+    public static final int CHANNELS = 8;
+
+    /**
+     * The output shared by all LED controllers
+     */
+    private static PCMOutput instance;
+
+    /**
+     * The solenoid of each channel, null if the channel is not used or is simulated
+     */
+    private final Solenoid[] solenoids;
+
+    /**
+     * The channels opened for output, one bit per channel
+     */
+    private int opened;
+
+    /**
+     * The state wanted for each channel, one bit per channel
+     */
+    private int wanted;
+
+    /**
+     * The state last written to each channel, one bit per channel
+     */
+    private volatile int written;
+
+    /**
+     * The number of writes sent to the PCM
+     */
+    private volatile long writes;
+
+    /**
+     * Constructs an output with no channels opened.
+     */
+    private PCMOutput()
+    {
+        solenoids = new Solenoid[CHANNELS];
+    }
+
+    /**
+     * Returns the output shared by all LED controllers.
+     * @return
+     *  The PCM output
+     */
+    public static synchronized PCMOutput getInstance()
+    {
+        if(instance == null)
+        {
+            instance = new PCMOutput();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Opens the given channel for output if it is not already open.
+     * @param channel
+     *  The PCM channel from 0 to 7
+     */
+    synchronized void open(int channel)
+    {
+        if(solenoids[channel] == null && !RobotClock.isSimulated())
+        {
+            solenoids[channel] = new Solenoid(channel);
+        }
+        opened |= 1 << channel;
+    }
+
+    /**
+     * Sets the state wanted for a channel, written on the next flush if it changed.
+     * @param channel
+     *  The PCM channel from 0 to 7
+     * @param on
+     *  True to turn the channel on, false to turn it off
+     */
+    void set(int channel, boolean on)
+    {
+        if(on)
+        {
+            wanted |= 1 << channel;
+        }
+        else
+        {
+            wanted &= ~(1 << channel);
+        }
+    }
+
+    /**
+     * Writes every channel whose wanted state is different from the state
+     * last written, with one Solenoid.set() for each changed channel.
+     */
+    void flush()
+    {
+        int changed = wanted ^ written;
+        while(changed != 0)
+        {
+            int channel = Integer.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+
+            if((opened & 1 << channel) != 0)
+            {
+                Solenoid solenoid = solenoids[channel];
+                if(solenoid != null)
+                {
+                    solenoid.set((wanted & 1 << channel) != 0);
+                }
+                writes = writes + 1;
+            }
+        }
+        written = wanted;
+    }
+
+    /**
+     * Returns the state last written to a channel.
+     * @param channel
+     *  The PCM channel from 0 to 7
+     * @return
+     *  True if the channel is on
+     */
+    public boolean isOn(int channel)
+    {
+        return (written & 1 << channel) != 0;
+    }
+
+    /**
+     * Returns the number of writes sent to the PCM, for checking how much
+     * CAN traffic the LEDs cause.
+     * @return
+     *  The number of writes
+     */
+    public long getWrites()
+    {
+        return writes;
+    }
+}
@@ -0,0 +1,271 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import edu.wpi.first.wpilibj.SPI;
+
+/**
+ * Class for the Pixy2 that requests blocks over the SPI instead of reading
+ * the stream the original pixy sends. Each request asks for only the
+ * signatures wanted and at most the frame capacity in blocks, so the pixy
+ * filters out everything else before it is sent over the SPI.
+ *
+ * The Pixy2 interface must be set to "SPI with SS" in PixyMon. Values are
+ * rotated 90 degrees the same way as PixyCam.
+ *
+ */
+public class Pixy2Cam extends PixyCam
+{
+    /**
+     * The x coordinate of the center of the Pixy2 image after rotating
+     */
+    public static final int CENTER_X = 104;
+
+    /**
+     * The y coordinate of the center of the Pixy2 image after rotating
+     */
+    public static final int CENTER_Y = 158;
+
+    /**
+     * Signature map requesting all seven signatures
+     */
+    public static final int ALL_SIGNATURES = 0xFF;
+
+    /*
+     * The two bytes starting a request, and a response with a checksum.
+     */
+    private static final int REQUEST_SYNC_LOW = 0xae;
+    private static final int REQUEST_SYNC_HIGH = 0xc1;
+    private static final int RESPONSE_SYNC_LOW = 0xaf;
+    private static final int RESPONSE_SYNC_HIGH = 0xc1;
+
+    /**
+     * The packet type requesting blocks
+     */
+    private static final int TYPE_GET_BLOCKS = 32;
+
+    /**
+     * The packet type of a blocks response
+     */
+    private static final int TYPE_BLOCKS = 33;
+
+    /**
+     * The number of bytes in a block: signature, x, y, width, height, angle, index, and age
+     */
+    private static final int BLOCK_SIZE = 14;
+
+    /**
+     * The most bytes read looking for the start of a response
+     */
+    private static final int SYNC_PROBES = 16;
+
+    /**
+     * The signatures to request, bit 0 for signature 1 through bit 6 for
+     * signature 7 and bit 7 for color codes
+     */
+    private volatile int signatureMap;
+
+    /**
+     * The most blocks to request each frame
+     */
+    private final int maxBlocks;
+
+    /**
+     * Reused buffer holding the request sent to the pixy
+     */
+    private final byte[] request = new byte[6];
+
+    /**
+     * Reused buffer for reading one byte while looking for a response
+     */
+    private final byte[] syncBuffer = new byte[1];
+
+    /**
+     * Reused buffer for the type, length, and checksum of a response
+     */
+    private final byte[] headerBuffer = new byte[4];
+
+    /**
+     * Reused buffer for the blocks of a response
+     */
+    private final byte[] payloadBuffer;
+
+    /**
+     * Constructs a Pixy2 connected to the SPI that requests all signatures
+     * and keeps the given number of blocks from each frame.
+     * @param port
+     *  The SPI Port the pixy is connected to ex. SPI.Port.kOnboardCS0
+     * @param maxBlocks
+     *  The most blocks to request each frame, up to 255
+     */
+    public Pixy2Cam(SPI.Port port, int maxBlocks)
+    {
+        this(new SPITransport(openConnection(port)), maxBlocks);
+    }
+
+    /**
+     * Constructs a Pixy2 connected to the SPI that requests all signatures
+     * and keeps up to PixyFrame.DEFAULT_CAPACITY blocks from each frame.
+     * @param port
+     *  The SPI Port the pixy is connected to ex. SPI.Port.kOnboardCS0
+     */
+    public Pixy2Cam(SPI.Port port)
+    {
+        this(port, PixyFrame.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a Pixy2 that reads from the given transport.
+     * @param connection
+     *  The transport the pixy's bytes are read from
+     * @param maxBlocks
+     *  The most blocks to request each frame, up to 255
+     */
+    public Pixy2Cam(PixyTransport connection, int maxBlocks)
+    {
+        super(connection, Math.min(maxBlocks, 255));
+        this.maxBlocks = Math.min(maxBlocks, 255);
+        signatureMap = ALL_SIGNATURES;
+        payloadBuffer = new byte[this.maxBlocks * BLOCK_SIZE];
+    }
+
+    /**
+     * Opens an SPI connection with the clock settings the Pixy2 uses.
+     * @param port
+     *  The SPI Port the pixy is connected to
+     * @return
+     *  The SPI connection
+     */
+    private static SPI openConnection(SPI.Port port)
+    {
+        SPI connection = new SPI(port);
+        connection.setMSBFirst();
+        connection.setClockRate(2000000);
+        connection.setClockActiveLow();
+        connection.setSampleDataOnTrailingEdge();
+        connection.setChipSelectActiveLow();
+
+        return connection;
+    }
+
+    /**
+     * Sets the signatures the pixy sends blocks for.
+     * @param signatures
+     *  The signature map, bit 0 for signature 1 through bit 6 for signature 7
+     *  and bit 7 for color codes
+     */
+    public void setSignatures(int signatures)
+    {
+        signatureMap = signatures & 0xFF;
+    }
+
+    /**
+     * Requests blocks from the pixy and reads the response. The pixy
+     * responds with an error instead of blocks when it has no new frame.
+     */
+    @Override
+    protected boolean readFrame(PixyFrame frame)
+    {
+        request[0] = (byte) REQUEST_SYNC_LOW;
+        request[1] = (byte) REQUEST_SYNC_HIGH;
+        request[2] = (byte) TYPE_GET_BLOCKS;
+        request[3] = 2;
+        request[4] = (byte) signatureMap;
+        request[5] = (byte) maxBlocks;
+        PixyTransport pixyConnection = getConnection();
+        pixyConnection.write(request, request.length);
+
+        if(!findResponse(pixyConnection))
+        {
+            return false;
+        }
+        long responseTime = RobotClock.nanoTime();
+
+        pixyConnection.read(headerBuffer, headerBuffer.length);
+        int type = headerBuffer[0] & 0xFF;
+        int length = headerBuffer[1] & 0xFF;
+        int checkSum = (headerBuffer[2] & 0xFF) | (headerBuffer[3] & 0xFF) << 8;
+        if(length > payloadBuffer.length)
+        {
+            return false;
+        }
+
+        //Read the payload even if it is not blocks so the next response starts clean
+        if(length > 0)
+        {
+            pixyConnection.read(payloadBuffer, length);
+        }
+        if(type != TYPE_BLOCKS)
+        {
+            return false;
+        }
+
+        int sum = 0;
+        for(int i = 0; i < length; i++)
+        {
+            sum += payloadBuffer[i] & 0xFF;
+        }
+        if((sum & 0xFFFF) != checkSum)
+        {
+            getMetrics().checksumFailed();
+            return false;
+        }
+
+        frame.clear();
+        frame.setTime(responseTime - getCaptureLatency());
+        for(int offset = 0; offset + BLOCK_SIZE <= length; offset += BLOCK_SIZE)
+        {
+            //Switch x with y and width with height since pixy is rotated 90
+            frame.addBlock(wordAt(payloadBuffer, offset),
+                wordAt(payloadBuffer, offset + 4),
+                wordAt(payloadBuffer, offset + 2),
+                wordAt(payloadBuffer, offset + 8),
+                wordAt(payloadBuffer, offset + 6));
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads one byte at a time looking for the two bytes starting a response.
+     * @param pixyConnection
+     *  The transport to read from
+     * @return
+     *  True if the start of a response was found
+     */
+    private boolean findResponse(PixyTransport pixyConnection)
+    {
+        int previous = 0;
+        for(int i = 0; i < SYNC_PROBES; i++)
+        {
+            pixyConnection.read(syncBuffer, 1);
+            int current = syncBuffer[0] & 0xFF;
+            if(previous == RESPONSE_SYNC_LOW && current == RESPONSE_SYNC_HIGH)
+            {
+                return true;
+            }
+            previous = current;
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the little endian word at the given offset of a buffer.
+     * @param bytes
+     *  The buffer holding the word
+     * @param offset
+     *  The index of the word's low byte
+     * @return
+     *  The unsigned 16 bit value of the word
+     */
+    private static int wordAt(byte[] bytes, int offset)
+    {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+}
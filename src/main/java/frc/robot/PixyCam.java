@@ -11,19 +11,53 @@ import edu.wpi.first.wpilibj.SPI;
 
 /**
  * Class for the PixyCam that reads data form the SPI and parses data of the 
- * object being tracked. 
+ * objects being tracked. The bytes can also come from any PixyTransport, 
+ * such as a ReplayTransport to run the parsing without a roboRIO.
  * 
- * This class only tracks one object at a time.
+ * The getters return the largest object in the last frame, every object
+ * in the frame is available through getSnapshot(). Values are published by
+ * the pixy thread with a sequence lock so readers always see one whole frame
+ * without ever blocking the pixy thread.
+ * 
+ * Instead of polling, code can wait for the next frame with awaitNextFrame()
+ * or subscribe to frames through getFramePublisher(). Recent frames are kept
+ * in getHistory() to look up where the target was at an earlier time.
  * 
  * @author JoelNeppel
  *
  */
 public class PixyCam implements Runnable
 {
+	/**
+	 * The word sent by pixy before each object block
+	 */
+	private static final int SYNC = 0xaa55;
+
+	/**
+	 * The number of bytes in a block after the sync word: checksum, 
+	 * signature, x, y, width, and height
+	 */
+	private static final int BLOCK_SIZE = 12;
+
+	/**
+	 * The number of bytes in a block including its sync word
+	 */
+	private static final int SYNC_BLOCK_SIZE = BLOCK_SIZE + 2;
+
+	/**
+	 * The time in nanoseconds after the last frame that the pixy is still tracking
+	 */
+	private static final long TRACKING_TIMEOUT = 100_000_000L;
+
+	/**
+	 * The most words read looking for the start of a frame each poll
+	 */
+	private static final int PROBES_PER_POLL = 8;
+
 	/**
 	 * The pixyCam connection
 	 */
-	private SPI pixyConnection;
+	private PixyTransport pixyConnection;
 		
 	/**
 	 * The sum of the signature, x, y, width, and height sent by Pixy
@@ -56,24 +90,386 @@ public class PixyCam implements Runnable
   	private int height;
 	
 	/**
-	 * The system time when new data was last processed  
+	 * The RobotClock.nanoTime() when new data was last processed  
 	 */
     private long timeGot;
+
+	/**
+	 * True once a frame with an object has been published, only used by the pixy thread
+	 */
+	private boolean objectSeen;
+
+	/**
+	 * Lock protecting the published values from torn reads
+	 */
+	private final SeqLock publishLock = new SeqLock();
+
+	/**
+	 * Monitor notified when a frame is published
+	 */
+	private final Object frameMonitor = new Object();
+
+	/**
+	 * The number of threads waiting in awaitNextFrame(), only changed while
+	 * holding the frame monitor
+	 */
+	private volatile int frameWaiters;
+
+	/**
+	 * The publisher delivering frames to subscribers
+	 */
+	private final PixyFramePublisher framePublisher;
+
+	/**
+	 * Reused buffer for sync word searches so no bytes are allocated while reading
+	 */
+	private final byte[] syncBuffer = new byte[2];
+
+	/**
+	 * Reused buffer holding the block read after a sync word
+	 */
+	private final byte[] blockBuffer = new byte[BLOCK_SIZE];
+
+	/**
+	 * Reused buffer for reading a sync word and block together within a frame
+	 */
+	private final byte[] frameBuffer = new byte[SYNC_BLOCK_SIZE];
+
+	/**
+	 * True when the start of the next frame has already been read and its
+	 * first block is waiting in the block buffer
+	 */
+	private boolean frameStartRead;
+
+	/**
+	 * The RobotClock.nanoTime() when the start of the current frame was read
+	 */
+	private long frameStartTime;
+
+	/**
+	 * The time in nanoseconds between the pixy capturing an image and the 
+	 * start of its frame being read
+	 */
+	private volatile long captureLatency;
+
+	/**
+	 * The largest object of recent frames
+	 */
+	private final PixyHistory history;
+
+	/**
+	 * The filter updated with the largest object of each frame, null if none
+	 */
+	private volatile PixyTargetFilter filter;
+
+	/**
+	 * The log every published frame is written to, null if none
+	 */
+	private volatile BinaryLog log;
+
+	/**
+	 * The key of this pixy in the log
+	 */
+	private volatile int logKey;
+
+	/**
+	 * Tracks when frames start so the pixy is only polled when one is expected
+	 */
+	private final FrameCadence cadence = new FrameCadence();
+
+	/**
+	 * Counters and latencies of the connection to the pixy
+	 */
+	private final PixyMetrics metrics = new PixyMetrics("Pixy");
+
+	/**
+	 * The frame being filled by the reader thread
+	 */
+	private final PixyFrame workingFrame;
+
+	/**
+	 * The last complete frame read, only changed while holding the publish lock
+	 */
+	private final PixyFrame latestFrame;
 		
 	/**
-	 * Constructs a pixyCam connected to the SPI with a buffer size of 100.
+	 * Constructs a pixyCam connected to the SPI with a buffer size of 100
+	 * that keeps the given number of blocks from each frame.
+	 * @param port
+	 * 	The SPI Port the pixy is connected to ex. SPI.Port.kOnboardCS0
+	 * @param maxBlocks
+	 * 	The maximum number of blocks kept from each frame
+	 */
+	public PixyCam(SPI.Port port, int maxBlocks)
+	{
+		this(new SPITransport(openConnection(port)), maxBlocks);
+	}
+
+	/**
+	 * Constructs a pixyCam that reads from the given transport.
+	 * @param connection
+	 * 	The transport the pixy's bytes are read from
+	 * @param maxBlocks
+	 * 	The maximum number of blocks kept from each frame
+	 */
+	public PixyCam(PixyTransport connection, int maxBlocks)
+	{
+		pixyConnection = connection;
+
+		workingFrame = new PixyFrame(maxBlocks);
+		latestFrame = new PixyFrame(maxBlocks);
+		framePublisher = new PixyFramePublisher(this);
+		history = new PixyHistory();
+	}
+
+	/**
+	 * Constructs a pixyCam connected to the SPI with a buffer size of 100
+	 * that keeps up to PixyFrame.DEFAULT_CAPACITY blocks from each frame.
 	 * @param port
 	 * 	The SPI Port the pixy is connected to ex. SPI.Port.kOnboardCS0
 	 */
 	public PixyCam(SPI.Port port)
 	{
-		pixyConnection = new SPI(port); 
-		pixyConnection.initAuto(100);
-		pixyConnection.setMSBFirst();
-		pixyConnection.setClockRate(1000000);
-		pixyConnection.setClockActiveHigh();
+		this(port, PixyFrame.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Copies the last complete frame with every object block read into the 
+	 * given frame. The copy is always one whole frame even if the pixy 
+	 * thread publishes a new frame at the same time.
+	 * @param frame
+	 * 	The frame to copy into, reuse it to avoid allocating each loop
+	 * @return
+	 * 	The given frame
+	 */
+	public PixyFrame getSnapshot(PixyFrame frame)
+	{
+		copySnapshot(frame);
+		return frame;
+	}
+
+	/**
+	 * Copies the last complete frame like getSnapshot() and returns the 
+	 * frame count of the frame copied, read together so they always match.
+	 * @param frame
+	 * 	The frame to copy into
+	 * @return
+	 * 	The frame count of the frame copied, as getFrameCount() returned it
+	 */
+	int copySnapshot(PixyFrame frame)
+	{
+		int seq;
+		do
+		{
+			seq = publishLock.readBegin();
+			frame.copyFrom(latestFrame);
+		}
+		while(publishLock.readRetry(seq));
+
+		return seq >>> 1;
+	}
+
+	/**
+	 * Returns the maximum number of blocks kept from each frame.
+	 * @return
+	 * 	The frame capacity
+	 */
+	public int getMaxBlocks()
+	{
+		return latestFrame.getCapacity();
+	}
+
+	/**
+	 * Waits until the pixy thread publishes a new frame.
+	 * @param timeout
+	 * 	The maximum time to wait in milliseconds
+	 * @return
+	 * 	True if a new frame was published, false if the time ran out
+	 * @throws InterruptedException
+	 * 	If the waiting thread is interrupted
+	 */
+	public boolean awaitNextFrame(long timeout) throws InterruptedException
+	{
+		int startCount = getFrameCount();
+		long deadline = RobotClock.nanoTime() + timeout * 1_000_000L;
+		synchronized(frameMonitor)
+		{
+			frameWaiters++;
+			try
+			{
+				while(getFrameCount() == startCount)
+				{
+					long remaining = deadline - RobotClock.nanoTime();
+					if(remaining <= 0)
+					{
+						return false;
+					}
+
+					frameMonitor.wait(remaining / 1_000_000L, (int) (remaining % 1_000_000L));
+				}
+
+				return true;
+			}
+			finally
+			{
+				frameWaiters--;
+			}
+		}
+	}
+
+	/**
+	 * Returns a publisher that delivers each new frame to subscribers as
+	 * soon as it is read. See PixyFramePublisher for how requests and frame
+	 * reuse work.
+	 * @return
+	 * 	The frame publisher
+	 */
+	public PixyFramePublisher getFramePublisher()
+	{
+		return framePublisher;
+	}
+
+	/**
+	 * Returns the history of the largest object in recent frames.
+	 * @return
+	 * 	The frame history
+	 */
+	public PixyHistory getHistory()
+	{
+		return history;
+	}
+
+	/**
+	 * Sets a filter to update with the largest object of each frame so the
+	 * target can be predicted between frames.
+	 * @param targetFilter
+	 * 	The filter to update, null to stop filtering
+	 */
+	public void setFilter(PixyTargetFilter targetFilter)
+	{
+		filter = targetFilter;
+	}
+
+	/**
+	 * Returns the filter updated with the largest object of each frame.
+	 * @return
+	 * 	The filter, null if none was set
+	 */
+	public PixyTargetFilter getFilter()
+	{
+		return filter;
+	}
+
+	/**
+	 * Sets a log to write every published frame to.
+	 * @param binaryLog
+	 * 	The log to write to, null to stop logging
+	 * @param name
+	 * 	The name of the pixy in the log
+	 */
+	public void setLog(BinaryLog binaryLog, String name)
+	{
+		if(binaryLog != null)
+		{
+			logKey = binaryLog.key(name);
+		}
+		log = binaryLog;
+	}
+
+	/**
+	 * Sets the time between the pixy capturing an image and the start of its
+	 * frame being read. Frame times are moved back by this amount so they
+	 * match when the image was captured. 
+	 * @param nanos
+	 * 	The capture latency in nanoseconds
+	 */
+	public void setCaptureLatency(long nanos)
+	{
+		captureLatency = nanos;
+	}
+
+	/**
+	 * Returns the time between the pixy capturing an image and the start of
+	 * its frame being read.
+	 * @return
+	 * 	The capture latency in nanoseconds
+	 */
+	protected long getCaptureLatency()
+	{
+		return captureLatency;
+	}
+
+	/**
+	 * Returns the transport the pixy's bytes are read from, for pixys using
+	 * a different protocol to read their frames.
+	 * @return
+	 * 	The pixy's transport
+	 */
+	protected PixyTransport getConnection()
+	{
+		return pixyConnection;
+	}
+
+	/**
+	 * Returns the counters and latencies of the connection to the pixy. 
+	 * Print them with a ValuePrinter to see them on the SmartDashboard.
+	 * @return
+	 * 	The pixy metrics
+	 */
+	public PixyMetrics getMetrics()
+	{
+		return metrics;
+	}
+
+	/**
+	 * Returns the measured time between frames sent by the pixy.
+	 * @return
+	 * 	The frame period in milliseconds
+	 */
+	public double getFramePeriod()
+	{
+		return cadence.getPeriod() / 1e6;
+	}
+
+	/**
+	 * Returns when poll() should be called next to catch the start of the
+	 * next frame. Only used by the thread polling the pixy.
+	 * @return
+	 * 	The RobotClock.nanoTime() to poll next
+	 */
+	public long getNextPollTime()
+	{
+		return cadence.getNextPollTime();
+	}
+
+	/**
+	 * Returns the number of frames published since the pixy was created.
+	 * @return
+	 * 	The number of frames
+	 */
+	public int getFrameCount()
+	{
+		return publishLock.getWriteCount();
 	}
 	
+	/**
+	 * Opens an SPI connection to the pixy with a buffer size of 100.
+	 * @param port
+	 * 	The SPI Port the pixy is connected to
+	 * @return
+	 * 	The SPI connection
+	 */
+	private static SPI openConnection(SPI.Port port)
+	{
+		SPI connection = new SPI(port); 
+		connection.initAuto(100);
+		connection.setMSBFirst();
+		connection.setClockRate(1000000);
+		connection.setClockActiveHigh();
+
+		return connection;
+	}
+
 	/**
 	 * Returns the center X coordinate of the object being tracked.
 	 * @return
@@ -81,7 +477,16 @@ public class PixyCam implements Runnable
 	 */
 	public int getX()
 	{
-		return x;
+		int value;
+		int seq;
+		do
+		{
+			seq = publishLock.readBegin();
+			value = x;
+		}
+		while(publishLock.readRetry(seq));
+
+		return value;
 	}
 	
 	/**
@@ -91,7 +496,16 @@ public class PixyCam implements Runnable
 	 */
 	public int getY()
 	{
-		return y;
+		int value;
+		int seq;
+		do
+		{
+			seq = publishLock.readBegin();
+			value = y;
+		}
+		while(publishLock.readRetry(seq));
+
+		return value;
 	}
 	
 	/**
@@ -101,7 +515,16 @@ public class PixyCam implements Runnable
 	 */
 	public int getWidth()
 	{
-		return width;
+		int value;
+		int seq;
+		do
+		{
+			seq = publishLock.readBegin();
+			value = width;
+		}
+		while(publishLock.readRetry(seq));
+
+		return value;
 	}
 	
 	/**
@@ -111,7 +534,16 @@ public class PixyCam implements Runnable
 	 */
 	public int getHeight()
 	{
-		return height;
+		int value;
+		int seq;
+		do
+		{
+			seq = publishLock.readBegin();
+			value = height;
+		}
+		while(publishLock.readRetry(seq));
+
+		return value;
 	}
 
 	/**
@@ -122,11 +554,23 @@ public class PixyCam implements Runnable
      */
     public int estimateAngle()
     {
+        int objectWidth;
+        int objectHeight;
+        int seq;
+        do
+        {
+            seq = publishLock.readBegin();
+            objectWidth = width;
+            objectHeight = height;
+        }
+        while(publishLock.readRetry(seq));
+
         if(isTracking())
         {
-            double angle = Math.tanh((double) (height / width));
+            //A thin line's box is as tall over as wide as the tangent of its angle
+            double angle = Math.atan2(objectHeight, objectWidth);
 
-            return (int) Math.toDegrees(angle);
+            return (int) Math.round(Math.toDegrees(angle));
         }
 
         return 0;
@@ -139,9 +583,18 @@ public class PixyCam implements Runnable
 	 */
 	public boolean checkData()
 	{
-		int sum = signature + x + y + width + height;
+		int sum;
+		int objectCheckSum;
+		int seq;
+		do
+		{
+			seq = publishLock.readBegin();
+			sum = signature + x + y + width + height;
+			objectCheckSum = checkSum;
+		}
+		while(publishLock.readRetry(seq));
 			
-		return sum == checkSum;
+		return sum == objectCheckSum;
     }
 	
 	/**
@@ -153,78 +606,257 @@ public class PixyCam implements Runnable
 	 */
     public boolean isTracking()
     {
-        return checkSum != 0 && checkData() && System.currentTimeMillis() - timeGot < 100;
+		int objectCheckSum;
+		long time;
+		int seq;
+		do
+		{
+			seq = publishLock.readBegin();
+			objectCheckSum = checkSum;
+			time = timeGot;
+		}
+		while(publishLock.readRetry(seq));
+
+        return objectCheckSum != 0 && checkData() && RobotClock.nanoTime() - time < TRACKING_TIMEOUT;
 	}
 	
 	/**
-	 * Converts two bytes into an int.
+	 * Reads the big endian word at the given offset of a buffer.
 	 * @param bytes
-	 * 	The bytes being converted into an int
+	 * 	The buffer holding the word
+	 * @param offset
+	 * 	The index of the word's high byte
 	 * @return
-	 * 	The int created from the bytes
+	 * 	The unsigned 16 bit value of the word
 	 */
-	private int bytesToInt(byte[] bytes)
+	private static int wordAt(byte[] bytes, int offset)
 	{
-		return bytes[0] << 8 | bytes[1];
+		return (bytes[offset] & 0xFF) << 8 | (bytes[offset + 1] & 0xFF);
 	}
 	
-	@Override
-	public void run() 
-	{	
-		try
+	/**
+	 * Decodes the block at the given offset and adds it to the frame if its
+	 * checksum matches.
+	 * @param frame
+	 * 	The frame to add the block to
+	 * @param bytes
+	 * 	The buffer holding the block
+	 * @param offset
+	 * 	The index of the block's checksum in the buffer
+	 */
+	private void addBlock(PixyFrame frame, byte[] bytes, int offset)
+	{
+		int blockCheckSum = wordAt(bytes, offset);
+		int blockSignature = wordAt(bytes, offset + 2);
+		
+		//Switch x with y and width with height since pixy is rotated 90
+		int blockY = wordAt(bytes, offset + 4);
+		int blockX = wordAt(bytes, offset + 6);
+		int blockHeight = wordAt(bytes, offset + 8);
+		int blockWidth = wordAt(bytes, offset + 10);
+
+		int sum = (blockSignature + blockX + blockY + blockWidth + blockHeight) & 0xFFFF;
+		if(sum == blockCheckSum)
+		{
+			frame.addBlock(blockSignature, blockX, blockY, blockWidth, blockHeight);
+		}
+		else
+		{
+			metrics.checksumFailed();
+		}
+	}
+
+	/**
+	 * Looks for two sync words in a row marking the start of a frame and
+	 * reads the first block of the frame into the block buffer.
+	 * @param maxProbes
+	 * 	The most words to read while looking
+	 * @return
+	 * 	True if the start of a frame was found
+	 */
+	private boolean findFrameStart(int maxProbes)
+	{
+		for(int i = 0; i < maxProbes; i++)
 		{
-			while(!Thread.interrupted())
+			//Look for start bytes
+			pixyConnection.read(syncBuffer, 2);
+			if(wordAt(syncBuffer, 0) == SYNC)
 			{
-				byte[] bytes = new byte[2];
+				//Read the rest of the block in one transaction
+				pixyConnection.read(blockBuffer, BLOCK_SIZE);
 
-				//Look for start bytes
-				boolean startFound = false;
-				while(!startFound)
+				//A second sync word means a new frame, so the block is shifted by one word
+				if(wordAt(blockBuffer, 0) == SYNC)
 				{
-					Thread.sleep(1);
-
-					pixyConnection.read(true, bytes, 2);
-					
-					if(((bytes[0] & 0xFF) << 8 | (bytes[1] & 0xFF)) == 0xaa55)
-					{
-						startFound = true;
-					}
+					System.arraycopy(blockBuffer, 2, blockBuffer, 0, BLOCK_SIZE - 2);
+					pixyConnection.read(syncBuffer, 2);
+					blockBuffer[BLOCK_SIZE - 2] = syncBuffer[0];
+					blockBuffer[BLOCK_SIZE - 1] = syncBuffer[1];
+					frameStartTime = RobotClock.nanoTime();
+					return true;
 				}
+				//Otherwise the block was in the middle of a frame, so keep looking
+				metrics.syncLost(RobotClock.nanoTime());
+			}
+		}
 
-				pixyConnection.read(true, bytes, 2);
-				//Check if next bytes are start bytes meaning a new frame
-				if(((bytes[0] & 0xFF) << 8 | (bytes[1] & 0xFF)) == 0xaa55)
+		return false;
+	}
+
+	/**
+	 * Reads every block of the frame whose start was already found into the
+	 * given frame. Each block after the first is read with its sync word in 
+	 * one transaction. The frame is stamped with the time its start was read 
+	 * less the capture latency.
+	 * @param frame
+	 * 	The frame to fill
+	 */
+	private void readBlocks(PixyFrame frame)
+	{
+		frame.clear();
+		frameStartRead = false;
+		frame.setTime(frameStartTime - captureLatency);
+		addBlock(frame, blockBuffer, 0);
+
+		while(true)
+		{
+			pixyConnection.read(frameBuffer, SYNC_BLOCK_SIZE);
+
+			//Anything other than a sync word is the end of the frame
+			int word = wordAt(frameBuffer, 0);
+			if(word != SYNC)
+			{
+				//Only zeros are sent between frames, anything else means sync was lost
+				if(word != 0)
 				{
-					pixyConnection.read(true, bytes, 2);
+					metrics.syncLost(RobotClock.nanoTime());
 				}
-				
-				//Set values from bytes received
-				checkSum = bytesToInt(bytes);
-				
-				pixyConnection.read(true, bytes, 2);
-				signature = bytesToInt(bytes);
-				
-				//Switch x with y and width with height since pixy is rotated 90
-				pixyConnection.read(true, bytes, 2);
-				y = bytesToInt(bytes);
-				
-				pixyConnection.read(true, bytes, 2);
-				x = bytesToInt(bytes);
-				
-				pixyConnection.read(true, bytes, 2);
-				height = bytesToInt(bytes);
-
-				pixyConnection.read(true, bytes, 2);
-				width = bytesToInt(bytes);
-				
-				timeGot = System.currentTimeMillis();
-
-				Thread.sleep(1);
+				return;
 			}
+
+			//Two sync words are the start of the next frame, save its first block for the next read
+			if(wordAt(frameBuffer, 2) == SYNC)
+			{
+				System.arraycopy(frameBuffer, 4, blockBuffer, 0, BLOCK_SIZE - 2);
+				pixyConnection.read(syncBuffer, 2);
+				blockBuffer[BLOCK_SIZE - 2] = syncBuffer[0];
+				blockBuffer[BLOCK_SIZE - 1] = syncBuffer[1];
+				frameStartTime = RobotClock.nanoTime();
+				frameStartRead = true;
+				return;
+			}
+
+			addBlock(frame, frameBuffer, 2);
 		}
-		catch(InterruptedException e)
+	}
+
+	/**
+	 * Reads the next frame if one is ready without waiting. Pixys using a
+	 * different protocol override this to read their frames.
+	 * @param frame
+	 * 	The frame to fill and stamp with the time it was captured
+	 * @return
+	 * 	True if the frame was filled, false if no frame has started yet
+	 */
+	protected boolean readFrame(PixyFrame frame)
+	{
+		if(!frameStartRead && !findFrameStart(PROBES_PER_POLL))
 		{
-			//Do nothing - let the thread end
-		}			
+			return false;
+		}
+
+		readBlocks(frame);
+		return true;
+	}
+
+	/**
+	 * Reads and publishes a frame if one is ready without waiting. This is 
+	 * called by run() or by a PixyScheduler, it must not be called by more 
+	 * than one thread. Use getNextPollTime() to know when to call it again.
+	 * @return
+	 * 	True if a frame was published, false if no frame has started yet
+	 */
+	public boolean poll()
+	{
+		if(!readFrame(workingFrame))
+		{
+			long now = RobotClock.nanoTime();
+			cadence.frameMissed(now);
+			//Nothing can go stale before the first object is seen
+			if(objectSeen)
+			{
+				metrics.frameMissed(now - timeGot - captureLatency, TRACKING_TIMEOUT);
+			}
+			return false;
+		}
+
+		long frameStart = workingFrame.getTime() + captureLatency;
+		cadence.frameRead(frameStart, RobotClock.nanoTime());
+		publish(workingFrame);
+		metrics.framePublished(frameStart, RobotClock.nanoTime());
+		return true;
+	}
+	
+	/**
+	 * Publishes the frame and the values of its largest object to readers.
+	 * @param frame
+	 * 	The frame that was just read
+	 */
+	private void publish(PixyFrame frame)
+	{
+		publishLock.beginWrite();
+		latestFrame.copyFrom(frame);
+
+		//Set values from the largest object
+		int largest = frame.largestBlock();
+		if(largest != -1)
+		{
+			signature = frame.getSignature(largest);
+			x = frame.getX(largest);
+			y = frame.getY(largest);
+			width = frame.getWidth(largest);
+			height = frame.getHeight(largest);
+			checkSum = signature + x + y + width + height;
+			
+			timeGot = frame.getTime();
+			objectSeen = true;
+		}
+		publishLock.endWrite();
+		history.add(frame);
+
+		BinaryLog frameLog = log;
+		if(frameLog != null)
+		{
+			frameLog.logFrame(logKey, frame);
+		}
+
+		PixyTargetFilter targetFilter = filter;
+		if(targetFilter != null && largest != -1)
+		{
+			targetFilter.update(frame.getTime(), frame.getX(largest), frame.getY(largest), 
+				frame.getWidth(largest), frame.getHeight(largest));
+		}
+
+		//Only lock the monitor when someone is waiting
+		if(frameWaiters > 0)
+		{
+			synchronized(frameMonitor)
+			{
+				frameMonitor.notifyAll();
+			}
+		}
+		framePublisher.frameReady();
+	}
+	
+	@Override
+	public void run() 
+	{	
+		while(!Thread.interrupted())
+		{
+			poll();
+
+			//Sleep until the next frame is expected, interrupting ends the wait and the thread
+			Util.sleepUntil(getNextPollTime());
+		}
 	}
 }
\ No newline at end of file
@@ -24,10 +24,20 @@ public class PixyController extends PixyCam
     private LEDController leds;
 
     /**
-     * The thread for the pixy cam
+     * The thread for the pixy cam, only used without a scheduler
      */
     private Thread pixyThread;
 
+    /**
+     * The scheduler reading the pixy, null if the pixy has its own thread
+     */
+    private PixyScheduler scheduler;
+
+    /**
+     * The time between frames in milliseconds when read by the scheduler
+     */
+    private int period;
+
     /**
      * Makes pixy cam controller with LEDs.
      * @param port
@@ -42,13 +52,37 @@ public class PixyController extends PixyCam
         pixyThread = new Thread(this);
     }
 
+    /**
+     * Makes pixy cam controller with LEDs that is read by the given scheduler
+     * instead of its own thread.
+     * @param port
+	 * 	The SPI Port the pixy is connected to
+     * @param ledChannel
+     *  The PCM channel the LEDs are plugged into
+     * @param scheduler
+     *  The scheduler to read the pixy with
+     * @param period
+     *  The time between frames in milliseconds, 20 for every frame of a pixy
+     */
+    public PixyController(SPI.Port port, int ledChannel, PixyScheduler scheduler, int period)
+    {
+        this(port, ledChannel);
+        this.scheduler = scheduler;
+        this.period = period;
+    }
+
     /**
      * Starts tracking objects using the pixy cam by starting
-     * the pixy thread and turning on the LEDs.
+     * the pixy thread, or adding it to the scheduler, and turning on the LEDs.
      */
     public void startTracking()
     {
-        if(!pixyThread.isAlive())
+        if(scheduler != null)
+        {
+            scheduler.add(this, period);
+            leds.setMode(LEDController.Mode.ON);
+        }
+        else if(!pixyThread.isAlive())
         {
             pixyThread = new Thread(this);
             pixyThread.start();
@@ -58,11 +92,19 @@ public class PixyController extends PixyCam
 
     /**
      * Stops tracking objects to save system resources and energy
-     * by stopping the pixy thread and turning off the LEDs.
+     * by stopping the pixy thread, or removing it from the scheduler, 
+     * and turning off the LEDs.
      */
     public void stopTracking()
     {
-        pixyThread.interrupt();
+        if(scheduler != null)
+        {
+            scheduler.remove(this);
+        }
+        else
+        {
+            pixyThread.interrupt();
+        }
         leds.setMode(LEDController.Mode.OFF);
     }
 }
\ No newline at end of file
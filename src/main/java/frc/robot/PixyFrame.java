@@ -0,0 +1,389 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+/**
+ * Holds every object block of one pixy frame in parallel arrays so frames
+ * can be read over and over without creating an object for each block.
+ * Blocks are indexed from 0 to getBlockCount() - 1.
+ *
+ * The values are already rotated 90 degrees the same way as PixyCam.
+ *
+ */
+public class PixyFrame
+{
+    /**
+     * The number of blocks a frame holds when no capacity is given
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The x coordinate of the center of the image
+     */
+    public static final int CENTER_X = 100;
+
+    /**
+     * The y coordinate of the center of the image
+     */
+    public static final int CENTER_Y = 160;
+
+    /**
+     * The signature of each block
+     */
+    private final int[] signature;
+
+    /**
+     * The x coordinate of each block's center
+     */
+    private final int[] x;
+
+    /**
+     * The y coordinate of each block's center
+     */
+    private final int[] y;
+
+    /**
+     * The width of each block
+     */
+    private final int[] width;
+
+    /**
+     * The height of each block
+     */
+    private final int[] height;
+
+    /**
+     * The number of blocks in the frame
+     */
+    private int blockCount;
+
+    /**
+     * The RobotClock.nanoTime() when the frame was read
+     */
+    private long time;
+
+    /**
+     * Constructs an empty frame that can hold the given number of blocks.
+     * @param capacity
+     *  The maximum number of blocks kept from a frame
+     */
+    public PixyFrame(int capacity)
+    {
+        signature = new int[capacity];
+        x = new int[capacity];
+        y = new int[capacity];
+        width = new int[capacity];
+        height = new int[capacity];
+    }
+
+    /**
+     * Constructs an empty frame that can hold the default number of blocks.
+     */
+    public PixyFrame()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Returns the maximum number of blocks this frame can hold.
+     * @return
+     *  The capacity of the frame
+     */
+    public int getCapacity()
+    {
+        return signature.length;
+    }
+
+    /**
+     * Returns the number of blocks in the frame.
+     * @return
+     *  The number of blocks
+     */
+    public int getBlockCount()
+    {
+        return blockCount;
+    }
+
+    /**
+     * Returns the time the frame was read.
+     * @return
+     *  The RobotClock.nanoTime() when the frame was read
+     */
+    public long getTime()
+    {
+        return time;
+    }
+
+    /**
+     * Sets the time the frame was read.
+     * @param nanoTime
+     *  The RobotClock.nanoTime() when the frame was read
+     */
+    public void setTime(long nanoTime)
+    {
+        time = nanoTime;
+    }
+
+    /**
+     * Returns the signature of the given block.
+     * @param block
+     *  The index of the block
+     * @return
+     *  The signature of the block
+     */
+    public int getSignature(int block)
+    {
+        return signature[block];
+    }
+
+    /**
+     * Returns the center X coordinate of the given block.
+     * @param block
+     *  The index of the block
+     * @return
+     *  The center X value
+     */
+    public int getX(int block)
+    {
+        return x[block];
+    }
+
+    /**
+     * Returns the center Y coordinate of the given block.
+     * @param block
+     *  The index of the block
+     * @return
+     *  The center Y value
+     */
+    public int getY(int block)
+    {
+        return y[block];
+    }
+
+    /**
+     * Returns the width of the given block in pixels.
+     * @param block
+     *  The index of the block
+     * @return
+     *  The width of the block
+     */
+    public int getWidth(int block)
+    {
+        return width[block];
+    }
+
+    /**
+     * Returns the height of the given block in pixels.
+     * @param block
+     *  The index of the block
+     * @return
+     *  The height of the block
+     */
+    public int getHeight(int block)
+    {
+        return height[block];
+    }
+
+    /**
+     * Returns the area of the given block in pixels.
+     * @param block
+     *  The index of the block
+     * @return
+     *  The width times the height of the block
+     */
+    public int getArea(int block)
+    {
+        return width[block] * height[block];
+    }
+
+    /**
+     * Returns the index of the block with the largest area.
+     * @return
+     *  The index of the largest block, -1 if the frame is empty
+     */
+    public int largestBlock()
+    {
+        int largest = -1;
+        int largestArea = -1;
+        for(int i = 0; i < blockCount; i++)
+        {
+            int area = getArea(i);
+            if(area > largestArea)
+            {
+                largest = i;
+                largestArea = area;
+            }
+        }
+
+        return largest;
+    }
+
+    /**
+     * Returns the index of the block with the largest area and the given signature.
+     * @param sig
+     *  The signature to look for
+     * @return
+     *  The index of the largest matching block, -1 if there is none
+     */
+    public int largestBlock(int sig)
+    {
+        int largest = -1;
+        int largestArea = -1;
+        for(int i = 0; i < blockCount; i++)
+        {
+            int area = getArea(i);
+            if(signature[i] == sig && area > largestArea)
+            {
+                largest = i;
+                largestArea = area;
+            }
+        }
+
+        return largest;
+    }
+
+    /**
+     * Returns the index of the next block with the given signature so all
+     * blocks of a signature can be looped through without allocating a list.
+     * @param sig
+     *  The signature to look for
+     * @param start
+     *  The index to start looking from, 0 for the first match
+     * @return
+     *  The index of the next matching block, -1 if there are no more
+     */
+    public int nextWithSignature(int sig, int start)
+    {
+        for(int i = Math.max(0, start); i < blockCount; i++)
+        {
+            if(signature[i] == sig)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the number of blocks with the given signature.
+     * @param sig
+     *  The signature to count
+     * @return
+     *  The number of matching blocks
+     */
+    public int countSignature(int sig)
+    {
+        int count = 0;
+        for(int i = 0; i < blockCount; i++)
+        {
+            if(signature[i] == sig)
+            {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the index of the block whose center is closest to the given point.
+     * @param centerX
+     *  The x coordinate to measure from
+     * @param centerY
+     *  The y coordinate to measure from
+     * @return
+     *  The index of the nearest block, -1 if the frame is empty
+     */
+    public int nearestTo(int centerX, int centerY)
+    {
+        int nearest = -1;
+        int nearestDistance = Integer.MAX_VALUE;
+        for(int i = 0; i < blockCount; i++)
+        {
+            int dx = x[i] - centerX;
+            int dy = y[i] - centerY;
+            int distance = dx * dx + dy * dy;
+            if(distance < nearestDistance)
+            {
+                nearest = i;
+                nearestDistance = distance;
+            }
+        }
+
+        return nearest;
+    }
+
+    /**
+     * Returns the index of the block whose center is closest to the center of the image.
+     * @return
+     *  The index of the nearest block, -1 if the frame is empty
+     */
+    public int nearestToCenter()
+    {
+        return nearestTo(CENTER_X, CENTER_Y);
+    }
+
+    /**
+     * Adds a block to the end of the frame.
+     * @param sig
+     *  The signature of the block
+     * @param blockX
+     *  The center X of the block
+     * @param blockY
+     *  The center Y of the block
+     * @param blockWidth
+     *  The width of the block
+     * @param blockHeight
+     *  The height of the block
+     * @return
+     *  True if the block was added, false if the frame is full
+     */
+    public boolean addBlock(int sig, int blockX, int blockY, int blockWidth, int blockHeight)
+    {
+        if(blockCount == signature.length)
+        {
+            return false;
+        }
+
+        signature[blockCount] = sig;
+        x[blockCount] = blockX;
+        y[blockCount] = blockY;
+        width[blockCount] = blockWidth;
+        height[blockCount] = blockHeight;
+        blockCount++;
+
+        return true;
+    }
+
+    /**
+     * Removes all blocks from the frame.
+     */
+    public void clear()
+    {
+        blockCount = 0;
+    }
+
+    /**
+     * Copies the blocks of the given frame into this frame, dropping any
+     * blocks past this frame's capacity.
+     * @param other
+     *  The frame to copy
+     */
+    public void copyFrom(PixyFrame other)
+    {
+        int count = Math.min(other.blockCount, signature.length);
+        System.arraycopy(other.signature, 0, signature, 0, count);
+        System.arraycopy(other.x, 0, x, 0, count);
+        System.arraycopy(other.y, 0, y, 0, count);
+        System.arraycopy(other.width, 0, width, 0, count);
+        System.arraycopy(other.height, 0, height, 0, count);
+        blockCount = count;
+        time = other.time;
+    }
+}
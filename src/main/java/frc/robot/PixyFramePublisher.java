@@ -0,0 +1,292 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the frames of a PixyCam to subscribers as they arrive.
+ *
+ * Each subscriber only receives frames it has requested. Frames that arrive
+ * while a subscriber has no outstanding requests are dropped except for the
+ * newest one, which is delivered on the next request, so a slow subscriber
+ * always gets the latest frame instead of a growing backlog.
+ *
+ * Each subscription reuses one frame for every onNext() call, so nothing is
+ * allocated per frame. Subscribers must copy the frame if they keep it after
+ * onNext() returns.
+ *
+ */
+public class PixyFramePublisher implements Flow.Publisher<PixyFrame>
+{
+    /**
+     * The pixy the frames come from
+     */
+    private final PixyCam pixy;
+
+    /**
+     * The active subscriptions, replaced instead of changed so the pixy
+     * thread can loop through it without locking
+     */
+    private volatile Subscription[] subscriptions;
+
+    /**
+     * Constructs a publisher for the frames of the given pixy.
+     * @param pixy
+     *  The pixy the frames come from
+     */
+    PixyFramePublisher(PixyCam pixy)
+    {
+        this.pixy = pixy;
+        subscriptions = new Subscription[0];
+    }
+
+    /**
+     * Subscribes to frames delivered by the common fork join pool. In a
+     * Simulation frames are delivered directly instead, so they arrive in
+     * the same order every run.
+     * @param subscriber
+     *  The subscriber to deliver frames to
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super PixyFrame> subscriber)
+    {
+        subscribe(subscriber, RobotClock.isSimulated() ? Runnable::run : ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Subscribes to frames delivered by the given executor. Use Runnable::run
+     * to deliver frames directly on the pixy thread for the lowest latency,
+     * as long as onNext() is quick.
+     * @param subscriber
+     *  The subscriber to deliver frames to
+     * @param executor
+     *  The executor that calls the subscriber
+     */
+    public void subscribe(Flow.Subscriber<? super PixyFrame> subscriber, Executor executor)
+    {
+        //Added first so a request made in onSubscribe() sees frames published right after
+        Subscription subscription = new Subscription(subscriber, executor);
+        add(subscription);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * Called by the pixy thread after each frame is published.
+     */
+    void frameReady()
+    {
+        Subscription[] current = subscriptions;
+        for(int i = 0; i < current.length; i++)
+        {
+            current[i].signal();
+        }
+    }
+
+    /**
+     * Adds a subscription to the active subscriptions.
+     * @param subscription
+     *  The subscription to add
+     */
+    private synchronized void add(Subscription subscription)
+    {
+        Subscription[] current = subscriptions;
+        Subscription[] updated = new Subscription[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = subscription;
+        subscriptions = updated;
+    }
+
+    /**
+     * Removes a subscription from the active subscriptions.
+     * @param subscription
+     *  The subscription to remove
+     */
+    private synchronized void remove(Subscription subscription)
+    {
+        Subscription[] current = subscriptions;
+        for(int i = 0; i < current.length; i++)
+        {
+            if(current[i] == subscription)
+            {
+                Subscription[] updated = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscriptions = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * A single subscriber's requests and frame. Deliveries are run on the
+     * executor one at a time.
+     */
+    private class Subscription implements Flow.Subscription, Runnable
+    {
+        /**
+         * The subscriber frames are delivered to
+         */
+        private final Flow.Subscriber<? super PixyFrame> subscriber;
+
+        /**
+         * The executor that calls the subscriber
+         */
+        private final Executor executor;
+
+        /**
+         * The frame reused for every delivery
+         */
+        private final PixyFrame frame;
+
+        /**
+         * The number of frames requested and not yet delivered
+         */
+        private final AtomicLong demand;
+
+        /**
+         * The number of signals since delivery last ran, delivery is only
+         * submitted to the executor when this goes up from 0
+         */
+        private final AtomicInteger signals;
+
+        /**
+         * The pixy frame count of the last frame delivered
+         */
+        private int lastDelivered;
+
+        /**
+         * True once the subscription is cancelled
+         */
+        private volatile boolean cancelled;
+
+        /**
+         * An error to send the subscriber on the executor, null if there is none
+         */
+        private volatile Throwable error;
+
+        /**
+         * Constructs a subscription that starts after the current frame.
+         * @param subscriber
+         *  The subscriber frames are delivered to
+         * @param executor
+         *  The executor that calls the subscriber
+         */
+        private Subscription(Flow.Subscriber<? super PixyFrame> subscriber, Executor executor)
+        {
+            this.subscriber = subscriber;
+            this.executor = executor;
+            frame = new PixyFrame(pixy.getMaxBlocks());
+            demand = new AtomicLong();
+            signals = new AtomicInteger();
+            lastDelivered = pixy.getFrameCount();
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if(n <= 0)
+            {
+                //Signals to the subscriber must come from the executor one at a time
+                error = new IllegalArgumentException("Requested frames must be positive: " + n);
+                signal();
+                return;
+            }
+
+            long current;
+            long updated;
+            do
+            {
+                current = demand.get();
+                updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+            }
+            while(!demand.compareAndSet(current, updated));
+
+            signal();
+        }
+
+        @Override
+        public void cancel()
+        {
+            cancelled = true;
+            remove(this);
+        }
+
+        /**
+         * Schedules a delivery unless one is already scheduled.
+         */
+        private void signal()
+        {
+            if(!cancelled && signals.getAndIncrement() == 0)
+            {
+                executor.execute(this);
+            }
+        }
+
+        /**
+         * Delivers the newest frame if one was requested and it has not been
+         * delivered, or the error if a bad request was made.
+         */
+        @Override
+        public void run()
+        {
+            int missed = signals.get();
+            while(true)
+            {
+                if(cancelled)
+                {
+                    return;
+                }
+
+                Throwable failure = error;
+                if(failure != null)
+                {
+                    cancel();
+                    subscriber.onError(failure);
+                    return;
+                }
+
+                //The count is checked again from the copy in case a frame was published in between
+                if(pixy.getFrameCount() != lastDelivered && demand.get() > 0)
+                {
+                    int frameCount = pixy.copySnapshot(frame);
+                    if(frameCount != lastDelivered)
+                    {
+                        lastDelivered = frameCount;
+                        if(demand.get() != Long.MAX_VALUE)
+                        {
+                            demand.decrementAndGet();
+                        }
+
+                        try
+                        {
+                            subscriber.onNext(frame);
+                        }
+                        catch(RuntimeException e)
+                        {
+                            //A subscriber that throws is broken, so stop delivering to it
+                            cancel();
+                            subscriber.onError(e);
+                            return;
+                        }
+                    }
+                }
+
+                missed = signals.addAndGet(-missed);
+                if(missed == 0)
+                {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combines the largest object seen by two pixys mounted side by side into
+ * one observation. Every pixy stamps its frames with RobotClock.nanoTime() moved
+ * back by its capture latency, so both are on the same clock. When either
+ * pixy publishes a frame, the other pixy's history is looked up at that
+ * frame's time, interpolating between its frames, and the pair is fused if
+ * the other pixy had a frame within the tolerance.
+ *
+ * From the two bearings and where the pixys are mounted, the target is
+ * found where their lines of sight cross, giving one bearing and distance
+ * from the center of the robot.
+ *
+ * Frames are fused on the pixy threads as they are published. Any thread
+ * can read the latest observation, reads are never torn and never block
+ * the pixy threads. If a pixy's frames end with an error, the error is
+ * written to the current BinaryLog and start() subscribes to it again.
+ *
+ */
+public class PixyFusion
+{
+    /**
+     * The pixys fused, left then right
+     */
+    private final PixyCam[] pixys;
+
+    /**
+     * The geometry of each pixy
+     */
+    private final PixyGeometry[] geometry;
+
+    /**
+     * How far each pixy is mounted to the right of the center of the robot
+     */
+    private final double[] offset;
+
+    /**
+     * The most time in nanoseconds between frames of the two pixys for them to be fused
+     */
+    private final long tolerance;
+
+    /**
+     * The name errors are logged under in the BinaryLog
+     */
+    public static final String ERROR_NAME = "Pixy Fusion Error";
+
+    /**
+     * The RobotClock.nanoTime() of the last frame of each pixy
+     */
+    private final long[] lastFrameTime;
+
+    /**
+     * True for each pixy once it has had a frame
+     */
+    private final boolean[] hasFrame;
+
+    /**
+     * The subscription to each pixy's frames, null until started
+     */
+    private final Flow.Subscription[] subscriptions;
+
+    /**
+     * Reused sample for looking up the other pixy's history
+     */
+    private final PixyHistory.Sample other;
+
+    /**
+     * Guards the observation so readers never see half of one
+     */
+    private final SeqLock lock;
+
+    /*
+     * The latest observation.
+     */
+    private long time;
+    private double leftBearing;
+    private double rightBearing;
+    private double bearing;
+    private double distance;
+
+    /**
+     * The number of observations made
+     */
+    private volatile long observations;
+
+    /**
+     * Constructs a fusion of two pixys. Call start() to begin fusing frames.
+     * @param left
+     *  The pixy on the left
+     * @param leftGeometry
+     *  The geometry of the left pixy
+     * @param leftOffset
+     *  How far the left pixy is mounted to the right of the center of the
+     *  robot, negative if it is on the left
+     * @param right
+     *  The pixy on the right
+     * @param rightGeometry
+     *  The geometry of the right pixy
+     * @param rightOffset
+     *  How far the right pixy is mounted to the right of the center of the robot
+     * @param toleranceMillis
+     *  The most time in milliseconds between frames of the two pixys for them to be fused
+     */
+    public PixyFusion(PixyCam left, PixyGeometry leftGeometry, double leftOffset,
+        PixyCam right, PixyGeometry rightGeometry, double rightOffset, int toleranceMillis)
+    {
+        pixys = new PixyCam[] {left, right};
+        geometry = new PixyGeometry[] {leftGeometry, rightGeometry};
+        offset = new double[] {leftOffset, rightOffset};
+        tolerance = TimeUnit.MILLISECONDS.toNanos(toleranceMillis);
+        lastFrameTime = new long[2];
+        hasFrame = new boolean[2];
+        subscriptions = new Flow.Subscription[2];
+        other = new PixyHistory.Sample();
+        lock = new SeqLock();
+        bearing = Double.NaN;
+        distance = Double.NaN;
+    }
+
+    /**
+     * Subscribes to both pixys' frames so every new frame is fused.
+     */
+    public synchronized void start()
+    {
+        for(int side = 0; side < 2; side++)
+        {
+            if(subscriptions[side] == null)
+            {
+                pixys[side].getFramePublisher().subscribe(new SideSubscriber(side), Runnable::run);
+            }
+        }
+    }
+
+    /**
+     * Stops fusing frames.
+     */
+    public synchronized void stop()
+    {
+        for(int side = 0; side < 2; side++)
+        {
+            if(subscriptions[side] != null)
+            {
+                subscriptions[side].cancel();
+                subscriptions[side] = null;
+            }
+        }
+    }
+
+    /**
+     * Fuses a new frame from one pixy with the other pixy's history.
+     * @param side
+     *  0 for the left pixy, 1 for the right
+     * @param frame
+     *  The new frame
+     */
+    private synchronized void fuse(int side, PixyFrame frame)
+    {
+        long frameTime = frame.getTime();
+        lastFrameTime[side] = frameTime;
+        hasFrame[side] = true;
+
+        int largest = frame.largestBlock();
+        int otherSide = 1 - side;
+        //The other pixy needs a frame near this one, frames after it are interpolated between
+        if(largest == -1 || !hasFrame[otherSide]
+            || frameTime - lastFrameTime[otherSide] > tolerance
+            || !pixys[otherSide].getHistory().getAt(frameTime, other))
+        {
+            return;
+        }
+
+        double slope = geometry[side].getBearingSlope(frame.getX(largest));
+        double otherSlope = geometry[otherSide].getBearingSlope(other.getX());
+        double leftSlope = side == 0 ? slope : otherSlope;
+        double rightSlope = side == 0 ? otherSlope : slope;
+
+        //Each line of sight is sideways = offset + slope * ahead, they cross where the sideways values match
+        double ahead = (offset[1] - offset[0]) / (leftSlope - rightSlope);
+        double sideways = offset[0] + leftSlope * ahead;
+        boolean crossed = ahead > 0 && !Double.isInfinite(ahead);
+
+        lock.beginWrite();
+        time = frameTime;
+        leftBearing = Math.toDegrees(Math.atan(leftSlope));
+        rightBearing = Math.toDegrees(Math.atan(rightSlope));
+        bearing = crossed ? Math.toDegrees(Math.atan2(sideways, ahead)) : Double.NaN;
+        distance = crossed ? Math.hypot(sideways, ahead) : Double.NaN;
+        lock.endWrite();
+        observations = observations + 1;
+    }
+
+    /**
+     * Forgets the subscription of a pixy whose frames ended with an error,
+     * so start() subscribes again, and writes the error to the current log.
+     * @param side
+     *  0 for the left pixy, 1 for the right
+     * @param subscription
+     *  The subscription that ended
+     * @param throwable
+     *  The error
+     */
+    private synchronized void failed(int side, Flow.Subscription subscription, Throwable throwable)
+    {
+        if(subscriptions[side] == subscription)
+        {
+            subscriptions[side] = null;
+        }
+
+        BinaryLog log = BinaryLog.getCurrent();
+        if(log != null)
+        {
+            log.logString(log.key(ERROR_NAME), (side == 0 ? "Left: " : "Right: ") + throwable);
+        }
+    }
+
+    /**
+     * Returns the number of observations made, which changes when there is a new one.
+     * @return
+     *  The observation count
+     */
+    public long getObservationCount()
+    {
+        return observations;
+    }
+
+    /**
+     * Copies the latest observation.
+     * @param observation
+     *  The observation to fill, reuse it to avoid allocating
+     * @return
+     *  True if the observation was filled, false if there has not been one
+     */
+    public boolean getObservation(Observation observation)
+    {
+        if(observations == 0)
+        {
+            return false;
+        }
+
+        int seq;
+        do
+        {
+            seq = lock.readBegin();
+            observation.time = time;
+            observation.leftBearing = leftBearing;
+            observation.rightBearing = rightBearing;
+            observation.bearing = bearing;
+            observation.distance = distance;
+        }
+        while(lock.readRetry(seq));
+
+        return true;
+    }
+
+    /**
+     * The target as seen by both pixys at one time.
+     */
+    public static class Observation
+    {
+        /*
+         * The values of the observation.
+         */
+        private long time;
+        private double leftBearing;
+        private double rightBearing;
+        private double bearing;
+        private double distance;
+
+        /**
+         * Returns the time of the observation.
+         * @return
+         *  The RobotClock.nanoTime() of the frame that made the observation
+         */
+        public long getTime()
+        {
+            return time;
+        }
+
+        /**
+         * Returns the bearing to the target from the left pixy.
+         * @return
+         *  The bearing in degrees, positive to the right
+         */
+        public double getLeftBearing()
+        {
+            return leftBearing;
+        }
+
+        /**
+         * Returns the bearing to the target from the right pixy.
+         * @return
+         *  The bearing in degrees, positive to the right
+         */
+        public double getRightBearing()
+        {
+            return rightBearing;
+        }
+
+        /**
+         * Returns the bearing to the target from the center of the robot.
+         * @return
+         *  The bearing in degrees, positive to the right, NaN if the lines of
+         *  sight do not cross in front of the robot
+         */
+        public double getBearing()
+        {
+            return bearing;
+        }
+
+        /**
+         * Returns the distance to the target from the center of the robot.
+         * @return
+         *  The distance in the units of the offsets, NaN if the lines of
+         *  sight do not cross in front of the robot
+         */
+        public double getDistance()
+        {
+            return distance;
+        }
+    }
+
+    /**
+     * Receives the frames of one pixy.
+     */
+    private class SideSubscriber implements Flow.Subscriber<PixyFrame>
+    {
+        /**
+         * 0 for the left pixy, 1 for the right
+         */
+        private final int side;
+
+        /**
+         * The subscription made for this subscriber
+         */
+        private volatile Flow.Subscription subscription;
+
+        /**
+         * Constructs a subscriber for one side.
+         * @param side
+         *  0 for the left pixy, 1 for the right
+         */
+        SideSubscriber(int side)
+        {
+            this.side = side;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription)
+        {
+            this.subscription = subscription;
+            subscriptions[side] = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(PixyFrame frame)
+        {
+            fuse(side, frame);
+        }
+
+        @Override
+        public void onError(Throwable throwable)
+        {
+            throwable.printStackTrace();
+            failed(side, subscription, throwable);
+        }
+
+        @Override
+        public void onComplete()
+        {
+            //Do nothing - frames just stop
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+/**
+ * Turns block positions into the bearing, distance, and skew of a target
+ * using the camera's field of view and how it is mounted. All the trig is
+ * done once into tables when the geometry is made, so solving a block only
+ * reads a few array values and can be done for every block of every frame.
+ *
+ * Positions are in the rotated coordinates PixyCam and Pixy2Cam give, so x
+ * runs left to right across the robot and y runs top to bottom. Distances
+ * are in whatever unit the heights are given in.
+ *
+ */
+public class PixyGeometry
+{
+    /*
+     * Field of view of each camera in degrees, across the rotated x and y.
+     * Pixy is 75 by 47 degrees and Pixy2 is 60 by 40, turned on their side.
+     */
+    public static final double PIXY_FOV_X = 47;
+    public static final double PIXY_FOV_Y = 75;
+    public static final double PIXY2_FOV_X = 40;
+    public static final double PIXY2_FOV_Y = 60;
+
+    /**
+     * The number of steps in the skew table
+     */
+    private static final int SKEW_STEPS = 1024;
+
+    /**
+     * The x coordinate of the center of the image
+     */
+    private final double centerX;
+
+    /**
+     * The focal length across the columns in pixels
+     */
+    private final double focalX;
+
+    /**
+     * The bearing of each column in degrees, positive to the right
+     */
+    private final double[] bearing;
+
+    /**
+     * The cosine of the bearing of each column
+     */
+    private final double[] bearingCos;
+
+    /**
+     * The elevation of each row above the horizon in degrees
+     */
+    private final double[] elevation;
+
+    /**
+     * The distance along the floor to the target in each row, NaN where the
+     * row never reaches the target's height
+     */
+    private final double[] distance;
+
+    /**
+     * The skew in degrees for each step of width to height ratio over the
+     * target's own ratio, from 0 to 1
+     */
+    private final double[] skew;
+
+    /**
+     * The target's width divided by its height when facing it straight on
+     */
+    private final double targetAspect;
+
+    /**
+     * Constructs the geometry of a camera and builds its tables.
+     * @param imageWidth
+     *  The number of columns after rotating
+     * @param imageHeight
+     *  The number of rows after rotating
+     * @param fovX
+     *  The field of view across the columns in degrees
+     * @param fovY
+     *  The field of view across the rows in degrees
+     * @param cameraHeight
+     *  The height of the camera lens above the floor
+     * @param cameraPitch
+     *  The angle the camera is tilted up from level in degrees
+     * @param targetHeight
+     *  The height of the center of the target above the floor
+     * @param targetAspect
+     *  The target's width divided by its height when facing it straight on
+     */
+    public PixyGeometry(int imageWidth, int imageHeight, double fovX, double fovY,
+        double cameraHeight, double cameraPitch, double targetHeight, double targetAspect)
+    {
+        this.targetAspect = targetAspect;
+
+        //Focal lengths in pixels for a pinhole camera
+        focalX = imageWidth / 2.0 / Math.tan(Math.toRadians(fovX) / 2);
+        double focalY = imageHeight / 2.0 / Math.tan(Math.toRadians(fovY) / 2);
+        centerX = imageWidth / 2.0;
+        double centerY = imageHeight / 2.0;
+
+        bearing = new double[imageWidth + 1];
+        bearingCos = new double[imageWidth + 1];
+        for(int x = 0; x <= imageWidth; x++)
+        {
+            double angle = Math.atan((x - centerX) / focalX);
+            bearing[x] = Math.toDegrees(angle);
+            bearingCos[x] = Math.cos(angle);
+        }
+
+        elevation = new double[imageHeight + 1];
+        distance = new double[imageHeight + 1];
+        double rise = targetHeight - cameraHeight;
+        for(int y = 0; y <= imageHeight; y++)
+        {
+            double angle = Math.toRadians(cameraPitch) + Math.atan((centerY - y) / focalY);
+            elevation[y] = Math.toDegrees(angle);
+
+            //The row has to point toward the target's height to ever reach it
+            double slope = Math.tan(angle);
+            distance[y] = slope * rise > 0 && Math.abs(angle) < Math.PI / 2 ? rise / slope : Double.NaN;
+        }
+
+        skew = new double[SKEW_STEPS + 1];
+        for(int i = 0; i <= SKEW_STEPS; i++)
+        {
+            skew[i] = Math.toDegrees(Math.acos((double) i / SKEW_STEPS));
+        }
+    }
+
+    /**
+     * Returns the geometry of an original Pixy mounted on its side like PixyCam reads it.
+     * @param cameraHeight
+     *  The height of the camera lens above the floor
+     * @param cameraPitch
+     *  The angle the camera is tilted up from level in degrees
+     * @param targetHeight
+     *  The height of the center of the target above the floor
+     * @param targetAspect
+     *  The target's width divided by its height when facing it straight on
+     * @return
+     *  The geometry
+     */
+    public static PixyGeometry forPixy(double cameraHeight, double cameraPitch, double targetHeight, double targetAspect)
+    {
+        return new PixyGeometry(PixyFrame.CENTER_X * 2, PixyFrame.CENTER_Y * 2, PIXY_FOV_X, PIXY_FOV_Y,
+            cameraHeight, cameraPitch, targetHeight, targetAspect);
+    }
+
+    /**
+     * Returns the geometry of a Pixy2 mounted on its side like Pixy2Cam reads it.
+     * @param cameraHeight
+     *  The height of the camera lens above the floor
+     * @param cameraPitch
+     *  The angle the camera is tilted up from level in degrees
+     * @param targetHeight
+     *  The height of the center of the target above the floor
+     * @param targetAspect
+     *  The target's width divided by its height when facing it straight on
+     * @return
+     *  The geometry
+     */
+    public static PixyGeometry forPixy2(double cameraHeight, double cameraPitch, double targetHeight, double targetAspect)
+    {
+        return new PixyGeometry(Pixy2Cam.CENTER_X * 2, Pixy2Cam.CENTER_Y * 2, PIXY2_FOV_X, PIXY2_FOV_Y,
+            cameraHeight, cameraPitch, targetHeight, targetAspect);
+    }
+
+    /**
+     * Returns the angle from straight ahead to a column of the image.
+     * @param x
+     *  The x coordinate, may be between pixels
+     * @return
+     *  The bearing in degrees, positive to the right
+     */
+    public double getBearing(double x)
+    {
+        return lookUp(bearing, x);
+    }
+
+    /**
+     * Returns the tangent of the bearing to a column, how far to the side
+     * the column is for each unit ahead. It needs no table since it grows
+     * evenly across the image.
+     * @param x
+     *  The x coordinate, may be between pixels
+     * @return
+     *  The sideways distance per distance ahead, positive to the right
+     */
+    public double getBearingSlope(double x)
+    {
+        return (x - centerX) / focalX;
+    }
+
+    /**
+     * Returns the angle above level of a row of the image.
+     * @param y
+     *  The y coordinate, may be between pixels
+     * @return
+     *  The elevation in degrees
+     */
+    public double getElevation(double y)
+    {
+        return lookUp(elevation, y);
+    }
+
+    /**
+     * Returns the distance along the floor to a target centered at the
+     * given position, using the camera and target heights.
+     * @param x
+     *  The x coordinate of the target
+     * @param y
+     *  The y coordinate of the target
+     * @return
+     *  The distance in the units of the heights, NaN if the position can not
+     *  be at the target's height
+     */
+    public double getDistance(double x, double y)
+    {
+        //Rows give the distance straight ahead, further out to the sides
+        return lookUp(distance, y) / lookUp(bearingCos, x);
+    }
+
+    /**
+     * Returns how far the target is turned away from facing the camera,
+     * from how much narrower it looks than its real shape.
+     * @param width
+     *  The width of the target in the image
+     * @param height
+     *  The height of the target in the image
+     * @return
+     *  The skew from 0 when facing the camera to 90 degrees when edge on,
+     *  0 if the height is 0
+     */
+    public double getSkew(double width, double height)
+    {
+        if(height <= 0)
+        {
+            return 0;
+        }
+
+        double ratio = width / height / targetAspect;
+        return lookUp(skew, Math.min(1, ratio) * SKEW_STEPS);
+    }
+
+    /**
+     * Returns the bearing to a block of a frame.
+     * @param frame
+     *  The frame holding the block
+     * @param block
+     *  The index of the block
+     * @return
+     *  The bearing in degrees, positive to the right
+     */
+    public double getBearing(PixyFrame frame, int block)
+    {
+        return lookUp(bearing, frame.getX(block));
+    }
+
+    /**
+     * Returns the distance along the floor to a block of a frame.
+     * @param frame
+     *  The frame holding the block
+     * @param block
+     *  The index of the block
+     * @return
+     *  The distance in the units of the heights, NaN if the block can not
+     *  be at the target's height
+     */
+    public double getDistance(PixyFrame frame, int block)
+    {
+        return getDistance(frame.getX(block), frame.getY(block));
+    }
+
+    /**
+     * Returns how far the target in a block is turned away from facing the camera.
+     * @param frame
+     *  The frame holding the block
+     * @param block
+     *  The index of the block
+     * @return
+     *  The skew from 0 to 90 degrees
+     */
+    public double getSkew(PixyFrame frame, int block)
+    {
+        return getSkew(frame.getWidth(block), frame.getHeight(block));
+    }
+
+    /**
+     * Reads a table at a position between entries, blending the two
+     * entries around it and clamping to the ends.
+     * @param table
+     *  The table to read
+     * @param position
+     *  The index to read, may be between entries
+     * @return
+     *  The blended value
+     */
+    private static double lookUp(double[] table, double position)
+    {
+        int last = table.length - 1;
+        if(!(position > 0))
+        {
+            return table[0];
+        }
+        if(position >= last)
+        {
+            return table[last];
+        }
+
+        int index = (int) position;
+        double fraction = position - index;
+        return table[index] + (table[index + 1] - table[index]) * fraction;
+    }
+}
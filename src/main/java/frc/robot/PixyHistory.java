@@ -0,0 +1,323 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+/**
+ * Ring buffer of the largest object in each of the most recent pixy frames,
+ * stamped with the RobotClock.nanoTime() the frame was captured. It is used to
+ * find where the target was at the moment another sensor, like drivetrain
+ * odometry, took its reading.
+ *
+ * Only the pixy thread adds frames. Any thread can read, reads are never
+ * torn and never block the pixy thread.
+ *
+ */
+public class PixyHistory
+{
+    /**
+     * The number of frames kept when no capacity is given, about 1.3 seconds at 50 fps
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The capture time of each frame
+     */
+    private final long[] time;
+
+    /**
+     * The number of blocks in each frame, 0 if nothing was tracked
+     */
+    private final int[] blockCount;
+
+    /**
+     * The x coordinate of the largest object's center in each frame
+     */
+    private final int[] x;
+
+    /**
+     * The y coordinate of the largest object's center in each frame
+     */
+    private final int[] y;
+
+    /**
+     * The width of the largest object in each frame
+     */
+    private final int[] width;
+
+    /**
+     * The height of the largest object in each frame
+     */
+    private final int[] height;
+
+    /**
+     * The total number of frames added, the next frame goes in index size % capacity
+     */
+    private long size;
+
+    /**
+     * Lock protecting the buffer from torn reads
+     */
+    private final SeqLock lock = new SeqLock();
+
+    /**
+     * Constructs an empty history that keeps the given number of frames.
+     * @param capacity
+     *  The number of frames to keep
+     */
+    public PixyHistory(int capacity)
+    {
+        time = new long[capacity];
+        blockCount = new int[capacity];
+        x = new int[capacity];
+        y = new int[capacity];
+        width = new int[capacity];
+        height = new int[capacity];
+    }
+
+    /**
+     * Constructs an empty history that keeps the default number of frames.
+     */
+    public PixyHistory()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Adds the largest object of a frame, replacing the oldest frame when full.
+     * Must only be called by one thread.
+     * @param frame
+     *  The frame to add
+     */
+    void add(PixyFrame frame)
+    {
+        int index = (int) (size % time.length);
+        int largest = frame.largestBlock();
+
+        lock.beginWrite();
+        time[index] = frame.getTime();
+        blockCount[index] = frame.getBlockCount();
+        if(largest != -1)
+        {
+            x[index] = frame.getX(largest);
+            y[index] = frame.getY(largest);
+            width[index] = frame.getWidth(largest);
+            height[index] = frame.getHeight(largest);
+        }
+        size++;
+        lock.endWrite();
+    }
+
+    /**
+     * Finds the target at the given time, interpolating between the frames
+     * captured just before and just after it. Times after the newest frame
+     * use the newest frame.
+     * @param nanoTime
+     *  The RobotClock.nanoTime() to look up
+     * @param sample
+     *  The sample to fill with the target, reuse it to avoid allocating
+     * @return
+     *  True if the sample was filled, false if the time is older than the history
+     *  or the target was not tracked in the frames around it
+     */
+    public boolean getAt(long nanoTime, Sample sample)
+    {
+        boolean found;
+        int seq;
+        do
+        {
+            seq = lock.readBegin();
+            found = find(nanoTime, sample);
+        }
+        while(lock.readRetry(seq));
+
+        return found;
+    }
+
+    /**
+     * Finds the target at the given time without locking.
+     * @param nanoTime
+     *  The RobotClock.nanoTime() to look up
+     * @param sample
+     *  The sample to fill
+     * @return
+     *  True if the sample was filled
+     */
+    private boolean find(long nanoTime, Sample sample)
+    {
+        int capacity = time.length;
+        long total = size;
+        int count = (int) Math.min(total, capacity);
+        if(count == 0)
+        {
+            return false;
+        }
+        int oldest = (int) ((total - count) % capacity);
+
+        //Binary search for the last frame at or before the time
+        int low = 0;
+        int high = count - 1;
+        int before = -1;
+        while(low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if(time[(oldest + mid) % capacity] <= nanoTime)
+            {
+                before = mid;
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+
+        if(before == -1)
+        {
+            return false;
+        }
+
+        int first = (oldest + before) % capacity;
+        if(blockCount[first] == 0)
+        {
+            return false;
+        }
+
+        if(before == count - 1)
+        {
+            sample.set(nanoTime, x[first], y[first], width[first], height[first]);
+            return true;
+        }
+
+        int second = (oldest + before + 1) % capacity;
+        if(blockCount[second] == 0)
+        {
+            return false;
+        }
+
+        double fraction = (double) (nanoTime - time[first]) / (time[second] - time[first]);
+        sample.set(nanoTime,
+            x[first] + (x[second] - x[first]) * fraction,
+            y[first] + (y[second] - y[first]) * fraction,
+            width[first] + (width[second] - width[first]) * fraction,
+            height[first] + (height[second] - height[first]) * fraction);
+        return true;
+    }
+
+    /**
+     * Returns the number of frames kept.
+     * @return
+     *  The capacity of the history
+     */
+    public int getCapacity()
+    {
+        return time.length;
+    }
+
+    /**
+     * The position of the target at a point in time.
+     */
+    public static class Sample
+    {
+        /**
+         * The RobotClock.nanoTime() of the sample
+         */
+        private long time;
+
+        /**
+         * The x coordinate of the target's center
+         */
+        private double x;
+
+        /**
+         * The y coordinate of the target's center
+         */
+        private double y;
+
+        /**
+         * The width of the target
+         */
+        private double width;
+
+        /**
+         * The height of the target
+         */
+        private double height;
+
+        /**
+         * Sets all values of the sample.
+         * @param time
+         *  The RobotClock.nanoTime() of the sample
+         * @param x
+         *  The center X value
+         * @param y
+         *  The center Y value
+         * @param width
+         *  The width of the target
+         * @param height
+         *  The height of the target
+         */
+        private void set(long time, double x, double y, double width, double height)
+        {
+            this.time = time;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        /**
+         * Returns the time of the sample.
+         * @return
+         *  The RobotClock.nanoTime() of the sample
+         */
+        public long getTime()
+        {
+            return time;
+        }
+
+        /**
+         * Returns the center X coordinate of the target.
+         * @return
+         *  The center X value
+         */
+        public double getX()
+        {
+            return x;
+        }
+
+        /**
+         * Returns the center Y coordinate of the target.
+         * @return
+         *  The center Y value
+         */
+        public double getY()
+        {
+            return y;
+        }
+
+        /**
+         * Returns the width of the target in pixels.
+         * @return
+         *  The width of the target
+         */
+        public double getWidth()
+        {
+            return width;
+        }
+
+        /**
+         * Returns the height of the target in pixels.
+         * @return
+         *  The height of the target
+         */
+        public double getHeight()
+        {
+            return height;
+        }
+    }
+}
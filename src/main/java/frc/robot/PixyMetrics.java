@@ -0,0 +1,261 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+/**
+ * Counts how healthy the connection to a pixy is: frames read, blocks with
+ * bad checksums, times the sync word was lost, and times the pixy went
+ * stale. It also keeps histograms of the time from a frame starting to it
+ * being published and of how long it takes to find a frame after sync is lost.
+ *
+ * Updated by the thread polling the pixy. It is a Printer, so it can be
+ * put on the SmartDashboard with a ValuePrinter, which only sends the
+ * values that changed.
+ *
+ */
+public class PixyMetrics implements Printer
+{
+    /**
+     * The prefix of the SmartDashboard keys
+     */
+    private volatile String name;
+
+    /**
+     * The number of frames published
+     */
+    private volatile long frames;
+
+    /**
+     * The number of blocks dropped for a bad checksum
+     */
+    private volatile long checksumFailures;
+
+    /**
+     * The number of times the sync word was lost in the middle of a frame
+     */
+    private volatile long syncLosses;
+
+    /**
+     * The number of times no frame arrived for longer than the tracking timeout
+     */
+    private volatile long stalePeriods;
+
+    /**
+     * The RobotClock.nanoTime() sync was lost, only used while sync is lost
+     */
+    private long syncLostTime;
+
+    /**
+     * True from sync being lost until the next frame is published
+     */
+    private boolean syncLost;
+
+    /**
+     * True while no frame has arrived for longer than the tracking timeout
+     */
+    private boolean stale;
+
+    /**
+     * The time from a frame starting to it being published
+     */
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * The time from sync being lost to the next frame starting
+     */
+    private final LatencyHistogram resyncTime = new LatencyHistogram();
+
+    /**
+     * The name the dashboard entries were made for, null before the first print
+     */
+    private String entriesName;
+
+    /*
+     * The dashboard entries, made again when the name changes.
+     */
+    private DashboardPublisher.NumberEntry framesEntry;
+    private DashboardPublisher.NumberEntry checksumFailuresEntry;
+    private DashboardPublisher.NumberEntry syncLossesEntry;
+    private DashboardPublisher.NumberEntry stalePeriodsEntry;
+    private DashboardPublisher.NumberEntry latencyMeanEntry;
+    private DashboardPublisher.NumberEntry latencyPercentileEntry;
+    private DashboardPublisher.NumberEntry latencyMaxEntry;
+    private DashboardPublisher.NumberEntry resyncMaxEntry;
+
+    /**
+     * Constructs metrics printed with the given name.
+     * @param name
+     *  The prefix of the SmartDashboard keys
+     */
+    public PixyMetrics(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Sets the prefix of the SmartDashboard keys.
+     * @param name
+     *  The prefix of the keys
+     */
+    public void setName(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * Records a published frame.
+     * @param frameStartTime
+     *  The RobotClock.nanoTime() the frame started
+     * @param now
+     *  The current RobotClock.nanoTime()
+     */
+    void framePublished(long frameStartTime, long now)
+    {
+        frames = frames + 1;
+        latency.record(now - frameStartTime);
+        if(syncLost)
+        {
+            resyncTime.record(frameStartTime - syncLostTime);
+            syncLost = false;
+        }
+        stale = false;
+    }
+
+    /**
+     * Records a block dropped for a bad checksum.
+     */
+    void checksumFailed()
+    {
+        checksumFailures = checksumFailures + 1;
+    }
+
+    /**
+     * Records the sync word being lost.
+     * @param now
+     *  The current RobotClock.nanoTime()
+     */
+    void syncLost(long now)
+    {
+        syncLosses = syncLosses + 1;
+        if(!syncLost)
+        {
+            syncLostTime = now;
+            syncLost = true;
+        }
+    }
+
+    /**
+     * Records a poll with no frame, counting a stale period the first time
+     * the last frame is older than the timeout. Only called once a frame
+     * has arrived, before that there is nothing to go stale.
+     * @param sinceFrame
+     *  The nanoseconds since the last frame
+     * @param timeout
+     *  The nanoseconds without a frame before the pixy is stale
+     */
+    void frameMissed(long sinceFrame, long timeout)
+    {
+        if(!stale && sinceFrame > timeout)
+        {
+            stale = true;
+            stalePeriods = stalePeriods + 1;
+        }
+    }
+
+    /**
+     * Returns the number of frames published.
+     * @return
+     *  The frame count
+     */
+    public long getFrames()
+    {
+        return frames;
+    }
+
+    /**
+     * Returns the number of blocks dropped for a bad checksum.
+     * @return
+     *  The checksum failure count
+     */
+    public long getChecksumFailures()
+    {
+        return checksumFailures;
+    }
+
+    /**
+     * Returns the number of times the sync word was lost.
+     * @return
+     *  The sync loss count
+     */
+    public long getSyncLosses()
+    {
+        return syncLosses;
+    }
+
+    /**
+     * Returns the number of times no frame arrived for longer than the tracking timeout.
+     * @return
+     *  The stale period count
+     */
+    public long getStalePeriods()
+    {
+        return stalePeriods;
+    }
+
+    /**
+     * Returns the histogram of the time from a frame starting to it being published.
+     * @return
+     *  The latency histogram
+     */
+    public LatencyHistogram getLatency()
+    {
+        return latency;
+    }
+
+    /**
+     * Returns the histogram of the time from sync being lost to the next frame starting.
+     * @return
+     *  The resync time histogram
+     */
+    public LatencyHistogram getResyncTime()
+    {
+        return resyncTime;
+    }
+
+    /**
+     * Prints the counters and latency summaries to the SmartDashboard.
+     */
+    @Override
+    public void print()
+    {
+        String prefix = name;
+        if(!prefix.equals(entriesName))
+        {
+            DashboardPublisher dashboard = DashboardPublisher.getInstance();
+            framesEntry = dashboard.getNumber(prefix + " Frames");
+            checksumFailuresEntry = dashboard.getNumber(prefix + " Checksum Failures");
+            syncLossesEntry = dashboard.getNumber(prefix + " Sync Losses");
+            stalePeriodsEntry = dashboard.getNumber(prefix + " Stale Periods");
+            //Latencies in milliseconds, small changes are not worth sending
+            latencyMeanEntry = dashboard.getNumber(prefix + " Latency Mean", 0.01);
+            latencyPercentileEntry = dashboard.getNumber(prefix + " Latency 99%", 0.01);
+            latencyMaxEntry = dashboard.getNumber(prefix + " Latency Max", 0.01);
+            resyncMaxEntry = dashboard.getNumber(prefix + " Resync Max", 0.01);
+            entriesName = prefix;
+        }
+
+        framesEntry.set(frames);
+        checksumFailuresEntry.set(checksumFailures);
+        syncLossesEntry.set(syncLosses);
+        stalePeriodsEntry.set(stalePeriods);
+        latencyMeanEntry.set(latency.getMean());
+        latencyPercentileEntry.set(latency.getPercentile(0.99));
+        latencyMaxEntry.set(latency.getMax());
+        resyncMaxEntry.set(resyncTime.getMax());
+    }
+}
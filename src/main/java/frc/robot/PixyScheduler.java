@@ -0,0 +1,242 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+/**
+ * Reads any number of pixy cams from one thread instead of a thread per
+ * pixy. Each pixy is polled when its deadline comes up, with the earliest
+ * deadline going first. After a pixy publishes a frame its next deadline is
+ * one period later, otherwise it is polled again when the pixy expects its
+ * next frame to start.
+ *
+ * Pixys added to a scheduler must not also be run on their own thread.
+ * In a Simulation the thread is not started and the simulation steps the
+ * scheduler instead.
+ *
+ */
+public class PixyScheduler implements Runnable
+{
+    /**
+     * The time in milliseconds to sleep when no pixys are added
+     */
+    private static final int IDLE_TIME = 20;
+
+    /**
+     * The pixys being read, replaced instead of changed so the scheduler
+     * thread can loop through it without locking
+     */
+    private volatile Entry[] entries;
+
+    /**
+     * The thread reading the pixys
+     */
+    private Thread schedulerThread;
+
+    /**
+     * Constructs a scheduler with no pixys. Call start() to begin reading.
+     */
+    public PixyScheduler()
+    {
+        entries = new Entry[0];
+        schedulerThread = new Thread();
+    }
+
+    /**
+     * Adds a pixy to read with the given time between frames.
+     * @param pixy
+     *  The pixy to read
+     * @param period
+     *  The time between frames in milliseconds, 20 for every frame of a pixy
+     */
+    public synchronized void add(PixyCam pixy, int period)
+    {
+        remove(pixy);
+        Entry[] current = entries;
+        Entry[] updated = new Entry[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = new Entry(pixy, period * 1_000_000L);
+        entries = updated;
+    }
+
+    /**
+     * Stops reading the given pixy.
+     * @param pixy
+     *  The pixy to remove
+     */
+    public synchronized void remove(PixyCam pixy)
+    {
+        Entry[] current = entries;
+        for(int i = 0; i < current.length; i++)
+        {
+            if(current[i].pixy == pixy)
+            {
+                Entry[] updated = new Entry[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                entries = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Starts the scheduler thread if it is not already running. Does nothing
+     * in a Simulation.
+     */
+    public synchronized void start()
+    {
+        if(!schedulerThread.isAlive() && !RobotClock.isSimulated())
+        {
+            schedulerThread = new Thread(this, "PixyScheduler");
+            schedulerThread.setDaemon(true);
+            schedulerThread.start();
+        }
+    }
+
+    /**
+     * Stops the scheduler thread.
+     */
+    public synchronized void stop()
+    {
+        schedulerThread.interrupt();
+    }
+
+    @Override
+    public void run()
+    {
+        try
+        {
+            while(!Thread.interrupted())
+            {
+                Entry[] current = entries;
+                if(current.length == 0)
+                {
+                    Thread.sleep(IDLE_TIME);
+                    continue;
+                }
+
+                //Find the pixy with the earliest deadline
+                Entry next = current[0];
+                for(int i = 1; i < current.length; i++)
+                {
+                    if(current[i].deadline - next.deadline < 0)
+                    {
+                        next = current[i];
+                    }
+                }
+
+                if(next.deadline - RobotClock.nanoTime() > 0)
+                {
+                    //Check again after sleeping in case pixys were added or removed
+                    Util.sleepUntil(next.deadline);
+                    continue;
+                }
+
+                poll(next);
+            }
+        }
+        catch(InterruptedException e)
+        {
+            //Do nothing - let the thread end
+        }
+    }
+
+    /**
+     * Polls every pixy whose deadline has come, in the order they were
+     * added. A Simulation calls this in place of the scheduler thread.
+     * @param now
+     *  The current RobotClock.nanoTime()
+     * @return
+     *  The earliest deadline after polling, one idle time from now if no
+     *  pixys are added
+     */
+    long step(long now)
+    {
+        Entry[] current = entries;
+        long earliest = now + IDLE_TIME * 1_000_000L;
+        for(int i = 0; i < current.length; i++)
+        {
+            Entry entry = current[i];
+            if(entry.deadline - now <= 0)
+            {
+                poll(entry);
+            }
+            if(entry.deadline - earliest < 0)
+            {
+                earliest = entry.deadline;
+            }
+        }
+
+        return earliest;
+    }
+
+    /**
+     * Polls a pixy and sets its next deadline. Used by both the scheduler
+     * thread and step(), so an exception from one pixy, or from a frame
+     * subscriber called by it, can not stop the other pixys.
+     * @param entry
+     *  The pixy to poll
+     */
+    private void poll(Entry entry)
+    {
+        try
+        {
+            if(entry.pixy.poll())
+            {
+                //Skip frames until the period has passed
+                entry.deadline = Math.max(entry.pixy.getNextPollTime(), 
+                    RobotClock.nanoTime() + entry.period - FrameCadence.GUARD_TIME);
+            }
+            else
+            {
+                entry.deadline = entry.pixy.getNextPollTime();
+            }
+        }
+        catch(RuntimeException e)
+        {
+            //Keep polling the other pixys, and try this one again a period later
+            e.printStackTrace();
+            entry.deadline = RobotClock.nanoTime() + entry.period;
+        }
+    }
+
+    /**
+     * A pixy and when it should be polled next.
+     */
+    private static class Entry
+    {
+        /**
+         * The pixy to read
+         */
+        private final PixyCam pixy;
+
+        /**
+         * The time between frames in nanoseconds
+         */
+        private final long period;
+
+        /**
+         * The RobotClock.nanoTime() to poll the pixy next, only used by the scheduler thread or simulation
+         */
+        private long deadline;
+
+        /**
+         * Constructs an entry that is polled right away.
+         * @param pixy
+         *  The pixy to read
+         * @param period
+         *  The time between frames in nanoseconds
+         */
+        private Entry(PixyCam pixy, long period)
+        {
+            this.pixy = pixy;
+            this.period = period;
+            deadline = RobotClock.nanoTime();
+        }
+    }
+}
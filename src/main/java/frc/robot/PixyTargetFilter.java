@@ -0,0 +1,459 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+/**
+ * Alpha-beta filter that smooths the largest object reported by a PixyCam
+ * and estimates how fast it is moving, so the target can be predicted at
+ * any time between frames.
+ *
+ * A larger alpha follows new measurements more closely, a larger beta
+ * changes the velocity estimate faster. Both should be between 0 and 1.
+ *
+ * Updated by the pixy thread after it is added with PixyCam.setFilter(),
+ * predictions can be read from any thread. Use predict() to read every
+ * value from the same update, the single value getters may each see a
+ * different update.
+ *
+ */
+public class PixyTargetFilter
+{
+    /*
+     * Indexes of the filtered values.
+     */
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int WIDTH = 2;
+    private static final int HEIGHT = 3;
+
+    /**
+     * The longest time in nanoseconds without a measurement before the filter restarts
+     */
+    private static final long RESET_TIME = 250_000_000L;
+
+    /**
+     * The weight given to the position error
+     */
+    private final double alpha;
+
+    /**
+     * The weight given to the velocity error
+     */
+    private final double beta;
+
+    /**
+     * The longest time in nanoseconds predictions are extrapolated past the last measurement
+     */
+    private final long maxPrediction;
+
+    /**
+     * The filtered x, y, width, and height at the last measurement
+     */
+    private final double[] position = new double[4];
+
+    /**
+     * The estimated change of x, y, width, and height per second
+     */
+    private final double[] velocity = new double[4];
+
+    /**
+     * The RobotClock.nanoTime() of the last measurement
+     */
+    private long lastTime;
+
+    /**
+     * True once the filter has a measurement
+     */
+    private boolean initialized;
+
+    /**
+     * Lock protecting the filter state from torn reads
+     */
+    private final SeqLock lock = new SeqLock();
+
+    /**
+     * Constructs a filter with the given gains.
+     * @param alpha
+     *  The weight given to the position error from 0 to 1
+     * @param beta
+     *  The weight given to the velocity error from 0 to 1
+     * @param maxPrediction
+     *  The longest time in milliseconds to extrapolate past the last frame
+     */
+    public PixyTargetFilter(double alpha, double beta, int maxPrediction)
+    {
+        this.alpha = alpha;
+        this.beta = beta;
+        this.maxPrediction = maxPrediction * 1_000_000L;
+    }
+
+    /**
+     * Constructs a filter with gains suited to the pixy's 50 frames per
+     * second that extrapolates up to 100 milliseconds.
+     */
+    public PixyTargetFilter()
+    {
+        this(0.5, 0.1, 100);
+    }
+
+    /**
+     * Adds a measurement of the target. Must only be called by one thread.
+     * @param nanoTime
+     *  The RobotClock.nanoTime() the measurement was captured
+     * @param x
+     *  The center X value
+     * @param y
+     *  The center Y value
+     * @param width
+     *  The width of the target
+     * @param height
+     *  The height of the target
+     */
+    public void update(long nanoTime, int x, int y, int width, int height)
+    {
+        lock.beginWrite();
+        double dt = (nanoTime - lastTime) / 1e9;
+        if(!initialized || dt <= 0 || nanoTime - lastTime > RESET_TIME)
+        {
+            position[X] = x;
+            position[Y] = y;
+            position[WIDTH] = width;
+            position[HEIGHT] = height;
+            velocity[X] = 0;
+            velocity[Y] = 0;
+            velocity[WIDTH] = 0;
+            velocity[HEIGHT] = 0;
+            initialized = true;
+        }
+        else
+        {
+            correct(X, x, dt);
+            correct(Y, y, dt);
+            correct(WIDTH, width, dt);
+            correct(HEIGHT, height, dt);
+        }
+        lastTime = nanoTime;
+        lock.endWrite();
+    }
+
+    /**
+     * Moves one value's estimate toward a measurement.
+     * @param index
+     *  The index of the value
+     * @param measured
+     *  The measured value
+     * @param dt
+     *  The seconds since the last measurement
+     */
+    private void correct(int index, double measured, double dt)
+    {
+        double predicted = position[index] + velocity[index] * dt;
+        double error = measured - predicted;
+        position[index] = predicted + alpha * error;
+        velocity[index] += beta * error / dt;
+    }
+
+    /**
+     * Clears the filter so the next measurement starts it over.
+     */
+    public void reset()
+    {
+        lock.beginWrite();
+        initialized = false;
+        lock.endWrite();
+    }
+
+    /**
+     * Returns whether the filter has a recent enough measurement to predict from.
+     * @param nanoTime
+     *  The RobotClock.nanoTime() to predict at
+     * @return
+     *  True if the last measurement is recent enough
+     */
+    public boolean isValid(long nanoTime)
+    {
+        boolean valid;
+        int seq;
+        do
+        {
+            seq = lock.readBegin();
+            valid = initialized && nanoTime - lastTime < RESET_TIME;
+        }
+        while(lock.readRetry(seq));
+
+        return valid;
+    }
+
+    /**
+     * Predicts one value at the given time.
+     * @param index
+     *  The index of the value
+     * @param nanoTime
+     *  The RobotClock.nanoTime() to predict at
+     * @return
+     *  The predicted value
+     */
+    private double predict(int index, long nanoTime)
+    {
+        double value;
+        int seq;
+        do
+        {
+            seq = lock.readBegin();
+            value = position[index] + velocity[index] * ahead(nanoTime) / 1e9;
+        }
+        while(lock.readRetry(seq));
+
+        return value;
+    }
+
+    /**
+     * Returns how far past the last measurement to extrapolate, never
+     * before it and never more than the longest prediction. Must be called
+     * inside a read of the lock.
+     * @param nanoTime
+     *  The RobotClock.nanoTime() to predict at
+     * @return
+     *  The time to extrapolate in nanoseconds
+     */
+    private long ahead(long nanoTime)
+    {
+        return Math.max(0, Math.min(nanoTime - lastTime, maxPrediction));
+    }
+
+    /**
+     * Predicts every value of the target from the same update.
+     * @param nanoTime
+     *  The RobotClock.nanoTime() to predict at
+     * @param prediction
+     *  The prediction to fill, reuse it to avoid allocating
+     * @return
+     *  True if the filter had a recent enough measurement, false if the
+     *  prediction was not filled
+     */
+    public boolean predict(long nanoTime, Prediction prediction)
+    {
+        boolean valid;
+        int seq;
+        do
+        {
+            seq = lock.readBegin();
+            valid = initialized && nanoTime - lastTime < RESET_TIME;
+            if(valid)
+            {
+                double seconds = ahead(nanoTime) / 1e9;
+                prediction.time = lastTime;
+                prediction.x = position[X] + velocity[X] * seconds;
+                prediction.y = position[Y] + velocity[Y] * seconds;
+                prediction.width = position[WIDTH] + velocity[WIDTH] * seconds;
+                prediction.height = position[HEIGHT] + velocity[HEIGHT] * seconds;
+                prediction.velocityX = velocity[X];
+                prediction.velocityY = velocity[Y];
+            }
+        }
+        while(lock.readRetry(seq));
+
+        return valid;
+    }
+
+    /**
+     * Returns the value's estimated change per second.
+     * @param index
+     *  The index of the value
+     * @return
+     *  The velocity of the value
+     */
+    private double velocity(int index)
+    {
+        double value;
+        int seq;
+        do
+        {
+            seq = lock.readBegin();
+            value = velocity[index];
+        }
+        while(lock.readRetry(seq));
+
+        return value;
+    }
+
+    /**
+     * Predicts the center X coordinate of the target.
+     * @param nanoTime
+     *  The RobotClock.nanoTime() to predict at
+     * @return
+     *  The predicted center X value
+     */
+    public double getX(long nanoTime)
+    {
+        return predict(X, nanoTime);
+    }
+
+    /**
+     * Predicts the center Y coordinate of the target.
+     * @param nanoTime
+     *  The RobotClock.nanoTime() to predict at
+     * @return
+     *  The predicted center Y value
+     */
+    public double getY(long nanoTime)
+    {
+        return predict(Y, nanoTime);
+    }
+
+    /**
+     * Predicts the width of the target.
+     * @param nanoTime
+     *  The RobotClock.nanoTime() to predict at
+     * @return
+     *  The predicted width
+     */
+    public double getWidth(long nanoTime)
+    {
+        return predict(WIDTH, nanoTime);
+    }
+
+    /**
+     * Predicts the height of the target.
+     * @param nanoTime
+     *  The RobotClock.nanoTime() to predict at
+     * @return
+     *  The predicted height
+     */
+    public double getHeight(long nanoTime)
+    {
+        return predict(HEIGHT, nanoTime);
+    }
+
+    /**
+     * Returns the estimated X velocity of the target.
+     * @return
+     *  The change in center X per second
+     */
+    public double getVelocityX()
+    {
+        return velocity(X);
+    }
+
+    /**
+     * Returns the estimated Y velocity of the target.
+     * @return
+     *  The change in center Y per second
+     */
+    public double getVelocityY()
+    {
+        return velocity(Y);
+    }
+
+    /**
+     * Returns how fast the target's width is changing, which grows as it gets closer.
+     * @return
+     *  The change in width per second
+     */
+    public double getVelocityWidth()
+    {
+        return velocity(WIDTH);
+    }
+
+    /**
+     * Returns how fast the target's height is changing, which grows as it gets closer.
+     * @return
+     *  The change in height per second
+     */
+    public double getVelocityHeight()
+    {
+        return velocity(HEIGHT);
+    }
+
+    /**
+     * The target predicted at one time from one update of the filter.
+     */
+    public static class Prediction
+    {
+        /*
+         * The values of the prediction.
+         */
+        private long time;
+        private double x;
+        private double y;
+        private double width;
+        private double height;
+        private double velocityX;
+        private double velocityY;
+
+        /**
+         * Returns the time of the measurement the prediction was made from.
+         * @return
+         *  The RobotClock.nanoTime() of the last measurement
+         */
+        public long getTime()
+        {
+            return time;
+        }
+
+        /**
+         * Returns the predicted center X coordinate of the target.
+         * @return
+         *  The center X value
+         */
+        public double getX()
+        {
+            return x;
+        }
+
+        /**
+         * Returns the predicted center Y coordinate of the target.
+         * @return
+         *  The center Y value
+         */
+        public double getY()
+        {
+            return y;
+        }
+
+        /**
+         * Returns the predicted width of the target.
+         * @return
+         *  The width
+         */
+        public double getWidth()
+        {
+            return width;
+        }
+
+        /**
+         * Returns the predicted height of the target.
+         * @return
+         *  The height
+         */
+        public double getHeight()
+        {
+            return height;
+        }
+
+        /**
+         * Returns the estimated X velocity of the target.
+         * @return
+         *  The change in center X per second
+         */
+        public double getVelocityX()
+        {
+            return velocityX;
+        }
+
+        /**
+         * Returns the estimated Y velocity of the target.
+         * @return
+         *  The change in center Y per second
+         */
+        public double getVelocityY()
+        {
+            return velocityY;
+        }
+    }
+}
@@ -0,0 +1,554 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+/**
+ * Follows objects from frame to frame so the same ball keeps the same id.
+ * Each frame, blocks are matched to the tracks they are closest to where
+ * the track was expected to be, only between blocks and tracks with the
+ * same signature. Matched tracks grow older and more confident, blocks
+ * with no track start new tracks, and tracks with no block coast on their
+ * velocity for a few frames before being dropped, so an object hidden for
+ * a frame or two keeps its id.
+ *
+ * Tracks are kept in fixed arrays and matching is bounded by the number of
+ * tracks times the number of blocks, so updating never allocates. Only one
+ * thread may use a tracker, update it with frames from getSnapshot() or a
+ * frame subscriber. A frame that is not newer than the last one used, like
+ * the same snapshot read again by a loop faster than the pixy, is ignored
+ * so it does not count as a frame where every track was seen again.
+ *
+ */
+public class PixyTracker
+{
+    /**
+     * The number of tracks kept when no capacity is given
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The default distance in pixels a block may be from where a track was expected
+     */
+    public static final double DEFAULT_MAX_JUMP = 40;
+
+    /**
+     * The default number of frames in a row a track can be missed before it is dropped
+     */
+    public static final int DEFAULT_MAX_MISSED = 5;
+
+    /**
+     * The confidence of a new track
+     */
+    private static final double START_CONFIDENCE = 0.3;
+
+    /**
+     * The fraction of the way confidence moves to 1 each frame a track is seen
+     */
+    private static final double CONFIDENCE_GAIN = 0.3;
+
+    /**
+     * The number confidence is multiplied by each frame a track is missed
+     */
+    private static final double CONFIDENCE_DECAY = 0.6;
+
+    /**
+     * The distance in pixels a block may be from where a track was expected,
+     * before adding half the track's size
+     */
+    private final double maxJump;
+
+    /**
+     * The number of frames in a row a track can be missed before it is dropped
+     */
+    private final int maxMissed;
+
+    /*
+     * The tracks, the first trackCount entries are in use.
+     */
+    private final int[] id;
+    private final int[] signature;
+    private final double[] x;
+    private final double[] y;
+    private final int[] width;
+    private final int[] height;
+    private final double[] velocityX;
+    private final double[] velocityY;
+    private final int[] age;
+    private final int[] missed;
+    private final double[] confidence;
+    private final long[] time;
+
+    /**
+     * The number of tracks in use
+     */
+    private int trackCount;
+
+    /**
+     * The id the next new track gets
+     */
+    private int nextId;
+
+    /**
+     * The time of the last frame used
+     */
+    private long lastFrameTime;
+
+    /**
+     * True once a frame has been used since the tracker was made or cleared
+     */
+    private boolean hasFrame;
+
+    /**
+     * True for tracks matched to a block in the current frame
+     */
+    private final boolean[] trackMatched;
+
+    /**
+     * True for blocks matched to a track in the current frame, grown if a
+     * frame has more blocks than any before
+     */
+    private boolean[] blockMatched;
+
+    /**
+     * Constructs a tracker with the default capacity and limits.
+     */
+    public PixyTracker()
+    {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_JUMP, DEFAULT_MAX_MISSED);
+    }
+
+    /**
+     * Constructs a tracker.
+     * @param capacity
+     *  The most tracks kept at once
+     * @param maxJump
+     *  The distance in pixels a block may be from where a track was expected,
+     *  half the track's size is added to it
+     * @param maxMissed
+     *  The number of frames in a row a track can be missed before it is dropped
+     */
+    public PixyTracker(int capacity, double maxJump, int maxMissed)
+    {
+        this.maxJump = maxJump;
+        this.maxMissed = maxMissed;
+        id = new int[capacity];
+        signature = new int[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        width = new int[capacity];
+        height = new int[capacity];
+        velocityX = new double[capacity];
+        velocityY = new double[capacity];
+        age = new int[capacity];
+        missed = new int[capacity];
+        confidence = new double[capacity];
+        time = new long[capacity];
+        trackMatched = new boolean[capacity];
+        blockMatched = new boolean[PixyFrame.DEFAULT_CAPACITY];
+        nextId = 1;
+    }
+
+    /**
+     * Matches the blocks of a frame to the tracks and updates them.
+     * @param frame
+     *  The newest frame
+     * @return
+     *  True if the frame was used, false if it was not newer than the last frame
+     */
+    public boolean update(PixyFrame frame)
+    {
+        if(hasFrame && frame.getTime() - lastFrameTime <= 0)
+        {
+            return false;
+        }
+        hasFrame = true;
+        lastFrameTime = frame.getTime();
+
+        int blocks = frame.getBlockCount();
+        if(blockMatched.length < frame.getCapacity())
+        {
+            blockMatched = new boolean[frame.getCapacity()];
+        }
+        for(int b = 0; b < blocks; b++)
+        {
+            blockMatched[b] = false;
+        }
+        for(int t = 0; t < trackCount; t++)
+        {
+            trackMatched[t] = false;
+        }
+
+        //Match the closest track and block pair left until none are close enough
+        while(true)
+        {
+            int bestTrack = -1;
+            int bestBlock = -1;
+            double bestDistance = Double.MAX_VALUE;
+            for(int t = 0; t < trackCount; t++)
+            {
+                if(trackMatched[t])
+                {
+                    continue;
+                }
+
+                double seconds = (frame.getTime() - time[t]) / 1e9;
+                double expectedX = x[t] + velocityX[t] * seconds;
+                double expectedY = y[t] + velocityY[t] * seconds;
+                double gate = maxJump + Math.max(width[t], height[t]) / 2.0;
+                for(int b = 0; b < blocks; b++)
+                {
+                    if(blockMatched[b] || frame.getSignature(b) != signature[t])
+                    {
+                        continue;
+                    }
+
+                    double dx = frame.getX(b) - expectedX;
+                    double dy = frame.getY(b) - expectedY;
+                    double distance = dx * dx + dy * dy;
+                    if(distance <= gate * gate && distance < bestDistance)
+                    {
+                        bestTrack = t;
+                        bestBlock = b;
+                        bestDistance = distance;
+                    }
+                }
+            }
+
+            if(bestTrack == -1)
+            {
+                break;
+            }
+            trackMatched[bestTrack] = true;
+            blockMatched[bestBlock] = true;
+            hit(bestTrack, frame, bestBlock);
+        }
+
+        //Coast the tracks that were not seen and drop the ones missed too long
+        for(int t = trackCount - 1; t >= 0; t--)
+        {
+            if(!trackMatched[t])
+            {
+                missed[t]++;
+                confidence[t] *= CONFIDENCE_DECAY;
+                if(missed[t] > maxMissed)
+                {
+                    remove(t);
+                }
+            }
+        }
+
+        //Start tracks for blocks with none
+        for(int b = 0; b < blocks; b++)
+        {
+            if(!blockMatched[b])
+            {
+                start(frame, b);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Updates a track with the block matched to it.
+     * @param track
+     *  The index of the track
+     * @param frame
+     *  The frame holding the block
+     * @param block
+     *  The index of the block
+     */
+    private void hit(int track, PixyFrame frame, int block)
+    {
+        double seconds = (frame.getTime() - time[track]) / 1e9;
+        if(seconds > 0)
+        {
+            velocityX[track] = (frame.getX(block) - x[track]) / seconds;
+            velocityY[track] = (frame.getY(block) - y[track]) / seconds;
+        }
+        x[track] = frame.getX(block);
+        y[track] = frame.getY(block);
+        width[track] = frame.getWidth(block);
+        height[track] = frame.getHeight(block);
+        time[track] = frame.getTime();
+        age[track]++;
+        missed[track] = 0;
+        confidence[track] += (1 - confidence[track]) * CONFIDENCE_GAIN;
+    }
+
+    /**
+     * Starts a track for a block, replacing the least confident track if
+     * there is no room and it is less confident than a new track.
+     * @param frame
+     *  The frame holding the block
+     * @param block
+     *  The index of the block
+     */
+    private void start(PixyFrame frame, int block)
+    {
+        int track = trackCount;
+        if(trackCount == id.length)
+        {
+            track = 0;
+            for(int t = 1; t < trackCount; t++)
+            {
+                if(confidence[t] < confidence[track])
+                {
+                    track = t;
+                }
+            }
+            if(confidence[track] >= START_CONFIDENCE)
+            {
+                return;
+            }
+        }
+        else
+        {
+            trackCount++;
+        }
+
+        id[track] = nextId++;
+        signature[track] = frame.getSignature(block);
+        x[track] = frame.getX(block);
+        y[track] = frame.getY(block);
+        width[track] = frame.getWidth(block);
+        height[track] = frame.getHeight(block);
+        velocityX[track] = 0;
+        velocityY[track] = 0;
+        age[track] = 1;
+        missed[track] = 0;
+        confidence[track] = START_CONFIDENCE;
+        time[track] = frame.getTime();
+    }
+
+    /**
+     * Drops a track by moving the last track into its place.
+     * @param track
+     *  The index of the track
+     */
+    private void remove(int track)
+    {
+        int last = --trackCount;
+        id[track] = id[last];
+        signature[track] = signature[last];
+        x[track] = x[last];
+        y[track] = y[last];
+        width[track] = width[last];
+        height[track] = height[last];
+        velocityX[track] = velocityX[last];
+        velocityY[track] = velocityY[last];
+        age[track] = age[last];
+        missed[track] = missed[last];
+        confidence[track] = confidence[last];
+        time[track] = time[last];
+        trackMatched[track] = trackMatched[last];
+    }
+
+    /**
+     * Drops every track and forgets the last frame. Ids keep counting up so
+     * old ids are never reused.
+     */
+    public void clear()
+    {
+        trackCount = 0;
+        hasFrame = false;
+    }
+
+    /**
+     * Returns the number of tracks. Track indexes change as tracks are
+     * dropped, keep ids between frames and find them with indexOf().
+     * @return
+     *  The track count
+     */
+    public int getTrackCount()
+    {
+        return trackCount;
+    }
+
+    /**
+     * Returns the index of the track with the given id.
+     * @param trackId
+     *  The id of the track
+     * @return
+     *  The index of the track, -1 if it was dropped
+     */
+    public int indexOf(int trackId)
+    {
+        for(int t = 0; t < trackCount; t++)
+        {
+            if(id[t] == trackId)
+            {
+                return t;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the id of the most confident track with a signature, the
+     * oldest if several are as confident. Lock onto this id and follow it
+     * with indexOf() instead of asking again every frame, so the target
+     * does not flip between objects.
+     * @param sig
+     *  The signature to look for
+     * @return
+     *  The id of the best track, -1 if there are none with the signature
+     */
+    public int getBestTrack(int sig)
+    {
+        int best = -1;
+        for(int t = 0; t < trackCount; t++)
+        {
+            if(signature[t] != sig)
+            {
+                continue;
+            }
+            if(best == -1 || confidence[t] > confidence[best]
+                || (confidence[t] == confidence[best] && age[t] > age[best]))
+            {
+                best = t;
+            }
+        }
+
+        return best == -1 ? -1 : id[best];
+    }
+
+    /**
+     * Returns the id of a track.
+     * @param track
+     *  The index of the track
+     * @return
+     *  The id, which stays the same while the track exists
+     */
+    public int getId(int track)
+    {
+        return id[track];
+    }
+
+    /**
+     * Returns the signature of a track.
+     * @param track
+     *  The index of the track
+     * @return
+     *  The signature
+     */
+    public int getSignature(int track)
+    {
+        return signature[track];
+    }
+
+    /**
+     * Returns the x coordinate a track was last seen at.
+     * @param track
+     *  The index of the track
+     * @return
+     *  The x value
+     */
+    public double getX(int track)
+    {
+        return x[track];
+    }
+
+    /**
+     * Returns the y coordinate a track was last seen at.
+     * @param track
+     *  The index of the track
+     * @return
+     *  The y value
+     */
+    public double getY(int track)
+    {
+        return y[track];
+    }
+
+    /**
+     * Returns the width a track was last seen with.
+     * @param track
+     *  The index of the track
+     * @return
+     *  The width value
+     */
+    public int getWidth(int track)
+    {
+        return width[track];
+    }
+
+    /**
+     * Returns the height a track was last seen with.
+     * @param track
+     *  The index of the track
+     * @return
+     *  The height value
+     */
+    public int getHeight(int track)
+    {
+        return height[track];
+    }
+
+    /**
+     * Returns how fast a track is moving along x.
+     * @param track
+     *  The index of the track
+     * @return
+     *  The velocity in pixels per second
+     */
+    public double getVelocityX(int track)
+    {
+        return velocityX[track];
+    }
+
+    /**
+     * Returns how fast a track is moving along y.
+     * @param track
+     *  The index of the track
+     * @return
+     *  The velocity in pixels per second
+     */
+    public double getVelocityY(int track)
+    {
+        return velocityY[track];
+    }
+
+    /**
+     * Returns the number of frames a track has been seen in.
+     * @param track
+     *  The index of the track
+     * @return
+     *  The age in frames
+     */
+    public int getAge(int track)
+    {
+        return age[track];
+    }
+
+    /**
+     * Returns the number of frames in a row a track has not been seen.
+     * @param track
+     *  The index of the track
+     * @return
+     *  The missed frame count, 0 if it was in the last frame
+     */
+    public int getMissed(int track)
+    {
+        return missed[track];
+    }
+
+    /**
+     * Returns how sure the tracker is that a track is a real object, rising
+     * each frame it is seen and falling each frame it is missed.
+     * @param track
+     *  The index of the track
+     * @return
+     *  The confidence from 0 to 1
+     */
+    public double getConfidence(int track)
+    {
+        return confidence[track];
+    }
+}
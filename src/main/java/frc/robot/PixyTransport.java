@@ -0,0 +1,38 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+/**
+ * Interface for the connection a pixy's bytes are read from, so the
+ * parsing in PixyCam can run from the SPI, a recording, or a replay.
+ * 
+ */
+public interface PixyTransport 
+{
+    /**
+     * Reads bytes from the pixy, blocking until all of them are read.
+     * @param buffer
+     *  The buffer to read into starting at index 0
+     * @param count
+     *  The number of bytes to read
+     * @return
+     *  The number of bytes read
+     */
+    int read(byte[] buffer, int count);
+
+    /**
+     * Writes bytes to the pixy.
+     * @param buffer
+     *  The buffer to write starting at index 0
+     * @param count
+     *  The number of bytes to write
+     * @return
+     *  The number of bytes written
+     */
+    int write(byte[] buffer, int count);
+}
@@ -0,0 +1,147 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Transport that passes reads and writes through to another transport and
+ * saves every byte read to a capture file that ReplayTransport can play back.
+ *
+ * Each read is saved as a record of the RobotClock.nanoTime() it finished at
+ * (8 bytes), the number of bytes (4 bytes), then the bytes. Records are
+ * buffered and written when the buffer fills or the recording is closed.
+ *
+ */
+public class RecordingTransport implements PixyTransport, AutoCloseable
+{
+    /**
+     * The number of bytes before the data of each record
+     */
+    static final int RECORD_HEADER_SIZE = 12;
+
+    /**
+     * The number of bytes buffered before writing to the file
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The transport being recorded
+     */
+    private final PixyTransport source;
+
+    /**
+     * The capture file
+     */
+    private final FileChannel file;
+
+    /**
+     * Reused buffer of records not yet written to the file
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * False once writing to the file fails or the recording is closed
+     */
+    private boolean recording;
+
+    /**
+     * Constructs a recording of the given transport, replacing the file if it exists.
+     * @param source
+     *  The transport to record
+     * @param capture
+     *  The file to save the bytes to
+     * @throws IOException
+     *  If the file cannot be opened
+     */
+    public RecordingTransport(PixyTransport source, Path capture) throws IOException
+    {
+        this.source = source;
+        file = FileChannel.open(capture, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        recording = true;
+    }
+
+    @Override
+    public synchronized int read(byte[] bytes, int count)
+    {
+        int read = source.read(bytes, count);
+        if(recording && read > 0)
+        {
+            if(buffer.remaining() < RECORD_HEADER_SIZE + read)
+            {
+                flush();
+            }
+
+            //Reads too big for the buffer are skipped instead of breaking the file
+            if(recording && buffer.remaining() >= RECORD_HEADER_SIZE + read)
+            {
+                buffer.putLong(RobotClock.nanoTime());
+                buffer.putInt(read);
+                buffer.put(bytes, 0, read);
+            }
+        }
+
+        return read;
+    }
+
+    @Override
+    public int write(byte[] bytes, int count)
+    {
+        return source.write(bytes, count);
+    }
+
+    /**
+     * Writes the buffered records to the file.
+     */
+    public synchronized void flush()
+    {
+        if(!recording)
+        {
+            return;
+        }
+
+        try
+        {
+            buffer.flip();
+            while(buffer.hasRemaining())
+            {
+                file.write(buffer);
+            }
+        }
+        catch(IOException e)
+        {
+            e.printStackTrace();
+            recording = false;
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the buffered records and closes the file. Reads still pass through after closing.
+     */
+    @Override
+    public synchronized void close()
+    {
+        flush();
+        recording = false;
+        try
+        {
+            file.close();
+        }
+        catch(IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+}
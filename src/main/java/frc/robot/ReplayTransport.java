@@ -0,0 +1,196 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Transport that plays back a capture saved by RecordingTransport, so
+ * pixy parsing can be tested and measured without a roboRIO. The capture
+ * is memory mapped and played back as one stream of bytes, so reads do not
+ * have to line up with the reads that were recorded.
+ *
+ * In real time mode each record is held back until as much time has passed
+ * since the start of the replay as had passed when it was recorded. Reads
+ * never wait for a record, they return zeros like an idle pixy until it is
+ * due, so a replay does not stall the other pixys on a PixyScheduler and
+ * works the same on simulated time. Otherwise bytes are returned as fast as
+ * they are read. Once the capture ends, reads return zeros.
+ *
+ * Writes are ignored.
+ *
+ */
+public class ReplayTransport implements PixyTransport
+{
+    /**
+     * The most time in nanoseconds between two records for the second to be
+     * part of the same burst of reads. The reads of one frame are recorded
+     * microseconds apart, and a record in the same burst as the one before
+     * is never held back, so a frame is not cut up by idle zeros.
+     */
+    private static final long BURST_TIME = 1_000_000;
+
+    /**
+     * The mapped capture file
+     */
+    private final MappedByteBuffer capture;
+
+    /**
+     * True to play records back at the speed they were recorded
+     */
+    private final boolean realTime;
+
+    /**
+     * True to start over at the beginning when the capture ends
+     */
+    private final boolean loop;
+
+    /**
+     * The number of data bytes left in the current record
+     */
+    private int recordRemaining;
+
+    /**
+     * The recorded RobotClock.nanoTime() of the first record
+     */
+    private long firstRecordTime;
+
+    /**
+     * The recorded RobotClock.nanoTime() of the last record read
+     */
+    private long lastRecordTime;
+
+    /**
+     * The RobotClock.nanoTime() when replay started
+     */
+    private long replayStartTime;
+
+    /**
+     * True once the first read has started the replay
+     */
+    private boolean started;
+
+    /**
+     * Constructs a replay of the given capture file.
+     * @param file
+     *  The capture file saved by RecordingTransport
+     * @param realTime
+     *  True to play back at the speed recorded, false to play back as fast as possible
+     * @param loop
+     *  True to start over when the capture ends, false to return zeros
+     * @throws IOException
+     *  If the file cannot be mapped
+     */
+    public ReplayTransport(Path file, boolean realTime, boolean loop) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            capture = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.realTime = realTime;
+        this.loop = loop;
+        firstRecordTime = capture.remaining() >= RecordingTransport.RECORD_HEADER_SIZE ? capture.getLong(0) : 0;
+        lastRecordTime = firstRecordTime;
+    }
+
+    @Override
+    public synchronized int read(byte[] buffer, int count)
+    {
+        if(!started)
+        {
+            replayStartTime = RobotClock.nanoTime();
+            started = true;
+        }
+
+        int index = 0;
+        while(index < count)
+        {
+            if(recordRemaining == 0 && (!isRecordDue() || !nextRecord()))
+            {
+                //The capture is over or the next record is not due, so act like an idle pixy
+                while(index < count)
+                {
+                    buffer[index++] = 0;
+                }
+                break;
+            }
+
+            int length = Math.min(count - index, recordRemaining);
+            capture.get(buffer, index, length);
+            index += length;
+            recordRemaining -= length;
+        }
+
+        return count;
+    }
+
+    /**
+     * Checks if the next record may be read yet. In real time mode a record
+     * is due once as much time has passed as when it was recorded, or right
+     * away if it is in the same burst as the record before it.
+     * @return
+     *  True if the next record is due or there is no next record
+     */
+    private boolean isRecordDue()
+    {
+        if(!realTime || capture.remaining() < RecordingTransport.RECORD_HEADER_SIZE)
+        {
+            return true;
+        }
+
+        long recordTime = capture.getLong(capture.position());
+        if(recordTime - lastRecordTime <= BURST_TIME)
+        {
+            return true;
+        }
+
+        return replayStartTime + (recordTime - firstRecordTime) - RobotClock.nanoTime() <= 0;
+    }
+
+    /**
+     * Moves to the next record, starting over at the end when looping.
+     * @return
+     *  True if there is another record, false if the capture is over
+     */
+    private boolean nextRecord()
+    {
+        if(capture.remaining() < RecordingTransport.RECORD_HEADER_SIZE)
+        {
+            if(!loop || capture.limit() == 0)
+            {
+                return false;
+            }
+            capture.rewind();
+            replayStartTime = RobotClock.nanoTime();
+        }
+
+        lastRecordTime = capture.getLong();
+        recordRemaining = Math.min(capture.getInt(), capture.remaining());
+        return true;
+    }
+
+    @Override
+    public int write(byte[] buffer, int count)
+    {
+        return count;
+    }
+
+    /**
+     * Returns whether every byte of the capture has been read.
+     * @return
+     *  True if the capture is over, always false when looping
+     */
+    public synchronized boolean isFinished()
+    {
+        return !loop && recordRemaining == 0 && capture.remaining() < RecordingTransport.RECORD_HEADER_SIZE;
+    }
+}
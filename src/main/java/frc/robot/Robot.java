@@ -49,6 +49,21 @@ public class Robot extends TimedRobot
      */
     private PixyController lineUpPixy;
 
+    /**
+     * Reads both pixy cams from one thread so each pixy does not need its own
+     */
+    private PixyScheduler pixyScheduler;
+
+    /**
+     * Times the parts of teleopPeriodic() so we can see what makes a loop run long
+     */
+    private LoopProfiler teleopProfiler;
+
+    /**
+     * The profiler section for the sleep at the end of the loop
+     */
+    private int sleepSection;
+
     /**
      * This function is run when the robot is first started up and should be used
      * for any initialization code.
@@ -56,23 +71,34 @@ public class Robot extends TimedRobot
     @Override
     public void robotInit() 
     {
+        //Open a binary log of what the robot sees, read it later with BinaryLogReader
+        BinaryLog log = BinaryLog.open();
+        DashboardPublisher.getInstance().setLog(log);
+
         //Create LEDController as an instance variable for use throughout the whole class....
         orangeLED = new LEDController(0);
+        orangeLED.setLog(log);
         orangeLED.setMode(LEDController.Mode.OFF);
 
         //Or create it then forget about it and have it continuously flash
         new LEDController(1).setMode(LEDController.Mode.FLASH);
 
+        //Create one scheduler to read all of the pixy cams
+        pixyScheduler = new PixyScheduler();
+        pixyScheduler.start();
+
         //Create a pixycam with manual control
         cargoPixy = new PixyCam(SPI.Port.kOnboardCS0);
+        cargoPixy.setLog(log, "Cargo Pixy");
 
-        //Start the pixy cam and let it stay on if we always want to track cargo
-        new Thread(cargoPixy).start();
+        //Add the pixy cam to the scheduler and let it stay on if we always want to track cargo
+        //Every frame is read with a period of 20 milliseconds
+        pixyScheduler.add(cargoPixy, 20);
         //The cargoPixy data is now being processed for us to use at any time
 
         //Create a pixy that we can start and stop that takes care of the light source
-        //and thread for us
-        lineUpPixy = new PixyController(SPI.Port.kOnboardCS1, 2);
+        //and reading for us
+        lineUpPixy = new PixyController(SPI.Port.kOnboardCS1, 2, pixyScheduler, 20);
         //We can now start and stop the linUpPixy data processing and turn the LEDs on and off as we need
         lineUpPixy.startTracking();
 
@@ -85,13 +111,34 @@ public class Robot extends TimedRobot
             SmartDashboard.putBoolean("Data name: ", true);
         }, 
         ValuePrinter.NORMAL_PRIORITY); //Use one of the default values for printing priority or 
-    }                                  //use custom wait time between prints using miliseconds
+                                       //use custom wait time between prints using miliseconds
+
+        //Pixy metrics are printers too, name them so the two pixys have different keys
+        cargoPixy.getMetrics().setName("Cargo Pixy");
+        new ValuePrinter(cargoPixy.getMetrics(), ValuePrinter.LOW_PRIORITY);
+
+        //Keep dashboard values under 20 kilobytes a second, low priority printers slow down to fit
+        TelemetryScheduler.getInstance().getGovernor().setBudget(20_000);
+        new ValuePrinter(TelemetryScheduler.getInstance().getGovernor(), ValuePrinter.LOWEST_PRIORITY);
+
+        //Time teleopPeriodic() against the 20 millisecond loop, add sections before the loop runs
+        teleopProfiler = new LoopProfiler("Teleop", 20);
+        sleepSection = teleopProfiler.addSection("Sleep");
+        new ValuePrinter(teleopProfiler, ValuePrinter.LOW_PRIORITY);
+    }
 
     @Override
     public void teleopPeriodic() 
     {
+        teleopProfiler.startLoop();
+
+        //Wrap each part of the loop in a section so an overrun names the slow part
         //Use utility class to sleep the thread without needing a try catch block
         //Always put a short sleep here
+        teleopProfiler.start(sleepSection);
         Util.threadSleep(1);
+        teleopProfiler.stop(sleepSection);
+
+        teleopProfiler.endLoop();
     }
 }
\ No newline at end of file
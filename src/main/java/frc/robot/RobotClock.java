@@ -0,0 +1,90 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+/**
+ * The clock every part of the robot code reads time from. Normally it is
+ * System.nanoTime(), but a Simulation switches it to simulated time that
+ * only moves when the simulation steps it, so a whole match can run as
+ * fast as the computer allows and give the same results every run.
+ *
+ */
+public final class RobotClock
+{
+    /**
+     * True while the clock is running on simulated time
+     */
+    private static volatile boolean simulated;
+
+    /**
+     * The current simulated time in nanoseconds
+     */
+    private static volatile long simulatedTime;
+
+    /**
+     * Not constructed, the clock is only used through its static methods.
+     */
+    private RobotClock()
+    {
+    }
+
+    /**
+     * Returns the current time, use it in place of System.nanoTime().
+     * @return
+     *  The time in nanoseconds, only differences between times mean anything
+     */
+    public static long nanoTime()
+    {
+        return simulated ? simulatedTime : System.nanoTime();
+    }
+
+    /**
+     * Returns whether the clock is running on simulated time. Nothing should
+     * sleep or start threads of its own while it is, since time only moves
+     * when the simulation steps it.
+     * @return
+     *  True if time is simulated
+     */
+    public static boolean isSimulated()
+    {
+        return simulated;
+    }
+
+    /**
+     * Switches the clock to simulated time.
+     * @param startTime
+     *  The simulated time to start at in nanoseconds
+     */
+    static synchronized void simulate(long startTime)
+    {
+        simulatedTime = startTime;
+        simulated = true;
+    }
+
+    /**
+     * Moves simulated time forward. Time never goes backward, so an earlier
+     * time is ignored.
+     * @param time
+     *  The simulated time to move to in nanoseconds
+     */
+    static synchronized void advanceTo(long time)
+    {
+        if(time - simulatedTime > 0)
+        {
+            simulatedTime = time;
+        }
+    }
+
+    /**
+     * Switches the clock back to System.nanoTime().
+     */
+    static synchronized void useSystemTime()
+    {
+        simulated = false;
+    }
+}
@@ -0,0 +1,44 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import edu.wpi.first.wpilibj.SPI;
+
+/**
+ * Transport that reads a pixy through the roboRIO SPI.
+ * 
+ */
+public class SPITransport implements PixyTransport
+{
+    /**
+     * The SPI connection to the pixy
+     */
+    private final SPI connection;
+
+    /**
+     * Constructs a transport using an SPI connection that is already set up.
+     * @param connection
+     *  The SPI connection to the pixy
+     */
+    public SPITransport(SPI connection)
+    {
+        this.connection = connection;
+    }
+
+    @Override
+    public int read(byte[] buffer, int count)
+    {
+        return connection.read(true, buffer, count);
+    }
+
+    @Override
+    public int write(byte[] buffer, int count)
+    {
+        return connection.write(buffer, count);
+    }
+}
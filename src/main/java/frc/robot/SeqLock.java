@@ -0,0 +1,99 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Sequence lock for publishing a group of values from one writer thread to
+ * any number of reader threads. The writer never waits on readers, and
+ * readers retry instead of blocking when they overlap a write.
+ *
+ * Writers call beginWrite(), change the values, then call endWrite().
+ * Readers copy the values in a loop like:
+ *
+ * <pre>
+ * int seq;
+ * do
+ * {
+ *     seq = lock.readBegin();
+ *     //Copy values
+ * }
+ * while(lock.readRetry(seq));
+ * </pre>
+ *
+ * Only one thread may write at a time.
+ *
+ */
+class SeqLock
+{
+    /**
+     * The write count, odd while a write is in progress
+     */
+    private volatile int sequence;
+
+    /**
+     * Marks the start of a write so readers will retry.
+     */
+    void beginWrite()
+    {
+        sequence = sequence + 1;
+        //Keep the value writes from moving before the odd sequence
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Marks the end of a write so the new values are visible to readers.
+     */
+    void endWrite()
+    {
+        sequence = sequence + 1;
+    }
+
+    /**
+     * Waits for any write in progress to finish and starts a read.
+     * @return
+     *  The sequence to pass to readRetry()
+     */
+    int readBegin()
+    {
+        int seq = sequence;
+        while((seq & 1) != 0)
+        {
+            Thread.onSpinWait();
+            seq = sequence;
+        }
+
+        return seq;
+    }
+
+    /**
+     * Checks if the values read since readBegin() may have been changed
+     * by a write.
+     * @param seq
+     *  The sequence returned by readBegin()
+     * @return
+     *  True if the values must be read again, false if they are consistent
+     */
+    boolean readRetry(int seq)
+    {
+        //Keep the value reads from moving after the sequence check
+        VarHandle.loadLoadFence();
+        return sequence != seq;
+    }
+
+    /**
+     * Returns the number of completed writes.
+     * @return
+     *  The number of writes
+     */
+    int getWriteCount()
+    {
+        return sequence >>> 1;
+    }
+}
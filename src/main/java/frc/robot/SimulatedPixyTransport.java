@@ -0,0 +1,205 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport that stands in for a pixy on the SPI by making up frames. Once
+ * every period a scene fills a frame with the blocks the pixy would see at
+ * that time, and the frame is sent with the same sync words, block layout,
+ * and checksums as a real pixy, so PixyCam parses it like any other frame.
+ * Between frames reads return zeros like an idle pixy. A frame that is
+ * never read is dropped when the next one is due, like on a real pixy.
+ *
+ * Blocks are given in the rotated coordinates PixyCam reads them as, and
+ * are rotated back when sent. Only the original pixy protocol is made, not
+ * the Pixy2 one.
+ *
+ * Writes are ignored.
+ *
+ */
+public class SimulatedPixyTransport implements PixyTransport
+{
+    /**
+     * The word that starts every block
+     */
+    private static final int SYNC = 0xaa55;
+
+    /**
+     * The number of bytes in each block sent after its sync word
+     */
+    private static final int BLOCK_SIZE = 12;
+
+    /**
+     * Decides what the pixy sees
+     */
+    private final Scene scene;
+
+    /**
+     * The time between frames in nanoseconds
+     */
+    private final long period;
+
+    /**
+     * The frame the scene fills, reused for every frame
+     */
+    private final PixyFrame frame;
+
+    /**
+     * The bytes of the frame being sent
+     */
+    private final byte[] pending;
+
+    /**
+     * The number of bytes of the current frame
+     */
+    private int pendingLength;
+
+    /**
+     * The index of the next byte of the current frame to send
+     */
+    private int pendingIndex;
+
+    /**
+     * The RobotClock.nanoTime() the next frame is captured, 0 before the first read
+     */
+    private long nextFrameTime;
+
+    /**
+     * The number of frames sent
+     */
+    private volatile long frames;
+
+    /**
+     * Constructs a transport that sends a frame of the scene every period.
+     * @param scene
+     *  Fills each frame with what the pixy sees
+     * @param period
+     *  The time between frames in milliseconds, 20 for a pixy
+     */
+    public SimulatedPixyTransport(Scene scene, int period)
+    {
+        this.scene = scene;
+        this.period = TimeUnit.MILLISECONDS.toNanos(period);
+        frame = new PixyFrame();
+        pending = new byte[4 + frame.getCapacity() * (BLOCK_SIZE + 2)];
+    }
+
+    @Override
+    public synchronized int read(byte[] buffer, int count)
+    {
+        long now = RobotClock.nanoTime();
+        if(nextFrameTime == 0)
+        {
+            nextFrameTime = now;
+        }
+
+        if(pendingIndex == pendingLength && now - nextFrameTime >= 0)
+        {
+            makeFrame(nextFrameTime);
+
+            //Frames nobody read in time are gone
+            long periods = (now - nextFrameTime) / period + 1;
+            nextFrameTime += periods * period;
+        }
+
+        int length = Math.min(count, pendingLength - pendingIndex);
+        System.arraycopy(pending, pendingIndex, buffer, 0, length);
+        pendingIndex += length;
+        for(int i = length; i < count; i++)
+        {
+            buffer[i] = 0;
+        }
+
+        return count;
+    }
+
+    /**
+     * Fills the next frame from the scene and encodes it to be sent.
+     * @param time
+     *  The RobotClock.nanoTime() the frame is captured
+     */
+    private void makeFrame(long time)
+    {
+        frame.clear();
+        frame.setTime(time);
+        scene.fill(time, frame);
+
+        pendingIndex = 0;
+        pendingLength = 0;
+        int count = frame.getBlockCount();
+        if(count == 0)
+        {
+            return;
+        }
+
+        //A frame starts with two sync words, and every block after the first has its own
+        putWord(SYNC);
+        for(int block = 0; block < count; block++)
+        {
+            int signature = frame.getSignature(block);
+            int x = frame.getX(block);
+            int y = frame.getY(block);
+            int width = frame.getWidth(block);
+            int height = frame.getHeight(block);
+
+            //Switch x with y and width with height since pixy is rotated 90
+            putWord(SYNC);
+            putWord((signature + x + y + width + height) & 0xFFFF);
+            putWord(signature);
+            putWord(y);
+            putWord(x);
+            putWord(height);
+            putWord(width);
+        }
+        frames = frames + 1;
+    }
+
+    /**
+     * Adds a word to the frame being sent, high byte first.
+     * @param word
+     *  The unsigned 16 bit value to add
+     */
+    private void putWord(int word)
+    {
+        pending[pendingLength++] = (byte) (word >> 8);
+        pending[pendingLength++] = (byte) word;
+    }
+
+    @Override
+    public int write(byte[] buffer, int count)
+    {
+        return count;
+    }
+
+    /**
+     * Returns the number of frames sent, frames without blocks are not sent.
+     * @return
+     *  The frame count
+     */
+    public long getFrames()
+    {
+        return frames;
+    }
+
+    /**
+     * Interface for deciding what a simulated pixy sees.
+     */
+    public interface Scene
+    {
+        /**
+         * Adds the blocks the pixy sees at the given time to the frame.
+         * @param time
+         *  The RobotClock.nanoTime() the frame is captured
+         * @param frame
+         *  The empty frame to add blocks to
+         */
+        void fill(long time, PixyFrame frame);
+    }
+}
@@ -0,0 +1,316 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the robot code on simulated time from one thread, so a whole match
+ * of pixy input, LED patterns, and telemetry runs as fast as the computer
+ * allows and does the same thing every run. Making a simulation switches
+ * RobotClock to simulated time, after which the LED and telemetry
+ * schedulers and pixy schedulers do not start threads, PCMOutput does not
+ * make solenoids, and sleeps return right away. Instead the simulation
+ * jumps time straight to the next thing that is due and runs it.
+ *
+ * Make the simulation before anything else, read pixys through a
+ * SimulatedPixyTransport or a ReplayTransport, and add every PixyScheduler
+ * and periodic task to the simulation.
+ * <pre>
+ * try(Simulation simulation = new Simulation())
+ * {
+ *     //Set up pixys, LEDs, and printers
+ *     simulation.addPixyScheduler(scheduler);
+ *     simulation.addPeriodic(() -&gt; teleop(), 20);
+ *     simulation.run(Simulation.MATCH_TIME);
+ * }
+ * </pre>
+ *
+ */
+public class Simulation implements AutoCloseable
+{
+    /**
+     * The length of a match in milliseconds, 15 seconds of sandstorm and 135 of teleop
+     */
+    public static final int MATCH_TIME = 150_000;
+
+    /**
+     * The simulated time the clock starts at in nanoseconds. It is not 0,
+     * which many classes use to mean something has not happened yet.
+     */
+    public static final long START_TIME = 1_000_000_000L;
+
+    /**
+     * The time between LED scheduler ticks in nanoseconds
+     */
+    private static final long LED_TICK = TimeUnit.MILLISECONDS.toNanos(LEDScheduler.TICK_TIME);
+
+    /**
+     * The time between telemetry scheduler ticks in nanoseconds
+     */
+    private static final long TELEMETRY_TICK = TimeUnit.MILLISECONDS.toNanos(TelemetryScheduler.TICK_TIME);
+
+    /**
+     * The pixy schedulers stepped by the simulation
+     */
+    private final List<PixyScheduler> pixySchedulers;
+
+    /**
+     * The periodic tasks run by the simulation
+     */
+    private final List<Periodic> periodics;
+
+    /**
+     * The RobotClock.nanoTime() of the next LED tick
+     */
+    private long nextLEDTick;
+
+    /**
+     * The RobotClock.nanoTime() of the next telemetry tick
+     */
+    private long nextTelemetryTick;
+
+    /**
+     * Constructs a simulation and switches the clock to simulated time.
+     */
+    public Simulation()
+    {
+        RobotClock.simulate(START_TIME);
+        pixySchedulers = new ArrayList<>();
+        periodics = new ArrayList<>();
+        nextLEDTick = START_TIME;
+        nextTelemetryTick = START_TIME;
+    }
+
+    /**
+     * Adds a pixy scheduler to step in place of its thread.
+     * @param scheduler
+     *  The scheduler to step
+     */
+    public void addPixyScheduler(PixyScheduler scheduler)
+    {
+        pixySchedulers.add(scheduler);
+    }
+
+    /**
+     * Adds a task to run once every period, like the periodic methods of a
+     * TimedRobot. Tasks due at the same time run in the order they were added.
+     * @param task
+     *  The task to run
+     * @param period
+     *  The time between runs in milliseconds
+     */
+    public void addPeriodic(Runnable task, int period)
+    {
+        long periodNanos = TimeUnit.MILLISECONDS.toNanos(period);
+        periodics.add(new Periodic(task, periodNanos, RobotClock.nanoTime() + periodNanos));
+    }
+
+    /**
+     * Runs the simulation for the given time. Each step time jumps to the
+     * next thing due, then pixys are polled, then periodic tasks run, then
+     * the LEDs and telemetry tick.
+     * @param millis
+     *  The simulated time to run for in milliseconds
+     */
+    public void run(int millis)
+    {
+        long end = RobotClock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while(true)
+        {
+            long now = RobotClock.nanoTime();
+            long next = end;
+
+            for(int i = 0; i < pixySchedulers.size(); i++)
+            {
+                next = earliest(next, pixySchedulers.get(i).step(now));
+            }
+
+            for(int i = 0; i < periodics.size(); i++)
+            {
+                Periodic periodic = periodics.get(i);
+                if(periodic.next - now <= 0)
+                {
+                    periodic.task.run();
+                    periodic.next += periodic.period;
+                }
+                next = earliest(next, periodic.next);
+            }
+
+            if(nextLEDTick - now <= 0)
+            {
+                LEDScheduler.getInstance().tick();
+                nextLEDTick += LED_TICK;
+            }
+            next = earliest(next, nextLEDTick);
+
+            if(nextTelemetryTick - now <= 0)
+            {
+                TelemetryScheduler.getInstance().tick();
+                nextTelemetryTick += TELEMETRY_TICK;
+            }
+            next = earliest(next, nextTelemetryTick);
+
+            //Things due at the end are run by the next call
+            if(next - end >= 0)
+            {
+                RobotClock.advanceTo(end);
+                return;
+            }
+            RobotClock.advanceTo(next);
+        }
+    }
+
+    /**
+     * Returns the simulated time since the simulation started.
+     * @return
+     *  The elapsed time in milliseconds
+     */
+    public long getElapsedTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(RobotClock.nanoTime() - START_TIME);
+    }
+
+    /**
+     * Switches the clock back to real time. The schedulers stay without
+     * threads until something new is added to them.
+     */
+    @Override
+    public void close()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Returns the earlier of two times.
+     * @param time
+     *  A RobotClock.nanoTime()
+     * @param other
+     *  Another RobotClock.nanoTime()
+     * @return
+     *  The earlier time
+     */
+    private static long earliest(long time, long other)
+    {
+        return other - time < 0 ? other : time;
+    }
+
+    /**
+     * Runs a simulated match of a pixy tracking a cargo ball that comes and
+     * goes, with the orange LEDs showing when it is tracked, the metrics
+     * printed to the dashboard, and everything written to a binary log. The
+     * same match gives the same log every run.
+     * @param args
+     *  Not used
+     */
+    public static void main(String[] args)
+    {
+        try(Simulation simulation = new Simulation())
+        {
+            BinaryLog log = BinaryLog.open();
+            DashboardPublisher.getInstance().setLog(log);
+
+            //The ball sweeps across the view and is out of sight one second in every four
+            SimulatedPixyTransport transport = new SimulatedPixyTransport((time, frame) ->
+            {
+                double seconds = (time - START_TIME) / 1e9;
+                if(seconds % 4 < 3)
+                {
+                    int x = PixyFrame.CENTER_X + (int) Math.round(60 * Math.sin(seconds));
+                    frame.addBlock(1, x, PixyFrame.CENTER_Y, 30, 30);
+                }
+            }, 20);
+            PixyCam cargoPixy = new PixyCam(transport, PixyFrame.DEFAULT_CAPACITY);
+            cargoPixy.setLog(log, "Cargo Pixy");
+            cargoPixy.getMetrics().setName("Cargo Pixy");
+
+            PixyScheduler pixyScheduler = new PixyScheduler();
+            pixyScheduler.add(cargoPixy, 20);
+            simulation.addPixyScheduler(pixyScheduler);
+
+            LEDController orangeLED = new LEDController(0);
+            orangeLED.setLog(log);
+            new LEDController(1).setMode(LEDController.Mode.FLASH);
+            simulation.addPeriodic(new Runnable()
+            {
+                /**
+                 * True if the cargo pixy was tracking in the last loop
+                 */
+                private boolean cargoTracked;
+
+                @Override
+                public void run()
+                {
+                    boolean tracking = cargoPixy.isTracking();
+                    if(tracking != cargoTracked)
+                    {
+                        orangeLED.setMode(tracking ? LEDController.Mode.ON : LEDController.Mode.OFF);
+                        cargoTracked = tracking;
+                    }
+                }
+            }, 20);
+
+            new ValuePrinter(cargoPixy.getMetrics(), ValuePrinter.LOW_PRIORITY);
+            new ValuePrinter(TelemetryScheduler.getInstance().getGovernor(), ValuePrinter.LOWEST_PRIORITY);
+
+            long start = System.nanoTime();
+            simulation.run(MATCH_TIME);
+            long realTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            System.out.println("Simulated " + simulation.getElapsedTime() + " ms in " + realTime + " ms");
+            System.out.println("Frames sent: " + transport.getFrames()
+                + ", read: " + cargoPixy.getMetrics().getFrames());
+            System.out.println("PCM writes: " + PCMOutput.getInstance().getWrites());
+            System.out.println("Dashboard updates: " + DashboardPublisher.getInstance().getUpdates());
+
+            if(log != null)
+            {
+                log.close();
+            }
+        }
+    }
+
+    /**
+     * A task run once every period.
+     */
+    private static class Periodic
+    {
+        /**
+         * The task to run
+         */
+        private final Runnable task;
+
+        /**
+         * The time between runs in nanoseconds
+         */
+        private final long period;
+
+        /**
+         * The RobotClock.nanoTime() of the next run
+         */
+        private long next;
+
+        /**
+         * Constructs a periodic task.
+         * @param task
+         *  The task to run
+         * @param period
+         *  The time between runs in nanoseconds
+         * @param next
+         *  The RobotClock.nanoTime() of the first run
+         */
+        private Periodic(Runnable task, long period, long next)
+        {
+            this.task = task;
+            this.period = period;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps dashboard telemetry under a bandwidth budget. The TelemetryScheduler
+ * tells it how many bytes and updates each print sent through the
+ * DashboardPublisher, and once a second it compares the rate to the budget.
+ * Over budget, the lowest priority bucket that sent anything that second and can
+ * still slow down prints half as often; well under budget, the highest
+ * priority bucket that was slowed speeds back up. The highest priority
+ * bucket is never slowed.
+ *
+ * Only values sent through the DashboardPublisher are measured, values put
+ * straight on the SmartDashboard are not.
+ *
+ * Updated by the TelemetryScheduler thread. It is a Printer, so it can be
+ * put on the SmartDashboard with a ValuePrinter.
+ *
+ */
+public class TelemetryGovernor implements Printer
+{
+    /**
+     * The default budget in bytes per second
+     */
+    public static final int DEFAULT_BUDGET = 50_000;
+
+    /**
+     * The most a bucket's wait time is multiplied by
+     */
+    public static final int MAX_SLOWDOWN = 8;
+
+    /**
+     * The fraction of the budget the rate must be under before buckets speed back up
+     */
+    private static final double RELAX_FRACTION = 0.7;
+
+    /**
+     * The time the rate is measured over in nanoseconds
+     */
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The names of the priority buckets for reports
+     */
+    private static final String[] BUCKET_NAMES = {"Highest", "High", "Normal", "Low", "Lowest"};
+
+    /**
+     * The budget in bytes per second
+     */
+    private volatile int budget;
+
+    /**
+     * The number each bucket's wait time is multiplied by
+     */
+    private final int[] slowdown;
+
+    /**
+     * The RobotClock.nanoTime() the current window started
+     */
+    private long windowStart;
+
+    /**
+     * True once the first window has started
+     */
+    private boolean started;
+
+    /**
+     * The bytes sent in the current window
+     */
+    private long windowBytes;
+
+    /**
+     * The bytes each bucket has sent in the current window
+     */
+    private final long[] bucketBytes;
+
+    /**
+     * The updates sent in the current window
+     */
+    private long windowUpdates;
+
+    /**
+     * The bytes per second sent in the last window
+     */
+    private volatile double rate;
+
+    /**
+     * The updates per second sent in the last window
+     */
+    private volatile double updateRate;
+
+    /**
+     * The number of times a bucket was slowed down
+     */
+    private volatile long throttles;
+
+    /*
+     * The dashboard entries for print(), made on the first print.
+     */
+    private DashboardPublisher.NumberEntry rateEntry;
+    private DashboardPublisher.NumberEntry updateRateEntry;
+    private DashboardPublisher.NumberEntry throttlesEntry;
+    private DashboardPublisher.NumberEntry[] slowdownEntries;
+
+    /**
+     * Constructs a governor with the default budget.
+     */
+    public TelemetryGovernor()
+    {
+        budget = DEFAULT_BUDGET;
+        slowdown = new int[BUCKET_NAMES.length];
+        bucketBytes = new long[BUCKET_NAMES.length];
+        for(int i = 0; i < slowdown.length; i++)
+        {
+            slowdown[i] = 1;
+        }
+    }
+
+    /**
+     * Sets the total bytes per second telemetry may send.
+     * @param bytesPerSecond
+     *  The budget
+     */
+    public void setBudget(int bytesPerSecond)
+    {
+        budget = bytesPerSecond;
+    }
+
+    /**
+     * Returns the total bytes per second telemetry may send.
+     * @return
+     *  The budget
+     */
+    public int getBudget()
+    {
+        return budget;
+    }
+
+    /**
+     * Returns the number a bucket's wait time is multiplied by.
+     * @param bucket
+     *  The bucket index, 0 for the highest priority
+     * @return
+     *  The slowdown, 1 if the bucket is not throttled
+     */
+    public int getSlowdown(int bucket)
+    {
+        return slowdown[bucket];
+    }
+
+    /**
+     * Returns the bytes per second sent in the last second.
+     * @return
+     *  The rate
+     */
+    public double getRate()
+    {
+        return rate;
+    }
+
+    /**
+     * Returns the updates per second sent in the last second.
+     * @return
+     *  The update rate
+     */
+    public double getUpdateRate()
+    {
+        return updateRate;
+    }
+
+    /**
+     * Returns the number of times a bucket was slowed down.
+     * @return
+     *  The throttle count
+     */
+    public long getThrottles()
+    {
+        return throttles;
+    }
+
+    /**
+     * Records what a printer sent in one print.
+     * @param printer
+     *  The printer that printed
+     * @param bytes
+     *  The bytes sent
+     * @param updates
+     *  The updates sent
+     */
+    void record(ValuePrinter printer, long bytes, long updates)
+    {
+        printer.addUsage(bytes, updates);
+        windowBytes += bytes;
+        windowUpdates += updates;
+        bucketBytes[printer.getBucket()] += bytes;
+    }
+
+    /**
+     * Measures the rate once a window has passed and slows down or speeds up a bucket.
+     * @param now
+     *  The current RobotClock.nanoTime()
+     */
+    void update(long now)
+    {
+        if(!started)
+        {
+            started = true;
+            windowStart = now;
+            return;
+        }
+
+        long elapsed = now - windowStart;
+        if(elapsed < WINDOW)
+        {
+            return;
+        }
+
+        double seconds = elapsed / 1e9;
+        double measured = windowBytes / seconds;
+        rate = measured;
+        updateRate = windowUpdates / seconds;
+        adjust(measured);
+        windowStart = now;
+        windowBytes = 0;
+        windowUpdates = 0;
+        Arrays.fill(bucketBytes, 0);
+    }
+
+    /**
+     * Slows down or speeds up a bucket for the rate measured over a window.
+     * @param measured
+     *  The bytes per second sent in the window
+     */
+    private void adjust(double measured)
+    {
+        if(measured > budget)
+        {
+            //Slow down the lowest priority bucket that sent anything this window and can
+            //still slow down, slowing a bucket with nothing to send would not help
+            for(int i = slowdown.length - 1; i > 0; i--)
+            {
+                if(bucketBytes[i] > 0 && slowdown[i] < MAX_SLOWDOWN)
+                {
+                    slowdown[i] *= 2;
+                    throttles = throttles + 1;
+                    return;
+                }
+            }
+        }
+        else if(measured < budget * RELAX_FRACTION)
+        {
+            //Speed up the highest priority bucket that was slowed down
+            for(int i = 1; i < slowdown.length; i++)
+            {
+                if(slowdown[i] > 1)
+                {
+                    slowdown[i] /= 2;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints the rates and the slowdown of each bucket to the SmartDashboard.
+     */
+    @Override
+    public void print()
+    {
+        if(rateEntry == null)
+        {
+            DashboardPublisher dashboard = DashboardPublisher.getInstance();
+            rateEntry = dashboard.getNumber("Telemetry Bytes/s", 100);
+            updateRateEntry = dashboard.getNumber("Telemetry Updates/s", 1);
+            throttlesEntry = dashboard.getNumber("Telemetry Throttles");
+            slowdownEntries = new DashboardPublisher.NumberEntry[BUCKET_NAMES.length];
+            for(int i = 0; i < slowdownEntries.length; i++)
+            {
+                slowdownEntries[i] = dashboard.getNumber("Telemetry " + BUCKET_NAMES[i] + " Slowdown");
+            }
+        }
+
+        rateEntry.set(rate);
+        updateRateEntry.set(updateRate);
+        throttlesEntry.set(throttles);
+        for(int i = 0; i < slowdownEntries.length; i++)
+        {
+            slowdownEntries[i].set(slowdown[i]);
+        }
+    }
+}
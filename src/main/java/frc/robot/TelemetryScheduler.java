@@ -0,0 +1,274 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every ValuePrinter from one thread. Each tick the printers that are
+ * due print in priority order, highest first, until the tick's time budget
+ * is used up. Printers that did not get to print stay due and print first
+ * in their bucket on the next tick, so a slow printer delays the lower
+ * priorities instead of every printer. A TelemetryGovernor measures what
+ * each print sends and slows down low priority printers to keep the total
+ * under a bandwidth budget.
+ *
+ */
+public class TelemetryScheduler
+{
+    /**
+     * The time between ticks in milliseconds
+     */
+    public static final int TICK_TIME = 20;
+
+    /**
+     * The default time printers may take each tick in milliseconds
+     */
+    public static final int DEFAULT_BUDGET = 5;
+
+    /**
+     * The most wait time of each priority bucket, highest priority first.
+     * Printers waiting longer than the last are in the last bucket.
+     */
+    private static final int[] BUCKETS =
+    {
+        ValuePrinter.HIGHEST_PRIORITY,
+        ValuePrinter.HIGH_PRIORITY,
+        ValuePrinter.NORMAL_PRIORITY,
+        ValuePrinter.LOW_PRIORITY,
+        ValuePrinter.LOWEST_PRIORITY
+    };
+
+    /**
+     * The scheduler shared by all value printers
+     */
+    private static TelemetryScheduler instance;
+
+    /**
+     * The printers being run, replaced instead of changed so ticks can
+     * loop through it without locking
+     */
+    private volatile ValuePrinter[] printers;
+
+    /**
+     * The time printers may take each tick in nanoseconds
+     */
+    private volatile long budget;
+
+    /**
+     * The number of prints put off to a later tick by the budget
+     */
+    private volatile long deferred;
+
+    /**
+     * Measures what printers send and decides how much to slow each bucket
+     */
+    private final TelemetryGovernor governor;
+
+    /**
+     * The executor running the ticks, null until a printer is added or after shutdown
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructs a scheduler with no printers.
+     */
+    private TelemetryScheduler()
+    {
+        printers = new ValuePrinter[0];
+        budget = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BUDGET);
+        governor = new TelemetryGovernor();
+    }
+
+    /**
+     * Returns the scheduler shared by all value printers.
+     * @return
+     *  The telemetry scheduler
+     */
+    public static synchronized TelemetryScheduler getInstance()
+    {
+        if(instance == null)
+        {
+            instance = new TelemetryScheduler();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Adds a printer to run, starting the thread if needed. No thread is
+     * started in a Simulation.
+     * @param printer
+     *  The printer to add
+     */
+    synchronized void add(ValuePrinter printer)
+    {
+        ValuePrinter[] current = printers;
+        ValuePrinter[] updated = new ValuePrinter[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = printer;
+        printers = updated;
+
+        //A simulation ticks the scheduler itself
+        if(executor == null && !RobotClock.isSimulated())
+        {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable ->
+            {
+                Thread thread = new Thread(runnable, "TelemetryScheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.scheduleAtFixedRate(this::tick, 0, TICK_TIME, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Removes a printer so it is not printed again.
+     * @param printer
+     *  The printer to remove
+     */
+    synchronized void remove(ValuePrinter printer)
+    {
+        ValuePrinter[] current = printers;
+        for(int i = 0; i < current.length; i++)
+        {
+            if(current[i] == printer)
+            {
+                ValuePrinter[] updated = new ValuePrinter[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                printers = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops the thread and removes every printer. Printers added after
+     * this start the thread again.
+     */
+    public synchronized void shutdown()
+    {
+        printers = new ValuePrinter[0];
+        if(executor != null)
+        {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    /**
+     * Sets the time printers may take each tick. The highest priority
+     * printer due always prints, even if it alone takes longer.
+     * @param budget
+     *  The budget in milliseconds
+     */
+    public void setBudget(int budget)
+    {
+        this.budget = TimeUnit.MILLISECONDS.toNanos(Math.max(0, budget));
+    }
+
+    /**
+     * Returns the governor keeping printers under the bandwidth budget.
+     * @return
+     *  The telemetry governor
+     */
+    public TelemetryGovernor getGovernor()
+    {
+        return governor;
+    }
+
+    /**
+     * Returns the number of printers being run.
+     * @return
+     *  The printer count
+     */
+    public int getPrinterCount()
+    {
+        return printers.length;
+    }
+
+    /**
+     * Returns the number of prints put off to a later tick because the
+     * budget was used up.
+     * @return
+     *  The deferred print count
+     */
+    public long getDeferred()
+    {
+        return deferred;
+    }
+
+    /**
+     * Returns the priority bucket of a wait time.
+     * @param waitTime
+     *  The time between prints in milliseconds
+     * @return
+     *  The bucket index, 0 for the highest priority
+     */
+    static int bucketOf(int waitTime)
+    {
+        for(int i = 0; i < BUCKETS.length - 1; i++)
+        {
+            if(waitTime <= BUCKETS[i])
+            {
+                return i;
+            }
+        }
+
+        return BUCKETS.length - 1;
+    }
+
+    /**
+     * Prints every printer that is due, highest priority first, until the
+     * budget is used up. Called by the scheduler thread, or by a Simulation.
+     */
+    void tick()
+    {
+        long start = RobotClock.nanoTime();
+        long end = start + budget;
+        ValuePrinter[] current = printers;
+        DashboardPublisher dashboard = DashboardPublisher.getInstance();
+        boolean printed = false;
+
+        for(int bucket = 0; bucket < BUCKETS.length; bucket++)
+        {
+            for(int i = 0; i < current.length; i++)
+            {
+                ValuePrinter printer = current[i];
+                if(printer.getBucket() != bucket || !printer.isDue(start))
+                {
+                    continue;
+                }
+
+                if(printed && RobotClock.nanoTime() - end > 0)
+                {
+                    deferred = deferred + 1;
+                    continue;
+                }
+
+                long bytes = dashboard.getBytes();
+                long updates = dashboard.getUpdates();
+                try
+                {
+                    printer.print(start, governor.getSlowdown(bucket));
+                }
+                catch(RuntimeException e)
+                {
+                    //Keep running the other printers
+                    e.printStackTrace();
+                }
+                governor.record(printer, dashboard.getBytes() - bytes, dashboard.getUpdates() - updates);
+                printed = true;
+            }
+        }
+        governor.update(start);
+    }
+}
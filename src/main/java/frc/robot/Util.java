@@ -7,28 +7,232 @@
 
 package frc.robot;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
 /**
- * Utility class for Thread.sleep() without having a try catch block.
- * 
+ * Utility class for Thread.sleep() without having a try catch block, and
+ * for waiting until deadlines measured with RobotClock.nanoTime().
+ *
  * @author NicoleEssner
- * 
+ *
  */
-public class Util 
+public class Util
 {
     /**
-     * Sleeps the thread for the given amount of time.
+     * Sleeps the thread for the given amount of time. If the thread is
+     * interrupted it stops sleeping and stays interrupted, so loops
+     * checking Thread.interrupted() still end. In a Simulation it returns
+     * right away, since time only moves when the simulation steps it.
      * @param millis
      *  The number of milliseconds to sleep the thread for
      */
     public static void threadSleep(int millis)
     {
-        try 
+        if(RobotClock.isSimulated())
+        {
+            return;
+        }
+
+        try
 		{
 			Thread.sleep(millis);
-		} 
-		catch (InterruptedException e) 
+		}
+		catch (InterruptedException e)
 		{
-			e.printStackTrace();
+			Thread.currentThread().interrupt();
 		}
     }
-}
\ No newline at end of file
+
+    /**
+     * Sleeps the thread until the given time.
+     * @param deadline
+     *  The RobotClock.nanoTime() to wake up at
+     * @return
+     *  True if the deadline was reached, false if the thread was interrupted,
+     *  in which case it stays interrupted
+     */
+    public static boolean sleepUntil(long deadline)
+    {
+        return sleepUntil(deadline, 0);
+    }
+
+    /**
+     * Sleeps the thread until shortly before the given time and then spins
+     * until it, since sleeps can wake up late by more than a millisecond.
+     * Spinning keeps a core busy, so keep the spin time short. In a
+     * Simulation it returns right away without moving time.
+     * @param deadline
+     *  The RobotClock.nanoTime() to wake up at
+     * @param spinNanos
+     *  The time before the deadline to stop sleeping and spin in nanoseconds
+     * @return
+     *  True if the deadline was reached, false if the thread was interrupted,
+     *  in which case it stays interrupted
+     */
+    public static boolean sleepUntil(long deadline, long spinNanos)
+    {
+        if(RobotClock.isSimulated())
+        {
+            return !Thread.currentThread().isInterrupted();
+        }
+
+        long remaining = deadline - RobotClock.nanoTime();
+        while(remaining > 0)
+        {
+            if(Thread.currentThread().isInterrupted())
+            {
+                return false;
+            }
+
+            if(remaining > spinNanos)
+            {
+                LockSupport.parkNanos(remaining - spinNanos);
+            }
+            else
+            {
+                Thread.onSpinWait();
+            }
+            remaining = deadline - RobotClock.nanoTime();
+        }
+
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Waits for evenly spaced periods measured from deadlines instead of
+     * sleeping a fixed time after each loop, so the time a loop takes does
+     * not add up into drift. A loop that runs past the next deadline counts
+     * as a missed deadline, and the timer starts the next period from then
+     * instead of running the missed periods back to back.
+     * <pre>
+     * Util.PeriodicTimer timer = new Util.PeriodicTimer(20);
+     * while(timer.waitForNextPeriod())
+     * {
+     *     //Loop code
+     * }
+     * </pre>
+     * Only one thread may wait on a timer.
+     */
+    public static class PeriodicTimer
+    {
+        /**
+         * The time between deadlines in nanoseconds
+         */
+        private final long period;
+
+        /**
+         * The time before each deadline to stop sleeping and spin in nanoseconds
+         */
+        private final long spin;
+
+        /**
+         * The RobotClock.nanoTime() of the last deadline
+         */
+        private long deadline;
+
+        /**
+         * True once the first deadline is set, until the timer is reset
+         */
+        private boolean started;
+
+        /**
+         * The number of deadlines missed
+         */
+        private volatile long missed;
+
+        /**
+         * How late the last missed deadline was in nanoseconds
+         */
+        private volatile long lastLateness;
+
+        /**
+         * Constructs a timer with the given period that only sleeps.
+         * @param periodMillis
+         *  The time between deadlines in milliseconds
+         */
+        public PeriodicTimer(int periodMillis)
+        {
+            this(TimeUnit.MILLISECONDS.toNanos(periodMillis), 0);
+        }
+
+        /**
+         * Constructs a timer with the given period that spins for the end of each wait.
+         * @param periodNanos
+         *  The time between deadlines in nanoseconds
+         * @param spinNanos
+         *  The time before each deadline to stop sleeping and spin in nanoseconds
+         */
+        public PeriodicTimer(long periodNanos, long spinNanos)
+        {
+            period = periodNanos;
+            spin = spinNanos;
+        }
+
+        /**
+         * Waits until the next deadline. The first call sets the first
+         * deadline one period from now.
+         * @return
+         *  True when the deadline is reached, false if the thread was interrupted
+         */
+        public boolean waitForNextPeriod()
+        {
+            long now = RobotClock.nanoTime();
+            if(!started)
+            {
+                started = true;
+                deadline = now;
+            }
+            deadline += period;
+
+            long late = now - deadline;
+            if(late > 0)
+            {
+                missed = missed + 1;
+                lastLateness = late;
+                deadline = now;
+                return !Thread.currentThread().isInterrupted();
+            }
+
+            return sleepUntil(deadline, spin);
+        }
+
+        /**
+         * Returns the RobotClock.nanoTime() of the deadline last waited for.
+         * @return
+         *  The deadline
+         */
+        public long getDeadline()
+        {
+            return deadline;
+        }
+
+        /**
+         * Returns the number of deadlines missed because a loop took longer than the period.
+         * @return
+         *  The missed deadline count
+         */
+        public long getMissed()
+        {
+            return missed;
+        }
+
+        /**
+         * Returns how late the last missed deadline was.
+         * @return
+         *  The lateness in milliseconds
+         */
+        public double getLastLateness()
+        {
+            return lastLateness / 1e6;
+        }
+
+        /**
+         * Starts the timer again so the next wait is one period from then.
+         */
+        public void reset()
+        {
+            started = false;
+        }
+    }
+}
@@ -7,14 +7,16 @@
 
 package frc.robot;
 
+import java.util.concurrent.TimeUnit;
+
 /**
- * Class used to start a thread that prints values with 
- * a given wait time between prints.
- * 
+ * Class used to print values with a given wait time between prints.
+ * All value printers are run by the TelemetryScheduler on one thread.
+ *
  * @author NicoleEssner, JoelNeppel
- * 
+ *
  */
-public class ValuePrinter 
+public class ValuePrinter
 {
     /*
      * The amount to sleep the thread, in milliseconds, for different priorities.
@@ -25,32 +27,52 @@ public class ValuePrinter
     public static final int LOW_PRIORITY = 1250;
     public static final int LOWEST_PRIORITY = 1750;
 
+    /**
+     * The values that will be printed
+     */
+    private final Printer printer;
+
     /**
      * The time to wait between prints.
      */
-    private int waitTime;
+    private volatile int waitTime;
+
+    /**
+     * The priority bucket of the wait time, 0 for the highest priority
+     */
+    private volatile int bucket;
+
+    /**
+     * The RobotClock.nanoTime() of the next print, only used by the scheduler thread
+     */
+    private long nextPrint;
+
+    /**
+     * About how many bytes this printer sent through the DashboardPublisher
+     */
+    private volatile long bytes;
+
+    /**
+     * The number of values this printer sent through the DashboardPublisher
+     */
+    private volatile long updates;
 
     /**
-     * Constructor for a value printer that creates a new thread
-     * and calles print() from the Printer interface and waits the
-     * given time before calling print() again.
+     * Constructor for a value printer that registers with the
+     * TelemetryScheduler, which calls print() from the Printer interface
+     * and waits the given time before calling print() again.
      * @param printer
      *  The values that will be printed
-     * @param timeBetween
+     * @param waitTime
      *  The time to wait between prints in milliseconds
      */
     public ValuePrinter(Printer printer, int waitTime)
     {
-        this.waitTime = waitTime;
+        this.printer = printer;
+        setWaitTime(waitTime);
+        nextPrint = RobotClock.nanoTime();
 
-        new Thread(()->
-        {
-            while(true)
-            {
-                printer.print();
-                Util.threadSleep(this.waitTime);
-            }
-        }).start();
+        TelemetryScheduler.getInstance().add(this);
     }
 
     /**
@@ -61,5 +83,92 @@ public class ValuePrinter
     public void setWaitTime(int waitTime)
     {
         this.waitTime = waitTime;
+        bucket = TelemetryScheduler.bucketOf(waitTime);
+    }
+
+    /**
+     * Returns the time between prints.
+     * @return
+     *  The time to wait between prints in milliseconds
+     */
+    public int getWaitTime()
+    {
+        return waitTime;
+    }
+
+    /**
+     * Returns about how many bytes this printer sent through the DashboardPublisher.
+     * @return
+     *  The estimated bytes sent
+     */
+    public long getBytes()
+    {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of values this printer sent through the DashboardPublisher.
+     * @return
+     *  The update count
+     */
+    public long getUpdates()
+    {
+        return updates;
+    }
+
+    /**
+     * Stops printing the values.
+     */
+    public void stop()
+    {
+        TelemetryScheduler.getInstance().remove(this);
+    }
+
+    /**
+     * Returns the priority bucket of the wait time.
+     * @return
+     *  The bucket index, 0 for the highest priority
+     */
+    int getBucket()
+    {
+        return bucket;
+    }
+
+    /**
+     * Returns whether the printer should print.
+     * @param now
+     *  The current RobotClock.nanoTime()
+     * @return
+     *  True if the next print time has passed
+     */
+    boolean isDue(long now)
+    {
+        return now - nextPrint >= 0;
+    }
+
+    /**
+     * Prints the values and sets the time of the next print.
+     * @param now
+     *  The current RobotClock.nanoTime()
+     * @param slowdown
+     *  The number the wait time is multiplied by to stay in the telemetry budget
+     */
+    void print(long now, int slowdown)
+    {
+        nextPrint = now + TimeUnit.MILLISECONDS.toNanos(waitTime) * slowdown;
+        printer.print();
+    }
+
+    /**
+     * Adds what one print sent to the totals.
+     * @param printBytes
+     *  The bytes sent
+     * @param printUpdates
+     *  The values sent
+     */
+    void addUsage(long printBytes, long printUpdates)
+    {
+        bytes = bytes + printBytes;
+        updates = updates + printUpdates;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,149 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that records written to a BinaryLog read back the same through
+ * BinaryLogReader.
+ *
+ */
+public class BinaryLogTest
+{
+    /**
+     * The file extension of logs
+     */
+    private static final String EXTENSION = ".frclog";
+
+    /**
+     * The folder logs are written in
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsBackEveryRecordType() throws IOException
+    {
+        Path path = folder.getRoot().toPath().resolve("test" + EXTENSION);
+        PixyFrame frame = new PixyFrame();
+        frame.addBlock(1, 20, 30, 10, 12);
+        frame.addBlock(4, 180, 300, 5, 6);
+        frame.setTime(RobotClock.nanoTime());
+
+        try(BinaryLog log = new BinaryLog(path, 64 * 1024))
+        {
+            int speed = log.key("Speed");
+            int mode = log.key("LED 0 Mode");
+            int pixy = log.key("Pixy");
+            assertEquals(speed, log.key("Speed"));
+
+            log.logNumber(speed, 2.5);
+            log.logString(mode, "FLASH");
+            log.logFrame(pixy, frame);
+        }
+
+        BinaryLogReader reader = new BinaryLogReader(path);
+        assertTrue(reader.next());
+        assertEquals(BinaryLog.NUMBER, reader.getType());
+        assertEquals("Speed", reader.getName());
+        assertEquals(2.5, reader.getNumber(), 0);
+
+        assertTrue(reader.next());
+        assertEquals(BinaryLog.STRING, reader.getType());
+        assertEquals("LED 0 Mode", reader.getName());
+        assertEquals("FLASH", reader.getString());
+
+        assertTrue(reader.next());
+        assertEquals(BinaryLog.FRAME, reader.getType());
+        assertEquals("Pixy", reader.getName());
+        PixyFrame read = reader.getFrame();
+        assertEquals(2, read.getBlockCount());
+        assertEquals(4, read.getSignature(1));
+        assertEquals(180, read.getX(1));
+        assertEquals(300, read.getY(1));
+        assertEquals(5, read.getWidth(1));
+        assertEquals(6, read.getHeight(1));
+        assertEquals(frame.getTime(), read.getTime());
+
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void closingCutsTheFileToTheRecords() throws IOException
+    {
+        Path path = folder.getRoot().toPath().resolve("small" + EXTENSION);
+        BinaryLog log = new BinaryLog(path, 64 * 1024);
+        log.logNumber(log.key("Value"), 1);
+        log.close();
+
+        assertTrue(Files.size(path) < 64 * 1024);
+        BinaryLogReader reader = new BinaryLogReader(path);
+        assertTrue(reader.next());
+        assertEquals(1, reader.getNumber(), 0);
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void dropsRecordsWhenFull() throws IOException
+    {
+        Path path = folder.getRoot().toPath().resolve("full" + EXTENSION);
+        int count = 0;
+        try(BinaryLog log = new BinaryLog(path, 256))
+        {
+            int key = log.key("Value");
+            for(int i = 0; i < 20; i++)
+            {
+                log.logNumber(key, i);
+            }
+            assertTrue(log.getDropped() > 0);
+        }
+
+        BinaryLogReader reader = new BinaryLogReader(path);
+        while(reader.next())
+        {
+            assertEquals(count, reader.getNumber(), 0);
+            count++;
+        }
+        assertTrue(count > 0 && count < 20);
+    }
+
+    @Test
+    public void openKeepsOnlyTheNewestLogs() throws IOException
+    {
+        Path directory = folder.newFolder("logs").toPath();
+        for(int i = 0; i < 4; i++)
+        {
+            Files.createFile(directory.resolve("2019010" + i + "-120000" + EXTENSION));
+        }
+
+        BinaryLog log = BinaryLog.open(directory, 3);
+        try
+        {
+            assertFalse(Files.exists(directory.resolve("20190100-120000" + EXTENSION)));
+            assertFalse(Files.exists(directory.resolve("20190101-120000" + EXTENSION)));
+            assertTrue(Files.exists(directory.resolve("20190102-120000" + EXTENSION)));
+            assertTrue(Files.exists(directory.resolve("20190103-120000" + EXTENSION)));
+            assertTrue(Files.exists(log.getPath()));
+        }
+        finally
+        {
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Transport for tests that sends the bytes it is given once and then zeros
+ * like an idle pixy, and keeps every byte written to it.
+ *
+ */
+class BufferTransport implements PixyTransport
+{
+    /**
+     * The bytes waiting to be read
+     */
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    /**
+     * The bytes written by the pixy
+     */
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+    /**
+     * The index of the next pending byte to read
+     */
+    private int index;
+
+    /**
+     * Adds bytes to the end of the ones waiting to be read.
+     * @param bytes
+     *  The bytes to add
+     * @return
+     *  This transport
+     */
+    BufferTransport add(byte... bytes)
+    {
+        pending.write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    /**
+     * Adds a big endian word to the end of the bytes waiting to be read.
+     * @param word
+     *  The unsigned 16 bit value to add
+     * @return
+     *  This transport
+     */
+    BufferTransport addWord(int word)
+    {
+        return add((byte) (word >> 8), (byte) word);
+    }
+
+    /**
+     * Adds a little endian word to the end of the bytes waiting to be read.
+     * @param word
+     *  The unsigned 16 bit value to add
+     * @return
+     *  This transport
+     */
+    BufferTransport addLittleWord(int word)
+    {
+        return add((byte) word, (byte) (word >> 8));
+    }
+
+    /**
+     * Returns whether every byte added has been read.
+     * @return
+     *  True if only zeros are left
+     */
+    boolean isDrained()
+    {
+        return index >= pending.size();
+    }
+
+    /**
+     * Returns every byte written by the pixy.
+     * @return
+     *  The bytes written
+     */
+    byte[] getWritten()
+    {
+        return written.toByteArray();
+    }
+
+    @Override
+    public int read(byte[] buffer, int count)
+    {
+        byte[] bytes = pending.toByteArray();
+        for(int i = 0; i < count; i++)
+        {
+            buffer[i] = index < bytes.length ? bytes[index] : 0;
+            index++;
+        }
+
+        return count;
+    }
+
+    @Override
+    public int write(byte[] buffer, int count)
+    {
+        written.write(buffer, 0, count);
+        return count;
+    }
+}
@@ -0,0 +1,175 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that DashboardPublisher entries only send values that changed, by
+ * more than the epsilon for numbers, and count what they send.
+ *
+ */
+public class DashboardPublisherTest
+{
+    /**
+     * The publisher tested, without a table
+     */
+    private DashboardPublisher dashboard;
+
+    /**
+     * Switches the clock to simulated time and makes a publisher without a table.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+        dashboard = new DashboardPublisher();
+    }
+
+    /**
+     * Switches the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    @Test
+    public void sendsOnlyChangedNumbers()
+    {
+        DashboardPublisher.NumberEntry entry = dashboard.getNumber("Number");
+        entry.set(1);
+        entry.set(1);
+        entry.set(2);
+
+        assertEquals(2, dashboard.getUpdates());
+        assertEquals(1, dashboard.getSkipped());
+        assertEquals(2 * (DashboardPublisher.UPDATE_SIZE + 8), dashboard.getBytes());
+        assertSame(entry, dashboard.getNumber("Number"));
+    }
+
+    @Test
+    public void skipsChangesWithinEpsilon()
+    {
+        DashboardPublisher.NumberEntry entry = dashboard.getNumber("Latency", 0.5);
+        entry.set(1.0);
+        //Compared to the value last sent, so slow drift is still sent
+        entry.set(1.4);
+        entry.set(1.6);
+        entry.set(1.2);
+        assertEquals(2, dashboard.getUpdates());
+        assertEquals(2, dashboard.getSkipped());
+
+        //Getting the entry again changes its epsilon
+        dashboard.getNumber("Latency", 0);
+        entry.set(1.7);
+        assertEquals(3, dashboard.getUpdates());
+    }
+
+    @Test
+    public void sendsChangesToAndFromNaN()
+    {
+        DashboardPublisher.NumberEntry entry = dashboard.getNumber("Distance", 1);
+        entry.set(5);
+        entry.set(Double.NaN);
+        entry.set(Double.NaN);
+        entry.set(5);
+        assertEquals(3, dashboard.getUpdates());
+        assertEquals(1, dashboard.getSkipped());
+    }
+
+    @Test
+    public void sendsOnlyChangedBooleansAndStrings()
+    {
+        DashboardPublisher.BooleanEntry tracking = dashboard.getBoolean("Tracking");
+        tracking.set(false);
+        tracking.set(false);
+        tracking.set(true);
+
+        DashboardPublisher.StringEntry mode = dashboard.getString("Mode");
+        mode.set("FLASH");
+        mode.set("FLASH");
+        assertEquals(3, dashboard.getUpdates());
+        assertEquals(2, dashboard.getSkipped());
+        assertEquals(2 * (DashboardPublisher.UPDATE_SIZE + 1) + DashboardPublisher.UPDATE_SIZE + 2 + 5, dashboard.getBytes());
+    }
+
+    @Test
+    public void sendsNullStringAsEmpty()
+    {
+        DashboardPublisher.StringEntry entry = dashboard.getString("Message");
+        entry.set(null);
+        entry.set("");
+        entry.set(null);
+        assertEquals(1, dashboard.getUpdates());
+        assertEquals(2, dashboard.getSkipped());
+
+        entry.set("SOS");
+        entry.set(null);
+        assertEquals(3, dashboard.getUpdates());
+    }
+
+    @Test
+    public void republishSendsEveryValueAgain()
+    {
+        DashboardPublisher.NumberEntry number = dashboard.getNumber("Number");
+        DashboardPublisher.BooleanEntry bool = dashboard.getBoolean("Boolean");
+        number.set(3);
+        bool.set(true);
+
+        dashboard.republish();
+        number.set(3);
+        bool.set(true);
+        number.set(3);
+        assertEquals(4, dashboard.getUpdates());
+        assertEquals(1, dashboard.getSkipped());
+    }
+
+    @Test
+    public void unchangedPrinterSendsOnce()
+    {
+        DashboardPublisher.setInstance(dashboard);
+        TelemetryScheduler scheduler = TelemetryScheduler.getInstance();
+        scheduler.shutdown();
+        try
+        {
+            DashboardPublisher.NumberEntry entry = DashboardPublisher.getInstance().getNumber("Constant");
+            int[] prints = new int[1];
+            new ValuePrinter(() ->
+            {
+                entry.set(42);
+                prints[0]++;
+            }, ValuePrinter.HIGHEST_PRIORITY);
+
+            //Ten seconds of ticks
+            long tick = TimeUnit.MILLISECONDS.toNanos(TelemetryScheduler.TICK_TIME);
+            for(int i = 0; i < 500; i++)
+            {
+                scheduler.tick();
+                RobotClock.advanceTo(RobotClock.nanoTime() + tick);
+            }
+            assertTrue(prints[0] > 30);
+            assertEquals(1, dashboard.getUpdates());
+            assertEquals(prints[0] - 1, dashboard.getSkipped());
+        }
+        finally
+        {
+            scheduler.shutdown();
+            DashboardPublisher.setInstance(null);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that FrameCadence polls just before each expected frame, retries
+ * quickly while a frame is due, backs off when frames stop, and learns the
+ * pixy's real frame period.
+ *
+ */
+public class FrameCadenceTest
+{
+    /**
+     * One millisecond in nanoseconds
+     */
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * The time the first frame starts
+     */
+    private static final long START = Simulation.START_TIME;
+
+    /**
+     * Switches the clock to simulated time.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(START);
+    }
+
+    /**
+     * Switches the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    @Test
+    public void pollsJustBeforeNextFrame()
+    {
+        FrameCadence cadence = new FrameCadence();
+        assertEquals(START, cadence.getNextPollTime());
+
+        cadence.frameRead(START, START);
+        assertEquals(START + FrameCadence.DEFAULT_PERIOD - FrameCadence.GUARD_TIME, cadence.getNextPollTime());
+
+        //A frame read late is never polled for in the past
+        cadence.frameRead(START + 20 * MILLI, START + 45 * MILLI);
+        assertEquals(START + 45 * MILLI, cadence.getNextPollTime());
+    }
+
+    @Test
+    public void retriesWhileFrameIsDue()
+    {
+        FrameCadence cadence = new FrameCadence();
+        cadence.frameRead(START, START);
+
+        long now = START + 19 * MILLI + MILLI / 2;
+        cadence.frameMissed(now);
+        assertEquals(now + MILLI / 4, cadence.getNextPollTime());
+
+        now = START + 21 * MILLI;
+        cadence.frameMissed(now);
+        assertEquals(now + MILLI / 4, cadence.getNextPollTime());
+    }
+
+    @Test
+    public void skipsToLaterFramesWhenFramesStop()
+    {
+        FrameCadence cadence = new FrameCadence();
+        cadence.frameRead(START, START);
+
+        //Well after the expected frame, skip to just before the next one
+        cadence.frameMissed(START + 30 * MILLI);
+        assertEquals(START + 39 * MILLI, cadence.getNextPollTime());
+
+        //Missed frames keep backing off, but polls stay lined up with frames
+        long next = 0;
+        for(int i = 0; i < 20; i++)
+        {
+            cadence.frameMissed(cadence.getNextPollTime() + 3 * MILLI);
+            long poll = cadence.getNextPollTime();
+            assertEquals(19 * MILLI, (poll - START) % FrameCadence.DEFAULT_PERIOD);
+            assertTrue(poll - next > 0);
+            next = poll;
+        }
+    }
+
+    @Test
+    public void backsOffBeforeFirstFrame()
+    {
+        FrameCadence cadence = new FrameCadence();
+        long now = START;
+        long gap = 0;
+        for(int i = 0; i < 20; i++)
+        {
+            cadence.frameMissed(now);
+            long nextGap = cadence.getNextPollTime() - now;
+            assertTrue(nextGap >= gap);
+            assertTrue(nextGap <= 50 * MILLI);
+            gap = nextGap;
+            now = cadence.getNextPollTime();
+        }
+        assertEquals(50 * MILLI, gap);
+    }
+
+    @Test
+    public void pixyLearnsFramePeriod()
+    {
+        PixyCam pixy = new PixyCam(new SimulatedPixyTransport((time, frame) ->
+            frame.addBlock(1, PixyFrame.CENTER_X, PixyFrame.CENTER_Y, 20, 20), 21), PixyFrame.DEFAULT_CAPACITY);
+
+        int polls = 0;
+        long end = START + TimeUnit.SECONDS.toNanos(3);
+        while(RobotClock.nanoTime() - end < 0)
+        {
+            pixy.poll();
+            polls++;
+            RobotClock.advanceTo(pixy.getNextPollTime());
+        }
+
+        //The pixy runs a little slow, its frames are 21 ms apart instead of 20
+        assertEquals(21, pixy.getFramePeriod(), 0.2);
+        assertTrue(pixy.getFrameCount() >= 135);
+        //Far fewer than the 3000 polls of one every millisecond
+        assertTrue(polls < 1000);
+    }
+}
@@ -0,0 +1,107 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the step timing LEDPattern compiles for flashes and morse code.
+ *
+ */
+public class LEDPatternTest
+{
+    /**
+     * Nanoseconds in a millisecond
+     */
+    private static final long MS = 1_000_000L;
+
+    /**
+     * Checks that a pattern's steps are the given lengths.
+     * @param pattern
+     *  The pattern to check
+     * @param durations
+     *  The length of each step in milliseconds, starting with on
+     */
+    private static void assertSteps(LEDPattern pattern, int... durations)
+    {
+        assertEquals(durations.length, pattern.getSteps());
+        long start = 0;
+        for(int i = 0; i < durations.length; i++)
+        {
+            assertEquals("start of step " + i, start, pattern.getStepStart(i));
+            start += durations[i] * MS;
+        }
+        assertEquals(start, pattern.getCycleLength());
+    }
+
+    @Test
+    public void flashesPulsesThenWaitsInterval()
+    {
+        assertSteps(LEDPattern.flash(1000, 200, 100, 3), 200, 100, 200, 100, 200, 1000);
+    }
+
+    @Test
+    public void flashIntervalIsAtLeastOffTime()
+    {
+        assertSteps(LEDPattern.flash(50, 200, 100, 2), 200, 100, 200, 100);
+    }
+
+    @Test
+    public void flashWithoutPulsesIsEmpty()
+    {
+        assertTrue(LEDPattern.flash(1000, 200, 100, 0).isEmpty());
+    }
+
+    @Test
+    public void morseUsesStandardGaps()
+    {
+        //E is ".", T is "-": a letter gap between them and a word gap at the end
+        assertSteps(LEDPattern.morse("ET", 100), 100, 300, 300, 700);
+
+        //A space stretches the gap after E to a word gap
+        assertSteps(LEDPattern.morse("e t", 100), 100, 700, 300, 700);
+    }
+
+    @Test
+    public void morseSendsEachSymbol()
+    {
+        //S is "..." and O is "---"
+        assertSteps(LEDPattern.morse("SOS", 10), 10, 10, 10, 10, 10, 30, 30, 10, 30, 10, 30, 30, 10, 10, 10, 10, 10, 70);
+    }
+
+    @Test
+    public void morseWithoutLettersIsEmpty()
+    {
+        assertTrue(LEDPattern.morse(" !? ", 100).isEmpty());
+        assertTrue(LEDPattern.encoded("abc").isEmpty());
+    }
+
+    @Test
+    public void encodedUsesLongAndShortFlashes()
+    {
+        assertSteps(LEDPattern.encoded("-x."), 1333, 1000, 667, 1000);
+    }
+
+    @Test
+    public void findsStepPlayingOnlyMovingForward()
+    {
+        LEDPattern pattern = LEDPattern.flash(1000, 200, 100, 2);
+
+        assertEquals(0, pattern.stepAt(0, -1));
+        assertEquals(0, pattern.stepAt(199 * MS, 0));
+        assertEquals(1, pattern.stepAt(200 * MS, 0));
+        assertEquals(3, pattern.stepAt(600 * MS, 1));
+        assertEquals(3, pattern.stepAt(1499 * MS, 3));
+        assertTrue(LEDPattern.isOn(2));
+        assertFalse(LEDPattern.isOn(3));
+    }
+}
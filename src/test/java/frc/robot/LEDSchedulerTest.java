@@ -0,0 +1,215 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the shared LEDScheduler applies mode swaps on its next tick,
+ * plays flash patterns from the mode change, and drops closed controllers,
+ * all without starting a thread per controller.
+ *
+ */
+public class LEDSchedulerTest
+{
+    /**
+     * The time between ticks in nanoseconds
+     */
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(LEDScheduler.TICK_TIME);
+
+    /**
+     * The controllers made by the test, closed after it
+     */
+    private final List<LEDController> controllers = new ArrayList<>();
+
+    /**
+     * Switches the clock to simulated time, so the scheduler does not start its thread.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+    }
+
+    /**
+     * Closes the controllers so later tests start with none, and switches
+     * the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        for(LEDController controller : controllers)
+        {
+            controller.close();
+        }
+        tick();
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Makes a controller that is closed after the test.
+     * @param controller
+     *  The controller made
+     * @return
+     *  The given controller
+     */
+    private <T extends LEDController> T track(T controller)
+    {
+        controllers.add(controller);
+        return controller;
+    }
+
+    /**
+     * Moves time forward one tick and runs the scheduler.
+     */
+    private static void tick()
+    {
+        RobotClock.advanceTo(RobotClock.nanoTime() + TICK);
+        LEDScheduler.getInstance().tick();
+    }
+
+    @Test
+    public void appliesModeSwapOnNextTick()
+    {
+        PCMOutput output = PCMOutput.getInstance();
+        LEDController controller = track(new LEDController(0, LEDController.Mode.OFF));
+        tick();
+        assertFalse(output.isOn(0));
+
+        controller.setMode(LEDController.Mode.ON);
+        assertFalse(output.isOn(0));
+        tick();
+        assertTrue(output.isOn(0));
+
+        //Only the last of several swaps between ticks is applied
+        controller.setMode(LEDController.Mode.OFF);
+        controller.setMode(LEDController.Mode.FLASH);
+        controller.setMode(LEDController.Mode.ON);
+        tick();
+        assertTrue(output.isOn(0));
+    }
+
+    @Test
+    public void playsFlashFromModeChange()
+    {
+        PCMOutput output = PCMOutput.getInstance();
+        LEDController controller = track(new LEDController(1, LEDController.Mode.OFF, 100, 50, 50, 2));
+        tick();
+
+        //Two 50 ms pulses 50 ms apart, then 100 ms off, repeating every 250 ms
+        controller.setMode(LEDController.Mode.FLASH);
+        long start = RobotClock.nanoTime() + TICK;
+        for(int i = 0; i < 200; i++)
+        {
+            tick();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(RobotClock.nanoTime() - start) % 250;
+            assertEquals("At " + elapsed + " ms", elapsed < 50 || elapsed >= 100 && elapsed < 150, output.isOn(1));
+        }
+
+        controller.setMode(LEDController.Mode.OFF);
+        tick();
+        assertFalse(output.isOn(1));
+    }
+
+    @Test
+    public void turnsOffAndDropsClosedController()
+    {
+        PCMOutput output = PCMOutput.getInstance();
+        LEDController controller = track(new LEDController(2, LEDController.Mode.ON));
+        tick();
+        assertTrue(output.isOn(2));
+
+        controller.close();
+        tick();
+        assertFalse(output.isOn(2));
+
+        //Removed from the scheduler, so nothing it does reaches the PCM
+        controller.setMode(LEDController.Mode.ON);
+        tick();
+        assertFalse(output.isOn(2));
+    }
+
+    @Test
+    public void keepsTickingWhenControllerThrows()
+    {
+        PCMOutput output = PCMOutput.getInstance();
+        FailingController failing = track(new FailingController(3));
+        LEDController healthy = track(new LEDController(4, LEDController.Mode.OFF));
+        tick();
+
+        healthy.setMode(LEDController.Mode.ON);
+        tick();
+        assertTrue(output.isOn(4));
+        assertTrue(failing.updates > 0);
+
+        //Stop failing so the controller can be closed
+        failing.failing = false;
+    }
+
+    @Test
+    public void startsNoThreadsWhileSimulated()
+    {
+        for(int i = 0; i < 5; i++)
+        {
+            track(new LEDController(5, LEDController.Mode.FLASH)).setMode(LEDController.Mode.MORSE);
+        }
+        tick();
+
+        for(Thread thread : Thread.getAllStackTraces().keySet())
+        {
+            assertFalse(thread.getName().equals("LEDScheduler"));
+        }
+    }
+
+    /**
+     * Controller whose updates throw, like one with a broken pattern.
+     */
+    private static class FailingController extends LEDController
+    {
+        /**
+         * True while updates throw
+         */
+        private volatile boolean failing = true;
+
+        /**
+         * The number of updates attempted
+         */
+        private int updates;
+
+        /**
+         * Constructs a failing controller in on mode.
+         * @param channel
+         *  The PCM channel the LEDs are plugged into
+         */
+        private FailingController(int channel)
+        {
+            super(channel);
+        }
+
+        @Override
+        void update(long now)
+        {
+            updates++;
+            if(failing)
+            {
+                throw new IllegalStateException("Simulated LED failure");
+            }
+            super.update(now);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that LoopProfiler times loops and sections, and blames each loop
+ * over budget on the section that took the most time in it.
+ *
+ */
+public class LoopProfilerTest
+{
+    /**
+     * The largest difference allowed between expected and actual milliseconds
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * The profiler tested, with a 20 ms budget
+     */
+    private LoopProfiler profiler;
+
+    /*
+     * The indexes of the profiled sections.
+     */
+    private int drive;
+    private int pixy;
+
+    /**
+     * Switches the clock to simulated time and makes a profiler with two sections.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+        profiler = new LoopProfiler("Teleop", 20);
+        drive = profiler.addSection("Drive");
+        pixy = profiler.addSection("Pixy");
+    }
+
+    /**
+     * Switches the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Moves simulated time forward, as if the loop did work.
+     * @param millis
+     *  The time to take in milliseconds
+     */
+    private static void spend(int millis)
+    {
+        RobotClock.advanceTo(RobotClock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Runs a section for the given time.
+     * @param section
+     *  The index of the section
+     * @param millis
+     *  The time the section takes in milliseconds
+     */
+    private void run(int section, int millis)
+    {
+        profiler.start(section);
+        spend(millis);
+        profiler.stop(section);
+    }
+
+    @Test
+    public void countsNoOverrunWithinBudget()
+    {
+        profiler.startLoop();
+        run(drive, 5);
+        run(pixy, 5);
+        profiler.endLoop();
+
+        assertEquals(0, profiler.getOverruns());
+        assertEquals("None", profiler.getLastOverrun());
+        assertEquals(1, profiler.getLoopTime().getCount());
+        assertEquals(10, profiler.getLoopTime().getMax(), DELTA);
+        assertEquals(5, profiler.getSectionTime(drive).getMax(), DELTA);
+    }
+
+    @Test
+    public void blamesSlowestSection()
+    {
+        profiler.startLoop();
+        run(drive, 8);
+        run(pixy, 15);
+        profiler.endLoop();
+
+        assertEquals(1, profiler.getOverruns());
+        assertEquals("Pixy", profiler.getLastOverrun());
+        assertEquals(23, profiler.getLastOverrunTime(), DELTA);
+        assertEquals(1, profiler.getSectionOverruns(pixy));
+        assertEquals(0, profiler.getSectionOverruns(drive));
+    }
+
+    @Test
+    public void addsUpSectionRunsWithinLoop()
+    {
+        profiler.startLoop();
+        run(drive, 8);
+        run(pixy, 12);
+        run(drive, 8);
+        profiler.endLoop();
+
+        assertEquals("Drive", profiler.getLastOverrun());
+        assertEquals(2, profiler.getSectionTime(drive).getCount());
+
+        //Totals start over each loop
+        profiler.startLoop();
+        run(drive, 8);
+        run(pixy, 13);
+        profiler.endLoop();
+        assertEquals("Pixy", profiler.getLastOverrun());
+        assertEquals(1, profiler.getSectionOverruns(drive));
+        assertEquals(1, profiler.getSectionOverruns(pixy));
+    }
+
+    @Test
+    public void blamesTimeOutsideSections()
+    {
+        profiler.startLoop();
+        run(drive, 2);
+        spend(25);
+        run(pixy, 2);
+        profiler.endLoop();
+
+        assertEquals(1, profiler.getOverruns());
+        assertEquals(LoopProfiler.UNPROFILED, profiler.getLastOverrun());
+        assertEquals(0, profiler.getSectionOverruns(drive));
+        assertEquals(0, profiler.getSectionOverruns(pixy));
+    }
+
+    @Test
+    public void measuresPeriodFromFirstLoopAtClockZero()
+    {
+        RobotClock.simulate(0);
+        profiler.startLoop();
+        profiler.endLoop();
+        spend(20);
+        profiler.startLoop();
+        profiler.endLoop();
+
+        assertEquals(1, profiler.getLoopPeriod().getCount());
+        assertEquals(20, profiler.getLoopPeriod().getMax(), DELTA);
+    }
+
+    @Test
+    public void ignoresEndWithoutStart()
+    {
+        profiler.endLoop();
+        profiler.startLoop();
+        profiler.endLoop();
+        spend(50);
+        profiler.endLoop();
+
+        assertEquals(1, profiler.getLoopTime().getCount());
+        assertEquals(0, profiler.getOverruns());
+    }
+}
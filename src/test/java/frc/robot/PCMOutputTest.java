@@ -0,0 +1,120 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that PCMOutput only writes channels whose state changed since the
+ * last flush, so LEDs cause one write per edge instead of one per tick.
+ *
+ */
+public class PCMOutputTest
+{
+    /*
+     * The channels used by the test.
+     */
+    private static final int FIRST = 6;
+    private static final int SECOND = 7;
+
+    /**
+     * The shared output
+     */
+    private PCMOutput output;
+
+    /**
+     * Switches the clock to simulated time so no solenoids are made, and
+     * opens the test's channels.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+        output = PCMOutput.getInstance();
+        output.open(FIRST);
+        output.open(SECOND);
+    }
+
+    /**
+     * Turns the test's channels off and switches the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        output.set(FIRST, false);
+        output.set(SECOND, false);
+        output.flush();
+        RobotClock.useSystemTime();
+    }
+
+    @Test
+    public void writesOnlyChangedChannels()
+    {
+        long writes = output.getWrites();
+        output.set(FIRST, true);
+        output.flush();
+        assertTrue(output.isOn(FIRST));
+        assertFalse(output.isOn(SECOND));
+        assertEquals(writes + 1, output.getWrites());
+
+        //Setting the state it already has sends nothing
+        output.set(FIRST, true);
+        output.flush();
+        assertEquals(writes + 1, output.getWrites());
+
+        output.set(FIRST, false);
+        output.set(SECOND, true);
+        output.flush();
+        assertFalse(output.isOn(FIRST));
+        assertTrue(output.isOn(SECOND));
+        assertEquals(writes + 3, output.getWrites());
+    }
+
+    @Test
+    public void skipsChannelSwitchedBackWithinFlush()
+    {
+        long writes = output.getWrites();
+        output.set(FIRST, true);
+        output.set(FIRST, false);
+        output.flush();
+        assertFalse(output.isOn(FIRST));
+        assertEquals(writes, output.getWrites());
+
+        //The state is only written once it is flushed
+        output.set(SECOND, true);
+        assertFalse(output.isOn(SECOND));
+        output.flush();
+        assertTrue(output.isOn(SECOND));
+    }
+
+    @Test
+    public void flashingControllerWritesOncePerEdge()
+    {
+        //One second on, one second off, for ten seconds of 5 ms ticks
+        LEDController controller = new LEDController(FIRST, LEDController.Mode.FLASH);
+        long writes = output.getWrites();
+        long tick = TimeUnit.MILLISECONDS.toNanos(LEDScheduler.TICK_TIME);
+        for(int i = 0; i < 2000; i++)
+        {
+            LEDScheduler.getInstance().tick();
+            RobotClock.advanceTo(RobotClock.nanoTime() + tick);
+        }
+        assertEquals(writes + 10, output.getWrites());
+
+        controller.close();
+        LEDScheduler.getInstance().tick();
+    }
+}
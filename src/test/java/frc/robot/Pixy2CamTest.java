@@ -0,0 +1,133 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the blocks request Pixy2Cam sends and how it parses the response.
+ *
+ */
+public class Pixy2CamTest
+{
+    /**
+     * The number of bytes in a block of a response
+     */
+    private static final int BLOCK_SIZE = 14;
+
+    /**
+     * Adds a blocks response to a transport.
+     * @param transport
+     *  The transport to add the response to
+     * @param type
+     *  The packet type
+     * @param checkSumError
+     *  Added to the checksum sent, 0 for the right checksum
+     * @param blocks
+     *  Each block's signature, x, y, width, and height as the pixy sends
+     *  them before they are rotated
+     */
+    private static void addResponse(BufferTransport transport, int type, int checkSumError, int[]... blocks)
+    {
+        byte[] payload = new byte[blocks.length * BLOCK_SIZE];
+        for(int i = 0; i < blocks.length; i++)
+        {
+            for(int j = 0; j < blocks[i].length; j++)
+            {
+                payload[i * BLOCK_SIZE + j * 2] = (byte) blocks[i][j];
+                payload[i * BLOCK_SIZE + j * 2 + 1] = (byte) (blocks[i][j] >> 8);
+            }
+        }
+
+        int sum = 0;
+        for(byte value : payload)
+        {
+            sum += value & 0xFF;
+        }
+        transport.add((byte) 0xaf, (byte) 0xc1, (byte) type, (byte) payload.length);
+        transport.addLittleWord(sum + checkSumError);
+        transport.add(payload);
+    }
+
+    @Test
+    public void requestsSignaturesAndBlockLimit()
+    {
+        BufferTransport transport = new BufferTransport();
+        Pixy2Cam pixy = new Pixy2Cam(transport, 4);
+        pixy.setSignatures(0x05);
+
+        assertFalse(pixy.poll());
+        byte[] written = transport.getWritten();
+        assertArrayEquals(new byte[] {(byte) 0xae, (byte) 0xc1, 32, 2, 0x05, 4}, written);
+    }
+
+    @Test
+    public void parsesRotatedBlocks()
+    {
+        BufferTransport transport = new BufferTransport();
+        addResponse(transport, 33, 0, new int[] {1, 120, 50, 20, 10}, new int[] {2, 300, 180, 40, 30});
+        Pixy2Cam pixy = new Pixy2Cam(transport, PixyFrame.DEFAULT_CAPACITY);
+
+        assertTrue(pixy.poll());
+        PixyFrame frame = pixy.getSnapshot(new PixyFrame());
+        assertEquals(2, frame.getBlockCount());
+        assertEquals(1, frame.getSignature(0));
+        assertEquals(50, frame.getX(0));
+        assertEquals(120, frame.getY(0));
+        assertEquals(10, frame.getWidth(0));
+        assertEquals(20, frame.getHeight(0));
+        assertEquals(2, frame.getSignature(1));
+        assertEquals(180, frame.getX(1));
+        assertEquals(300, frame.getY(1));
+        assertEquals(180, pixy.getX());
+        assertTrue(transport.isDrained());
+    }
+
+    @Test
+    public void skipsBytesBeforeTheResponse()
+    {
+        BufferTransport transport = new BufferTransport().add((byte) 0, (byte) 0xaf, (byte) 0x12);
+        addResponse(transport, 33, 0, new int[] {3, 10, 20, 5, 6});
+        Pixy2Cam pixy = new Pixy2Cam(transport, PixyFrame.DEFAULT_CAPACITY);
+
+        assertTrue(pixy.poll());
+        assertEquals(3, pixy.getSnapshot(new PixyFrame()).getSignature(0));
+    }
+
+    @Test
+    public void rejectsBadChecksum()
+    {
+        BufferTransport transport = new BufferTransport();
+        addResponse(transport, 33, 1, new int[] {1, 120, 50, 20, 10});
+        Pixy2Cam pixy = new Pixy2Cam(transport, PixyFrame.DEFAULT_CAPACITY);
+
+        assertFalse(pixy.poll());
+        assertEquals(0, pixy.getFrameCount());
+        assertEquals(1, pixy.getMetrics().getChecksumFailures());
+    }
+
+    @Test
+    public void readsPastOtherResponses()
+    {
+        BufferTransport transport = new BufferTransport();
+        addResponse(transport, 3, 0, new int[] {0xFFFF, 0, 0, 0, 0});
+        addResponse(transport, 33, 0, new int[] {2, 100, 60, 8, 9});
+        Pixy2Cam pixy = new Pixy2Cam(transport, PixyFrame.DEFAULT_CAPACITY);
+
+        //An error response is read whole so the next response starts clean
+        assertFalse(pixy.poll());
+        assertTrue(pixy.poll());
+        assertEquals(60, pixy.getX());
+        assertEquals(100, pixy.getY());
+    }
+}
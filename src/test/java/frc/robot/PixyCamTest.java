@@ -0,0 +1,178 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests that PixyCam finds frames in the original pixy stream, decodes the
+ * rotated blocks, and drops blocks whose checksum does not match.
+ *
+ */
+public class PixyCamTest
+{
+    /**
+     * The word that starts every block
+     */
+    private static final int SYNC = 0xaa55;
+
+    /**
+     * Adds the sync word and block of one object to a transport, in the
+     * order the pixy sends them before they are rotated.
+     * @param transport
+     *  The transport to add the block to
+     * @param sig
+     *  The signature of the block
+     * @param x
+     *  The center X after rotating
+     * @param y
+     *  The center Y after rotating
+     * @param width
+     *  The width after rotating
+     * @param height
+     *  The height after rotating
+     * @param checkSum
+     *  The checksum to send
+     */
+    private static void addBlock(BufferTransport transport, int sig, int x, int y, int width, int height, int checkSum)
+    {
+        transport.addWord(SYNC)
+            .addWord(checkSum)
+            .addWord(sig)
+            .addWord(y)
+            .addWord(x)
+            .addWord(height)
+            .addWord(width);
+    }
+
+    /**
+     * Adds a block with the right checksum to a transport.
+     * @param transport
+     *  The transport to add the block to
+     * @param sig
+     *  The signature of the block
+     * @param x
+     *  The center X after rotating
+     * @param y
+     *  The center Y after rotating
+     * @param width
+     *  The width after rotating
+     * @param height
+     *  The height after rotating
+     */
+    private static void addBlock(BufferTransport transport, int sig, int x, int y, int width, int height)
+    {
+        addBlock(transport, sig, x, y, width, height, sig + x + y + width + height);
+    }
+
+    @Test
+    public void decodesRotatedBlocks()
+    {
+        BufferTransport transport = new BufferTransport();
+        transport.addWord(0).addWord(SYNC);
+        addBlock(transport, 1, 50, 120, 10, 20);
+        addBlock(transport, 2, 150, 200, 30, 40);
+        PixyCam pixy = new PixyCam(transport, PixyFrame.DEFAULT_CAPACITY);
+
+        assertTrue(pixy.poll());
+        PixyFrame frame = pixy.getSnapshot(new PixyFrame());
+        assertEquals(2, frame.getBlockCount());
+        assertEquals(1, frame.getSignature(0));
+        assertEquals(50, frame.getX(0));
+        assertEquals(120, frame.getY(0));
+        assertEquals(10, frame.getWidth(0));
+        assertEquals(20, frame.getHeight(0));
+        assertEquals(2, frame.getSignature(1));
+        assertEquals(150, frame.getX(1));
+        assertEquals(200, frame.getY(1));
+
+        //The getters give the largest object
+        assertEquals(150, pixy.getX());
+        assertEquals(200, pixy.getY());
+        assertEquals(30, pixy.getWidth());
+        assertEquals(40, pixy.getHeight());
+        assertTrue(pixy.checkData());
+        assertEquals(1, pixy.getFrameCount());
+    }
+
+    @Test
+    public void dropsBlocksWithBadChecksums()
+    {
+        BufferTransport transport = new BufferTransport();
+        transport.addWord(SYNC);
+        addBlock(transport, 1, 50, 120, 10, 20, 12345);
+        addBlock(transport, 3, 60, 130, 15, 25);
+        PixyCam pixy = new PixyCam(transport, PixyFrame.DEFAULT_CAPACITY);
+
+        assertTrue(pixy.poll());
+        PixyFrame frame = pixy.getSnapshot(new PixyFrame());
+        assertEquals(1, frame.getBlockCount());
+        assertEquals(3, frame.getSignature(0));
+        assertEquals(1, pixy.getMetrics().getChecksumFailures());
+    }
+
+    @Test
+    public void checksumWrapsAtSixteenBits()
+    {
+        BufferTransport transport = new BufferTransport();
+        transport.addWord(SYNC);
+        addBlock(transport, 7, 0xFFFF, 0xFFFF, 2, 3, (7 + 0xFFFF + 0xFFFF + 2 + 3) & 0xFFFF);
+        PixyCam pixy = new PixyCam(transport, PixyFrame.DEFAULT_CAPACITY);
+
+        assertTrue(pixy.poll());
+        assertEquals(1, pixy.getSnapshot(new PixyFrame()).getBlockCount());
+        assertEquals(0, pixy.getMetrics().getChecksumFailures());
+    }
+
+    @Test
+    public void readsFramesBackToBack()
+    {
+        BufferTransport transport = new BufferTransport();
+        transport.addWord(SYNC);
+        addBlock(transport, 1, 10, 20, 5, 5);
+        addBlock(transport, 1, 11, 21, 5, 5);
+        transport.addWord(SYNC);
+        addBlock(transport, 2, 30, 40, 6, 6);
+        PixyCam pixy = new PixyCam(transport, PixyFrame.DEFAULT_CAPACITY);
+        PixyFrame frame = new PixyFrame();
+
+        assertTrue(pixy.poll());
+        assertEquals(2, pixy.getSnapshot(frame).getBlockCount());
+        assertTrue(pixy.poll());
+        assertEquals(1, pixy.getSnapshot(frame).getBlockCount());
+        assertEquals(2, frame.getSignature(0));
+        assertEquals(0, pixy.getMetrics().getSyncLosses());
+        assertFalse(pixy.poll());
+        assertEquals(2, pixy.getFrameCount());
+    }
+
+    @Test
+    public void findsNoFrameInIdleZeros()
+    {
+        PixyCam pixy = new PixyCam(new BufferTransport(), PixyFrame.DEFAULT_CAPACITY);
+
+        assertFalse(pixy.poll());
+        assertEquals(0, pixy.getFrameCount());
+        assertFalse(pixy.isTracking());
+    }
+
+    @Test
+    public void countsBlockWithoutFrameStartAsSyncLoss()
+    {
+        BufferTransport transport = new BufferTransport();
+        addBlock(transport, 1, 10, 20, 5, 5);
+        PixyCam pixy = new PixyCam(transport, PixyFrame.DEFAULT_CAPACITY);
+
+        assertFalse(pixy.poll());
+        assertEquals(1, pixy.getMetrics().getSyncLosses());
+    }
+}
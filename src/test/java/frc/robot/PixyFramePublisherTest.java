@@ -0,0 +1,226 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that PixyFramePublisher only delivers requested frames, keeps just
+ * the newest frame for a subscriber with no requests, and drops subscribers
+ * that fail.
+ *
+ */
+public class PixyFramePublisherTest
+{
+    /**
+     * The time between simulated frames in milliseconds
+     */
+    private static final int PERIOD = 20;
+
+    /**
+     * The pixy publishing frames
+     */
+    private PixyCam pixy;
+
+    /**
+     * Switches the clock to simulated time and makes a pixy whose object's
+     * center X is the number of the frame, starting at 1.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+        pixy = new PixyCam(new SimulatedPixyTransport((time, frame) ->
+        {
+            int number = (int) ((time - Simulation.START_TIME) / TimeUnit.MILLISECONDS.toNanos(PERIOD)) + 1;
+            frame.addBlock(1, number, PixyFrame.CENTER_Y, 10, 10);
+        }, PERIOD), PixyFrame.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Switches the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Reads frames until the given number more have been published.
+     * @param frames
+     *  The number of frames to publish
+     */
+    private void publish(int frames)
+    {
+        int target = pixy.getFrameCount() + frames;
+        while(pixy.getFrameCount() != target)
+        {
+            pixy.poll();
+            RobotClock.advanceTo(RobotClock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PERIOD));
+        }
+    }
+
+    @Test
+    public void deliversNothingWithoutRequests()
+    {
+        Recorder recorder = new Recorder();
+        pixy.getFramePublisher().subscribe(recorder);
+
+        publish(3);
+        assertEquals(0, recorder.received.size());
+    }
+
+    @Test
+    public void deliversOnlyNewestFrameOnRequest()
+    {
+        Recorder recorder = new Recorder();
+        pixy.getFramePublisher().subscribe(recorder);
+
+        publish(3);
+        recorder.subscription.request(1);
+        assertEquals(1, recorder.received.size());
+        assertEquals(pixy.getX(), (int) recorder.received.get(0));
+
+        //The one request was used up
+        publish(2);
+        assertEquals(1, recorder.received.size());
+
+        recorder.subscription.request(1);
+        assertEquals(2, recorder.received.size());
+        assertEquals(pixy.getX(), (int) recorder.received.get(1));
+    }
+
+    @Test
+    public void deliversEachFrameOnceWithOutstandingRequests()
+    {
+        Recorder recorder = new Recorder();
+        pixy.getFramePublisher().subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+
+        publish(5);
+        assertEquals(5, recorder.received.size());
+        for(int i = 1; i < recorder.received.size(); i++)
+        {
+            assertEquals(recorder.received.get(i - 1) + 1, (int) recorder.received.get(i));
+        }
+
+        //No new frame, nothing to deliver again
+        recorder.subscription.request(1);
+        assertEquals(5, recorder.received.size());
+    }
+
+    @Test
+    public void stopsDeliveringAfterCancel()
+    {
+        Recorder recorder = new Recorder();
+        pixy.getFramePublisher().subscribe(recorder);
+        recorder.subscription.request(Long.MAX_VALUE);
+
+        publish(2);
+        recorder.subscription.cancel();
+        publish(2);
+        assertEquals(2, recorder.received.size());
+    }
+
+    @Test
+    public void reportsNonPositiveRequest()
+    {
+        Recorder recorder = new Recorder();
+        pixy.getFramePublisher().subscribe(recorder);
+
+        recorder.subscription.request(0);
+        assertTrue(recorder.error instanceof IllegalArgumentException);
+
+        recorder.subscription.request(1);
+        publish(1);
+        assertEquals(0, recorder.received.size());
+    }
+
+    @Test
+    public void cancelsAndReportsSubscriberThatThrows()
+    {
+        Recorder failing = new Recorder();
+        failing.failure = new IllegalStateException("Subscriber failed");
+        Recorder healthy = new Recorder();
+        pixy.getFramePublisher().subscribe(failing);
+        pixy.getFramePublisher().subscribe(healthy);
+        failing.subscription.request(Long.MAX_VALUE);
+        healthy.subscription.request(Long.MAX_VALUE);
+
+        publish(3);
+        assertEquals(1, failing.received.size());
+        assertEquals(failing.failure, failing.error);
+        assertEquals(3, healthy.received.size());
+        assertNull(healthy.error);
+    }
+
+    /**
+     * Subscriber that keeps the center X of each frame it receives.
+     */
+    private static class Recorder implements Flow.Subscriber<PixyFrame>
+    {
+        /**
+         * The center X of each frame received, copied since the frame is reused
+         */
+        private final List<Integer> received = new ArrayList<>();
+
+        /**
+         * The subscription given by onSubscribe()
+         */
+        private Flow.Subscription subscription;
+
+        /**
+         * The error received, null if there was none
+         */
+        private Throwable error;
+
+        /**
+         * The exception onNext() throws after recording the frame, null to not throw
+         */
+        private RuntimeException failure;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription)
+        {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(PixyFrame frame)
+        {
+            received.add(frame.getX(0));
+            if(failure != null)
+            {
+                throw failure;
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable)
+        {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete()
+        {
+        }
+    }
+}
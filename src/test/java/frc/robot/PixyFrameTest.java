@@ -0,0 +1,103 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the block queries of PixyFrame and copying between frames.
+ *
+ */
+public class PixyFrameTest
+{
+    /**
+     * A frame with two signatures, rebuilt before each test
+     */
+    private PixyFrame frame;
+
+    /**
+     * Fills the frame with three blocks of signature 1 and one of signature 2.
+     */
+    @Before
+    public void setUp()
+    {
+        frame = new PixyFrame(8);
+        frame.addBlock(1, 20, 30, 10, 10);
+        frame.addBlock(2, 100, 160, 5, 5);
+        frame.addBlock(1, 180, 300, 20, 15);
+        frame.addBlock(1, 90, 150, 8, 8);
+        frame.setTime(1234);
+    }
+
+    @Test
+    public void findsLargestBlocks()
+    {
+        assertEquals(2, frame.largestBlock());
+        assertEquals(2, frame.largestBlock(1));
+        assertEquals(1, frame.largestBlock(2));
+        assertEquals(-1, frame.largestBlock(5));
+        assertEquals(300, frame.getArea(2));
+    }
+
+    @Test
+    public void loopsThroughSignature()
+    {
+        assertEquals(3, frame.countSignature(1));
+        assertEquals(0, frame.nextWithSignature(1, 0));
+        assertEquals(2, frame.nextWithSignature(1, 1));
+        assertEquals(3, frame.nextWithSignature(1, 3));
+        assertEquals(-1, frame.nextWithSignature(1, 4));
+        assertEquals(-1, frame.nextWithSignature(2, 2));
+    }
+
+    @Test
+    public void findsNearestBlocks()
+    {
+        assertEquals(1, frame.nearestToCenter());
+        assertEquals(0, frame.nearestTo(0, 0));
+        assertEquals(2, frame.nearestTo(200, 320));
+    }
+
+    @Test
+    public void emptyFrameHasNoBlocks()
+    {
+        frame.clear();
+        assertEquals(0, frame.getBlockCount());
+        assertEquals(-1, frame.largestBlock());
+        assertEquals(-1, frame.nearestToCenter());
+        assertEquals(0, frame.countSignature(1));
+    }
+
+    @Test
+    public void stopsAddingWhenFull()
+    {
+        PixyFrame small = new PixyFrame(2);
+        assertTrue(small.addBlock(1, 1, 1, 1, 1));
+        assertTrue(small.addBlock(1, 2, 2, 2, 2));
+        assertFalse(small.addBlock(1, 3, 3, 3, 3));
+        assertEquals(2, small.getBlockCount());
+    }
+
+    @Test
+    public void copiesUpToCapacity()
+    {
+        PixyFrame copy = new PixyFrame(3);
+        copy.copyFrom(frame);
+        assertEquals(3, copy.getBlockCount());
+        assertEquals(1234, copy.getTime());
+        assertEquals(180, copy.getX(2));
+        assertEquals(300, copy.getY(2));
+        assertEquals(20, copy.getWidth(2));
+        assertEquals(15, copy.getHeight(2));
+    }
+}
@@ -0,0 +1,212 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that PixyFusion finds a target where the lines of sight of two
+ * pixys cross, and only fuses frames captured close enough together.
+ *
+ */
+public class PixyFusionTest
+{
+    /**
+     * The time between simulated frames in milliseconds
+     */
+    private static final int PERIOD = 20;
+
+    /**
+     * How far each pixy is mounted from the center of the robot
+     */
+    private static final double OFFSET = 6;
+
+    /**
+     * The largest difference allowed between expected and actual values
+     */
+    private static final double DELTA = 1e-6;
+
+    /**
+     * A geometry with a 90 degree view across 200 pixels, so the bearing
+     * slope of x is (x - 100) / 100
+     */
+    private static final PixyGeometry GEOMETRY = new PixyGeometry(200, 320, 90, 90, 0, 0, 10, 1);
+
+    /**
+     * True while the right pixy sees the target
+     */
+    private boolean rightSees;
+
+    /**
+     * The pixy on the left
+     */
+    private PixyCam left;
+
+    /**
+     * The pixy on the right
+     */
+    private PixyCam right;
+
+    /**
+     * The scheduler reading both pixys
+     */
+    private PixyScheduler scheduler;
+
+    /**
+     * Switches the clock to simulated time and makes two pixys 12 apart
+     * that see a target 60 ahead and 12 to the right of the robot's center.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+        rightSees = true;
+        //Left: (12 + 6) / 60 = 0.3, right: (12 - 6) / 60 = 0.1
+        left = new PixyCam(new SimulatedPixyTransport((time, frame) ->
+            frame.addBlock(1, 130, PixyFrame.CENTER_Y, 20, 20), PERIOD), PixyFrame.DEFAULT_CAPACITY);
+        right = new PixyCam(new SimulatedPixyTransport((time, frame) ->
+        {
+            if(rightSees)
+            {
+                frame.addBlock(1, 110, PixyFrame.CENTER_Y, 20, 20);
+            }
+        }, PERIOD), PixyFrame.DEFAULT_CAPACITY);
+
+        scheduler = new PixyScheduler();
+        scheduler.add(left, PERIOD);
+        scheduler.add(right, PERIOD);
+    }
+
+    /**
+     * Switches the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Steps the scheduler the way a Simulation does.
+     * @param millis
+     *  The simulated time to run for in milliseconds
+     */
+    private void run(int millis)
+    {
+        long end = RobotClock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        while(RobotClock.nanoTime() - end < 0)
+        {
+            RobotClock.advanceTo(scheduler.step(RobotClock.nanoTime()));
+        }
+    }
+
+    /**
+     * Makes a fusion of the two pixys.
+     * @param toleranceMillis
+     *  The most time in milliseconds between fused frames
+     * @return
+     *  The fusion, not started
+     */
+    private PixyFusion makeFusion(int toleranceMillis)
+    {
+        return new PixyFusion(left, GEOMETRY, -OFFSET, right, GEOMETRY, OFFSET, toleranceMillis);
+    }
+
+    @Test
+    public void triangulatesTarget()
+    {
+        PixyFusion fusion = makeFusion(10);
+        PixyFusion.Observation observation = new PixyFusion.Observation();
+        assertFalse(fusion.getObservation(observation));
+
+        fusion.start();
+        run(500);
+        assertTrue(fusion.getObservation(observation));
+
+        assertEquals(Math.toDegrees(Math.atan(0.3)), observation.getLeftBearing(), DELTA);
+        assertEquals(Math.toDegrees(Math.atan(0.1)), observation.getRightBearing(), DELTA);
+        assertEquals(Math.toDegrees(Math.atan2(12, 60)), observation.getBearing(), DELTA);
+        assertEquals(Math.hypot(12, 60), observation.getDistance(), DELTA);
+        assertTrue(observation.getTime() - Simulation.START_TIME > 0);
+        assertTrue(observation.getTime() - RobotClock.nanoTime() <= 0);
+    }
+
+    @Test
+    public void fusesEachFramePairOnce()
+    {
+        PixyFusion fusion = makeFusion(10);
+        fusion.start();
+        run(1000);
+
+        //Frames of the two pixys are captured together, so each pair is fused once
+        long observations = fusion.getObservationCount();
+        assertTrue(observations > 0);
+        assertTrue(Math.abs(observations - right.getFrameCount()) <= 2);
+    }
+
+    @Test
+    public void stopsFusingWhenOtherPixyHasNoFrames()
+    {
+        PixyFusion fusion = makeFusion(10);
+        fusion.start();
+        run(500);
+
+        rightSees = false;
+        run(100);
+        long observations = fusion.getObservationCount();
+        run(500);
+        assertEquals(observations, fusion.getObservationCount());
+        assertTrue(left.getFrameCount() > right.getFrameCount() + 20);
+    }
+
+    @Test
+    public void fusesOnlyWhileStarted()
+    {
+        PixyFusion fusion = makeFusion(10);
+        fusion.start();
+        run(200);
+
+        fusion.stop();
+        long observations = fusion.getObservationCount();
+        run(200);
+        assertEquals(observations, fusion.getObservationCount());
+
+        fusion.start();
+        run(200);
+        assertTrue(fusion.getObservationCount() > observations);
+    }
+
+    @Test
+    public void reportsNoCrossingForParallelSightLines()
+    {
+        //Both pixys see the target at the same bearing, so their lines of sight never cross
+        right = new PixyCam(new SimulatedPixyTransport((time, frame) ->
+            frame.addBlock(1, 130, PixyFrame.CENTER_Y, 20, 20), PERIOD), PixyFrame.DEFAULT_CAPACITY);
+        scheduler = new PixyScheduler();
+        scheduler.add(left, PERIOD);
+        scheduler.add(right, PERIOD);
+
+        PixyFusion fusion = makeFusion(10);
+        fusion.start();
+        run(200);
+
+        PixyFusion.Observation observation = new PixyFusion.Observation();
+        assertTrue(fusion.getObservation(observation));
+        assertEquals(Math.toDegrees(Math.atan(0.3)), observation.getRightBearing(), DELTA);
+        assertTrue(Double.isNaN(observation.getBearing()));
+        assertTrue(Double.isNaN(observation.getDistance()));
+    }
+}
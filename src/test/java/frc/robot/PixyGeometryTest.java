@@ -0,0 +1,88 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the bearing, elevation, distance, and skew tables of PixyGeometry
+ * against the trig they replace.
+ *
+ */
+public class PixyGeometryTest
+{
+    /**
+     * How close table values must be to the trig
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * A pixy 10 units up tilted 30 degrees up, looking for a target 40 units
+     * up that is twice as wide as it is tall
+     */
+    private final PixyGeometry geometry = PixyGeometry.forPixy(10, 30, 40, 2);
+
+    @Test
+    public void bearingSpansFieldOfView()
+    {
+        assertEquals(0, geometry.getBearing(PixyFrame.CENTER_X), DELTA);
+        assertEquals(PixyGeometry.PIXY_FOV_X / 2, geometry.getBearing(PixyFrame.CENTER_X * 2), DELTA);
+        assertEquals(-PixyGeometry.PIXY_FOV_X / 2, geometry.getBearing(0), DELTA);
+        assertEquals(Math.tan(Math.toRadians(PixyGeometry.PIXY_FOV_X / 2)), geometry.getBearingSlope(PixyFrame.CENTER_X * 2), DELTA);
+
+        PixyGeometry pixy2 = PixyGeometry.forPixy2(10, 30, 40, 2);
+        assertEquals(PixyGeometry.PIXY2_FOV_X / 2, pixy2.getBearing(Pixy2Cam.CENTER_X * 2), DELTA);
+    }
+
+    @Test
+    public void blendsBetweenPixelsAndClampsAtEdges()
+    {
+        double between = geometry.getBearing(120.5);
+        assertEquals((geometry.getBearing(120) + geometry.getBearing(121)) / 2, between, DELTA);
+        assertEquals(geometry.getBearing(0), geometry.getBearing(-10), DELTA);
+        assertEquals(geometry.getBearing(PixyFrame.CENTER_X * 2), geometry.getBearing(1000), DELTA);
+    }
+
+    @Test
+    public void elevationAddsPitch()
+    {
+        assertEquals(30, geometry.getElevation(PixyFrame.CENTER_Y), DELTA);
+        assertEquals(30 + PixyGeometry.PIXY_FOV_Y / 2, geometry.getElevation(0), DELTA);
+    }
+
+    @Test
+    public void distanceUsesHeightsAndBearing()
+    {
+        double ahead = 30 / Math.tan(Math.toRadians(30));
+        assertEquals(ahead, geometry.getDistance(PixyFrame.CENTER_X, PixyFrame.CENTER_Y), DELTA);
+
+        double side = ahead / Math.cos(Math.toRadians(PixyGeometry.PIXY_FOV_X / 2));
+        assertEquals(side, geometry.getDistance(PixyFrame.CENTER_X * 2, PixyFrame.CENTER_Y), DELTA);
+
+        //The bottom row points below level so it never reaches the target
+        assertTrue(Double.isNaN(geometry.getDistance(PixyFrame.CENTER_X, PixyFrame.CENTER_Y * 2)));
+    }
+
+    @Test
+    public void skewFromNarrowing()
+    {
+        assertEquals(0, geometry.getSkew(40, 20), DELTA);
+        assertEquals(60, geometry.getSkew(20, 20), DELTA);
+        assertEquals(90, geometry.getSkew(0, 20), DELTA);
+        assertEquals(0, geometry.getSkew(60, 20), DELTA);
+        assertEquals(0, geometry.getSkew(10, 0), DELTA);
+
+        PixyFrame frame = new PixyFrame();
+        frame.addBlock(1, PixyFrame.CENTER_X, PixyFrame.CENTER_Y, 20, 20);
+        assertEquals(60, geometry.getSkew(frame, 0), DELTA);
+        assertEquals(0, geometry.getBearing(frame, 0), DELTA);
+    }
+}
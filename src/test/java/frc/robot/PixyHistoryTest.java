@@ -0,0 +1,160 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that PixyHistory interpolates the target between the frames around
+ * a time and refuses times it cannot answer for.
+ *
+ */
+public class PixyHistoryTest
+{
+    /**
+     * The time between frames in nanoseconds
+     */
+    private static final long PERIOD = TimeUnit.MILLISECONDS.toNanos(20);
+
+    /**
+     * The largest difference allowed between expected and actual values
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * The frame added to the history, reused for every frame
+     */
+    private PixyFrame frame;
+
+    /**
+     * The sample filled by lookups
+     */
+    private PixyHistory.Sample sample;
+
+    /**
+     * Switches the clock to simulated time.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+        frame = new PixyFrame();
+        sample = new PixyHistory.Sample();
+    }
+
+    /**
+     * Switches the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Adds a frame with one object to the history.
+     * @param history
+     *  The history to add to
+     * @param time
+     *  The capture time of the frame
+     * @param x
+     *  The center X of the object
+     * @param width
+     *  The width of the object
+     */
+    private void add(PixyHistory history, long time, int x, int width)
+    {
+        frame.clear();
+        frame.setTime(time);
+        frame.addBlock(1, x, PixyFrame.CENTER_Y, width, width);
+        history.add(frame);
+    }
+
+    @Test
+    public void interpolatesBetweenFrames()
+    {
+        PixyHistory history = new PixyHistory(8);
+        long start = Simulation.START_TIME;
+        add(history, start, 100, 20);
+        add(history, start + PERIOD, 120, 30);
+
+        assertTrue(history.getAt(start + PERIOD / 4, sample));
+        assertEquals(start + PERIOD / 4, sample.getTime());
+        assertEquals(105, sample.getX(), DELTA);
+        assertEquals(22.5, sample.getWidth(), DELTA);
+        assertEquals(PixyFrame.CENTER_Y, sample.getY(), DELTA);
+
+        assertTrue(history.getAt(start, sample));
+        assertEquals(100, sample.getX(), DELTA);
+    }
+
+    @Test
+    public void usesNewestFrameAfterIt()
+    {
+        PixyHistory history = new PixyHistory(8);
+        add(history, Simulation.START_TIME, 100, 20);
+        add(history, Simulation.START_TIME + PERIOD, 120, 30);
+
+        assertTrue(history.getAt(Simulation.START_TIME + 10 * PERIOD, sample));
+        assertEquals(120, sample.getX(), DELTA);
+        assertEquals(30, sample.getWidth(), DELTA);
+    }
+
+    @Test
+    public void refusesTimesItCannotAnswer()
+    {
+        PixyHistory history = new PixyHistory(4);
+        assertFalse(history.getAt(Simulation.START_TIME, sample));
+
+        //Only the last four of six frames are kept
+        for(int i = 0; i < 6; i++)
+        {
+            add(history, Simulation.START_TIME + i * PERIOD, 100 + i, 20);
+        }
+        assertFalse(history.getAt(Simulation.START_TIME + PERIOD, sample));
+        assertTrue(history.getAt(Simulation.START_TIME + 2 * PERIOD, sample));
+        assertEquals(102, sample.getX(), DELTA);
+
+        //No target in the frame after the time
+        frame.clear();
+        frame.setTime(Simulation.START_TIME + 6 * PERIOD);
+        history.add(frame);
+        assertFalse(history.getAt(Simulation.START_TIME + 5 * PERIOD + PERIOD / 2, sample));
+    }
+
+    @Test
+    public void pixyRecordsFramesAtCaptureTime()
+    {
+        PixyCam pixy = new PixyCam(new SimulatedPixyTransport((time, target) ->
+        {
+            long frames = (time - Simulation.START_TIME) / PERIOD;
+            target.addBlock(1, (int) (10 + 2 * frames), PixyFrame.CENTER_Y, 20, 20);
+        }, 20), PixyFrame.DEFAULT_CAPACITY);
+
+        while(pixy.getFrameCount() < 5)
+        {
+            pixy.poll();
+            RobotClock.advanceTo(RobotClock.nanoTime() + PERIOD);
+        }
+
+        //The object moves 2 pixels a frame, so halfway between frames is 1 more
+        PixyHistory history = pixy.getHistory();
+        long last = RobotClock.nanoTime() - 2 * PERIOD;
+        assertTrue(history.getAt(last + PERIOD / 2, sample));
+        long frames = (last - Simulation.START_TIME) / PERIOD;
+        assertEquals(10 + 2 * frames + 1, sample.getX(), DELTA);
+    }
+}
@@ -0,0 +1,124 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that PixyMetrics counts frames, stale periods, and resyncs, and that
+ * LatencyHistogram sorts durations into its buckets.
+ *
+ */
+public class PixyMetricsTest
+{
+    /**
+     * The largest difference allowed between expected and actual milliseconds
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Switches the clock to simulated time.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+    }
+
+    /**
+     * Switches the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    @Test
+    public void countsFramesAndStalePeriods()
+    {
+        //The object is out of sight from 1 to 2 and 3 to 4 seconds
+        PixyCam pixy = new PixyCam(new SimulatedPixyTransport((time, frame) ->
+        {
+            long seconds = (time - Simulation.START_TIME) / TimeUnit.SECONDS.toNanos(1);
+            if(seconds % 2 == 0)
+            {
+                frame.addBlock(1, PixyFrame.CENTER_X, PixyFrame.CENTER_Y, 20, 20);
+            }
+        }, 20), PixyFrame.DEFAULT_CAPACITY);
+
+        long end = Simulation.START_TIME + TimeUnit.SECONDS.toNanos(5);
+        while(RobotClock.nanoTime() - end < 0)
+        {
+            pixy.poll();
+            RobotClock.advanceTo(pixy.getNextPollTime());
+        }
+
+        PixyMetrics metrics = pixy.getMetrics();
+        assertEquals(pixy.getFrameCount(), metrics.getFrames());
+        assertEquals(metrics.getFrames(), metrics.getLatency().getCount());
+        assertEquals(2, metrics.getStalePeriods());
+        assertEquals(0, metrics.getChecksumFailures());
+    }
+
+    @Test
+    public void timesResyncFromFirstLoss()
+    {
+        PixyMetrics metrics = new PixyMetrics("Test Pixy");
+        long start = Simulation.START_TIME;
+        long milli = TimeUnit.MILLISECONDS.toNanos(1);
+
+        metrics.syncLost(start);
+        metrics.syncLost(start + 2 * milli);
+        metrics.framePublished(start + 5 * milli, start + 6 * milli);
+
+        assertEquals(2, metrics.getSyncLosses());
+        assertEquals(1, metrics.getResyncTime().getCount());
+        assertEquals(5, metrics.getResyncTime().getMax(), DELTA);
+        assertEquals(1, metrics.getLatency().getMax(), DELTA);
+
+        //Frames after the resync do not count toward it
+        metrics.framePublished(start + 25 * milli, start + 26 * milli);
+        assertEquals(1, metrics.getResyncTime().getCount());
+    }
+
+    @Test
+    public void sortsDurationsIntoBuckets()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getMean(), DELTA);
+        assertEquals(0, histogram.getPercentile(0.99), DELTA);
+
+        //Under 2 microseconds, then 1 millisecond which is bucket 9 from 512 to 1024 microseconds
+        histogram.record(1_000);
+        for(int i = 0; i < 99; i++)
+        {
+            histogram.record(1_000_000);
+        }
+        histogram.record(TimeUnit.SECONDS.toNanos(5));
+
+        assertEquals(101, histogram.getCount());
+        assertEquals(1, histogram.getBucket(0));
+        assertEquals(99, histogram.getBucket(9));
+        assertEquals(1, histogram.getBucket(LatencyHistogram.BUCKETS - 1));
+        assertEquals(1.024, histogram.getPercentile(0.9), DELTA);
+        assertEquals(5000, histogram.getPercentile(1), DELTA);
+        assertEquals(5000, histogram.getMax(), DELTA);
+        assertTrue(histogram.getMean() > 1);
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+}
@@ -0,0 +1,176 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that one PixyScheduler reads several pixys at their own periods,
+ * and that a pixy that throws does not stop the others.
+ *
+ */
+public class PixySchedulerTest
+{
+    /**
+     * The time between simulated frames in milliseconds
+     */
+    private static final int PERIOD = 20;
+
+    /**
+     * Switches the clock to simulated time.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+    }
+
+    /**
+     * Switches the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Makes a pixy that sees one object in every frame.
+     * @return
+     *  The pixy
+     */
+    private static PixyCam makePixy()
+    {
+        return new PixyCam(new SimulatedPixyTransport((time, frame) ->
+            frame.addBlock(1, PixyFrame.CENTER_X, PixyFrame.CENTER_Y, 20, 20), PERIOD), PixyFrame.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Steps a scheduler the way a Simulation does, jumping time to each
+     * deadline it returns.
+     * @param scheduler
+     *  The scheduler to step
+     * @param millis
+     *  The simulated time to step for in milliseconds
+     * @return
+     *  The number of steps taken
+     */
+    private static int run(PixyScheduler scheduler, int millis)
+    {
+        long end = RobotClock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        int steps = 0;
+        while(RobotClock.nanoTime() - end < 0)
+        {
+            long next = scheduler.step(RobotClock.nanoTime());
+            assertTrue(next - RobotClock.nanoTime() > 0);
+            RobotClock.advanceTo(next);
+            steps++;
+        }
+
+        return steps;
+    }
+
+    @Test
+    public void waitsIdleTimeWithoutPixys()
+    {
+        PixyScheduler scheduler = new PixyScheduler();
+        long now = RobotClock.nanoTime();
+        assertEquals(now + TimeUnit.MILLISECONDS.toNanos(20), scheduler.step(now));
+    }
+
+    @Test
+    public void readsEachPixyAtItsPeriod()
+    {
+        PixyCam everyFrame = makePixy();
+        PixyCam everyOther = makePixy();
+        PixyScheduler scheduler = new PixyScheduler();
+        scheduler.add(everyFrame, PERIOD);
+        scheduler.add(everyOther, 2 * PERIOD);
+
+        int steps = run(scheduler, 1000);
+
+        //A second of 50 fps, give or take the frames it takes to lock on
+        assertTrue(everyFrame.getFrameCount() >= 45 && everyFrame.getFrameCount() <= 51);
+        assertTrue(everyOther.getFrameCount() >= 22 && everyOther.getFrameCount() <= 26);
+
+        //Polled around frames, not every millisecond
+        assertTrue(steps < 500);
+    }
+
+    @Test
+    public void stopsReadingRemovedPixy()
+    {
+        PixyCam pixy = makePixy();
+        PixyScheduler scheduler = new PixyScheduler();
+        scheduler.add(pixy, PERIOD);
+        run(scheduler, 200);
+
+        scheduler.remove(pixy);
+        int frames = pixy.getFrameCount();
+        run(scheduler, 200);
+        assertEquals(frames, pixy.getFrameCount());
+    }
+
+    @Test
+    public void keepsReadingWhenPixyThrows()
+    {
+        PixyCam healthy = makePixy();
+        FailingTransport transport = new FailingTransport();
+        PixyCam failing = new PixyCam(transport, PixyFrame.DEFAULT_CAPACITY);
+        PixyScheduler scheduler = new PixyScheduler();
+        scheduler.add(failing, PERIOD);
+        scheduler.add(healthy, PERIOD);
+
+        run(scheduler, 1000);
+
+        assertTrue(healthy.getFrameCount() >= 45);
+        //The failing pixy is tried again once a period after throwing
+        assertTrue(transport.reads >= 2);
+    }
+
+    /**
+     * Transport whose first read throws, like a pixy unplugged mid read,
+     * then reads zeros like an idle pixy.
+     */
+    private static class FailingTransport implements PixyTransport
+    {
+        /**
+         * The number of reads attempted
+         */
+        private int reads;
+
+        @Override
+        public int read(byte[] buffer, int count)
+        {
+            reads++;
+            if(reads == 1)
+            {
+                throw new IllegalStateException("Simulated pixy failure");
+            }
+
+            for(int i = 0; i < count; i++)
+            {
+                buffer[i] = 0;
+            }
+            return count;
+        }
+
+        @Override
+        public int write(byte[] buffer, int count)
+        {
+            return count;
+        }
+    }
+}
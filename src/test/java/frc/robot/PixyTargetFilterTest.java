@@ -0,0 +1,156 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that PixyTargetFilter learns a moving target's velocity, predicts
+ * ahead of the last frame only as far as allowed, and starts over after a
+ * reset or a long gap.
+ *
+ */
+public class PixyTargetFilterTest
+{
+    /**
+     * The time between frames in nanoseconds
+     */
+    private static final long PERIOD = TimeUnit.MILLISECONDS.toNanos(20);
+
+    /**
+     * The speed of the simulated target in pixels per second
+     */
+    private static final double SPEED = 100;
+
+    /**
+     * The largest difference allowed between predicted and expected values
+     */
+    private static final double DELTA = 0.01;
+
+    /**
+     * The filter tested, with the default gains
+     */
+    private PixyTargetFilter filter;
+
+    /**
+     * Switches the clock to simulated time.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+        filter = new PixyTargetFilter();
+    }
+
+    /**
+     * Switches the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Feeds the filter a target moving right at a constant speed, one frame
+     * per period, moving the clock along with it.
+     * @param frames
+     *  The number of frames to feed
+     * @return
+     *  The center X of the last frame
+     */
+    private int track(int frames)
+    {
+        int x = 0;
+        for(int i = 0; i < frames; i++)
+        {
+            long now = RobotClock.nanoTime();
+            x = 50 + (int) Math.round(SPEED * (now - Simulation.START_TIME) / 1e9);
+            filter.update(now, x, 160, 30, 30);
+            RobotClock.advanceTo(now + PERIOD);
+        }
+
+        return x;
+    }
+
+    @Test
+    public void learnsVelocityAndPredictsAhead()
+    {
+        int lastX = track(100);
+        long lastTime = RobotClock.nanoTime() - PERIOD;
+
+        assertEquals(SPEED, filter.getVelocityX(), DELTA);
+        assertEquals(0, filter.getVelocityY(), DELTA);
+        assertEquals(lastX + SPEED * 0.05, filter.getX(lastTime + TimeUnit.MILLISECONDS.toNanos(50)), DELTA);
+        assertEquals(160, filter.getY(lastTime + TimeUnit.MILLISECONDS.toNanos(50)), DELTA);
+
+        PixyTargetFilter.Prediction prediction = new PixyTargetFilter.Prediction();
+        assertTrue(filter.predict(lastTime + TimeUnit.MILLISECONDS.toNanos(50), prediction));
+        assertEquals(lastTime, prediction.getTime());
+        assertEquals(lastX + SPEED * 0.05, prediction.getX(), DELTA);
+        assertEquals(SPEED, prediction.getVelocityX(), DELTA);
+    }
+
+    @Test
+    public void limitsPredictionToMaximum()
+    {
+        int lastX = track(100);
+        long lastTime = RobotClock.nanoTime() - PERIOD;
+
+        //The default filter extrapolates at most 100 ms and never before the last frame
+        assertEquals(lastX + SPEED * 0.1, filter.getX(lastTime + TimeUnit.MILLISECONDS.toNanos(200)), DELTA);
+        assertEquals(lastX, filter.getX(lastTime - TimeUnit.MILLISECONDS.toNanos(50)), DELTA);
+    }
+
+    @Test
+    public void becomesInvalidWithoutFrames()
+    {
+        assertFalse(filter.isValid(RobotClock.nanoTime()));
+        track(10);
+        long lastTime = RobotClock.nanoTime() - PERIOD;
+
+        assertTrue(filter.isValid(lastTime + TimeUnit.MILLISECONDS.toNanos(200)));
+        assertFalse(filter.isValid(lastTime + TimeUnit.MILLISECONDS.toNanos(250)));
+        assertFalse(filter.predict(lastTime + TimeUnit.MILLISECONDS.toNanos(300), new PixyTargetFilter.Prediction()));
+    }
+
+    @Test
+    public void resetStartsOver()
+    {
+        track(100);
+        filter.reset();
+        assertFalse(filter.isValid(RobotClock.nanoTime()));
+
+        //The first frame after a reset sets the position and clears the velocity
+        long now = RobotClock.nanoTime();
+        filter.update(now, 20, 100, 10, 10);
+        assertTrue(filter.isValid(now));
+        assertEquals(0, filter.getVelocityX(), DELTA);
+        assertEquals(20, filter.getX(now + TimeUnit.MILLISECONDS.toNanos(50)), DELTA);
+    }
+
+    @Test
+    public void longGapStartsOver()
+    {
+        track(100);
+        RobotClock.advanceTo(RobotClock.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+
+        long now = RobotClock.nanoTime();
+        filter.update(now, 20, 100, 10, 10);
+        assertEquals(0, filter.getVelocityX(), DELTA);
+        assertEquals(20, filter.getX(now), DELTA);
+    }
+}
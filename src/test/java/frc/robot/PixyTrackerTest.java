@@ -0,0 +1,172 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests that PixyTracker keeps the same id for an object across frames.
+ *
+ */
+public class PixyTrackerTest
+{
+    /**
+     * The time between frames in nanoseconds
+     */
+    private static final long PERIOD = 20_000_000L;
+
+    /**
+     * The frame handed to the tracker, refilled for each step
+     */
+    private final PixyFrame frame = new PixyFrame();
+
+    /**
+     * The time of the frame last made
+     */
+    private long time;
+
+    /**
+     * Starts the next frame one period after the last.
+     * @return
+     *  The empty frame
+     */
+    private PixyFrame nextFrame()
+    {
+        time += PERIOD;
+        frame.clear();
+        frame.setTime(time);
+        return frame;
+    }
+
+    /**
+     * Returns the id of the track following the object at the given position.
+     * @param tracker
+     *  The tracker to look in
+     * @param x
+     *  The x coordinate of the object
+     * @param y
+     *  The y coordinate of the object
+     * @return
+     *  The id, -1 if no track is there
+     */
+    private static int idAt(PixyTracker tracker, double x, double y)
+    {
+        for(int t = 0; t < tracker.getTrackCount(); t++)
+        {
+            if(tracker.getX(t) == x && tracker.getY(t) == y)
+            {
+                return tracker.getId(t);
+            }
+        }
+
+        return -1;
+    }
+
+    @Test
+    public void keepsIdsAsObjectsMove()
+    {
+        PixyTracker tracker = new PixyTracker();
+        nextFrame().addBlock(1, 50, 100, 10, 10);
+        frame.addBlock(1, 150, 100, 10, 10);
+        assertTrue(tracker.update(frame));
+        int left = idAt(tracker, 50, 100);
+        int right = idAt(tracker, 150, 100);
+        assertNotEquals(left, right);
+
+        //Listed in the other order and moved a little
+        nextFrame().addBlock(1, 155, 104, 10, 10);
+        frame.addBlock(1, 54, 98, 10, 10);
+        assertTrue(tracker.update(frame));
+        assertEquals(2, tracker.getTrackCount());
+        assertEquals(left, idAt(tracker, 54, 98));
+        assertEquals(right, idAt(tracker, 155, 104));
+
+        int track = tracker.indexOf(left);
+        assertEquals(2, tracker.getAge(track));
+        assertEquals(4 / (PERIOD / 1e9), tracker.getVelocityX(track), 1e-6);
+    }
+
+    @Test
+    public void keepsIdThroughShortMisses()
+    {
+        PixyTracker tracker = new PixyTracker(4, PixyTracker.DEFAULT_MAX_JUMP, 2);
+        nextFrame().addBlock(2, 100, 100, 10, 10);
+        tracker.update(frame);
+        int id = tracker.getId(0);
+
+        nextFrame();
+        tracker.update(frame);
+        nextFrame();
+        tracker.update(frame);
+        assertEquals(1, tracker.getTrackCount());
+        assertEquals(2, tracker.getMissed(0));
+
+        nextFrame().addBlock(2, 102, 100, 10, 10);
+        tracker.update(frame);
+        assertEquals(1, tracker.getTrackCount());
+        assertEquals(id, tracker.getId(0));
+        assertEquals(0, tracker.getMissed(0));
+    }
+
+    @Test
+    public void dropsTracksMissedTooLong()
+    {
+        PixyTracker tracker = new PixyTracker(4, PixyTracker.DEFAULT_MAX_JUMP, 1);
+        nextFrame().addBlock(2, 100, 100, 10, 10);
+        tracker.update(frame);
+        int id = tracker.getId(0);
+
+        nextFrame();
+        tracker.update(frame);
+        nextFrame();
+        tracker.update(frame);
+        assertEquals(0, tracker.getTrackCount());
+        assertEquals(-1, tracker.indexOf(id));
+
+        nextFrame().addBlock(2, 100, 100, 10, 10);
+        tracker.update(frame);
+        assertTrue(tracker.getId(0) > id);
+    }
+
+    @Test
+    public void startsNewTrackForDifferentSignatureOrBigJump()
+    {
+        PixyTracker tracker = new PixyTracker();
+        nextFrame().addBlock(1, 100, 100, 10, 10);
+        tracker.update(frame);
+        int id = tracker.getId(0);
+
+        nextFrame().addBlock(3, 100, 100, 10, 10);
+        frame.addBlock(1, 190, 300, 10, 10);
+        tracker.update(frame);
+        assertEquals(3, tracker.getTrackCount());
+        int track = tracker.indexOf(id);
+        assertEquals(1, tracker.getSignature(track));
+        assertEquals(1, tracker.getMissed(track));
+        assertTrue(idAt(tracker, 190, 300) > id);
+    }
+
+    @Test
+    public void ignoresFramesThatAreNotNewer()
+    {
+        PixyTracker tracker = new PixyTracker();
+        nextFrame().addBlock(1, 100, 100, 10, 10);
+        assertTrue(tracker.update(frame));
+        assertFalse(tracker.update(frame));
+        assertEquals(1, tracker.getAge(0));
+
+        tracker.clear();
+        assertEquals(0, tracker.getTrackCount());
+        assertTrue(tracker.update(frame));
+    }
+}
@@ -0,0 +1,123 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests that bytes saved by RecordingTransport play back the same through
+ * ReplayTransport, as fast as possible and at the recorded speed.
+ *
+ */
+public class ReplayTransportTest
+{
+    /**
+     * The time between the two recorded reads in nanoseconds
+     */
+    private static final long GAP = 20_000_000L;
+
+    /**
+     * The folder the capture is saved in
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The capture file
+     */
+    private Path capture;
+
+    /**
+     * Records two reads of four bytes, the second one gap after the first.
+     * @throws IOException
+     *  If the capture could not be saved
+     */
+    @Before
+    public void setUp() throws IOException
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+        capture = folder.newFile("pixy.cap").toPath();
+        BufferTransport source = new BufferTransport().add((byte) 1, (byte) 2, (byte) 3, (byte) 4, (byte) 5, (byte) 6, (byte) 7, (byte) 8);
+        try(RecordingTransport recording = new RecordingTransport(source, capture))
+        {
+            byte[] buffer = new byte[4];
+            recording.read(buffer, 4);
+            RobotClock.advanceTo(RobotClock.nanoTime() + GAP);
+            recording.read(buffer, 4);
+        }
+    }
+
+    /**
+     * Switches back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    @Test
+    public void replaysAcrossRecordBoundaries() throws IOException
+    {
+        ReplayTransport replay = new ReplayTransport(capture, false, false);
+        byte[] buffer = new byte[3];
+
+        replay.read(buffer, 3);
+        assertArrayEquals(new byte[] {1, 2, 3}, buffer);
+        replay.read(buffer, 3);
+        assertArrayEquals(new byte[] {4, 5, 6}, buffer);
+        assertFalse(replay.isFinished());
+        replay.read(buffer, 3);
+        assertArrayEquals(new byte[] {7, 8, 0}, buffer);
+        assertTrue(replay.isFinished());
+    }
+
+    @Test
+    public void loopsBackToTheStart() throws IOException
+    {
+        ReplayTransport replay = new ReplayTransport(capture, false, true);
+        byte[] buffer = new byte[8];
+
+        replay.read(buffer, 8);
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, buffer);
+        replay.read(buffer, 8);
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, buffer);
+        assertFalse(replay.isFinished());
+    }
+
+    @Test
+    public void holdsRecordsBackInRealTime() throws IOException
+    {
+        ReplayTransport replay = new ReplayTransport(capture, true, false);
+        byte[] buffer = new byte[4];
+
+        replay.read(buffer, 4);
+        assertArrayEquals(new byte[] {1, 2, 3, 4}, buffer);
+
+        //Reads return idle zeros until the second record is due
+        RobotClock.advanceTo(RobotClock.nanoTime() + GAP / 2);
+        replay.read(buffer, 4);
+        assertArrayEquals(new byte[] {0, 0, 0, 0}, buffer);
+
+        RobotClock.advanceTo(RobotClock.nanoTime() + GAP / 2);
+        replay.read(buffer, 4);
+        assertArrayEquals(new byte[] {5, 6, 7, 8}, buffer);
+        assertTrue(replay.isFinished());
+    }
+}
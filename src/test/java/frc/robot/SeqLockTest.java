@@ -0,0 +1,171 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that SeqLock makes readers retry across writes, and that PixyCam
+ * readers never see a frame or object that is half written.
+ *
+ */
+public class SeqLockTest
+{
+    /**
+     * The time between simulated frames in milliseconds
+     */
+    private static final int PERIOD = 20;
+
+    /**
+     * The number of frames the pixy thread publishes while readers copy them
+     */
+    private static final int FRAMES = 2000;
+
+    /**
+     * Switches the clock to simulated time.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+    }
+
+    /**
+     * Switches the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Fills a frame with three blocks that all carry the frame's number, so
+     * a frame mixed from two writes is easy to spot.
+     * @param time
+     *  The RobotClock.nanoTime() the frame is captured
+     * @param frame
+     *  The frame to fill
+     */
+    private static void fillNumbered(long time, PixyFrame frame)
+    {
+        int number = (int) ((time - Simulation.START_TIME) / TimeUnit.MILLISECONDS.toNanos(PERIOD)) % 100 + 1;
+        for(int block = 0; block < 3; block++)
+        {
+            frame.addBlock(1, number, number, number + block, number);
+        }
+    }
+
+    /**
+     * Moves simulated time to the next frame and polls the pixy for it.
+     * @param pixy
+     *  The pixy to poll
+     */
+    private static void nextFrame(PixyCam pixy)
+    {
+        RobotClock.advanceTo(RobotClock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PERIOD));
+        pixy.poll();
+    }
+
+    @Test
+    public void retriesOnlyAcrossWrites()
+    {
+        SeqLock lock = new SeqLock();
+
+        int seq = lock.readBegin();
+        assertFalse(lock.readRetry(seq));
+
+        lock.beginWrite();
+        lock.endWrite();
+        assertTrue(lock.readRetry(seq));
+        assertFalse(lock.readRetry(lock.readBegin()));
+        assertEquals(1, lock.getWriteCount());
+    }
+
+    @Test
+    public void snapshotMatchesGettersAndFrameCount()
+    {
+        PixyCam pixy = new PixyCam(new SimulatedPixyTransport(SeqLockTest::fillNumbered, PERIOD), PixyFrame.DEFAULT_CAPACITY);
+        for(int i = 0; i < 10; i++)
+        {
+            nextFrame(pixy);
+        }
+
+        PixyFrame snapshot = new PixyFrame();
+        int count = pixy.copySnapshot(snapshot);
+        assertEquals(pixy.getFrameCount(), count);
+        assertTrue(count > 0);
+
+        int largest = snapshot.largestBlock();
+        assertEquals(3, snapshot.getBlockCount());
+        assertEquals(pixy.getX(), snapshot.getX(largest));
+        assertEquals(pixy.getY(), snapshot.getY(largest));
+        assertEquals(pixy.getWidth(), snapshot.getWidth(largest));
+        assertEquals(pixy.getHeight(), snapshot.getHeight(largest));
+        assertTrue(pixy.checkData());
+    }
+
+    @Test
+    public void readersNeverSeeTornFrames() throws InterruptedException
+    {
+        PixyCam pixy = new PixyCam(new SimulatedPixyTransport(SeqLockTest::fillNumbered, PERIOD), PixyFrame.DEFAULT_CAPACITY);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger torn = new AtomicInteger();
+        AtomicInteger reads = new AtomicInteger();
+
+        Thread reader = new Thread(() ->
+        {
+            PixyFrame snapshot = new PixyFrame();
+            while(!done.get())
+            {
+                pixy.getSnapshot(snapshot);
+                for(int block = 1; block < snapshot.getBlockCount(); block++)
+                {
+                    if(snapshot.getX(block) != snapshot.getX(0) || snapshot.getWidth(block) != snapshot.getX(0) + block)
+                    {
+                        torn.incrementAndGet();
+                    }
+                }
+
+                if(!pixy.checkData())
+                {
+                    torn.incrementAndGet();
+                }
+                reads.incrementAndGet();
+            }
+        });
+        reader.start();
+
+        //Publishing all the frames can finish before the reader gets to run
+        while(reads.get() == 0)
+        {
+            nextFrame(pixy);
+            Thread.yield();
+        }
+        for(int i = 0; i < FRAMES; i++)
+        {
+            nextFrame(pixy);
+        }
+        done.set(true);
+        reader.join();
+
+        assertTrue(pixy.getFrameCount() > FRAMES / 2);
+        assertTrue(reads.get() > 0);
+        assertEquals(0, torn.get());
+    }
+}
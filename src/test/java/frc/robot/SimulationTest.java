@@ -0,0 +1,142 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that a Simulation runs periodic tasks, pixys, LEDs, and telemetry
+ * on simulated time, and gives the same results every run.
+ *
+ */
+public class SimulationTest
+{
+    /**
+     * The PCM channel of the simulated LEDs
+     */
+    private static final int CHANNEL = 0;
+
+    /**
+     * Starts with no printers.
+     */
+    @Before
+    public void setUp()
+    {
+        TelemetryScheduler.getInstance().shutdown();
+    }
+
+    /**
+     * Removes the printers and restores the dashboard and clock.
+     */
+    @After
+    public void tearDown()
+    {
+        TelemetryScheduler.getInstance().shutdown();
+        DashboardPublisher.setInstance(null);
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Runs a short match of a pixy tracking a ball that comes and goes, with
+     * an LED showing when it is tracked and the pixy's metrics printed to a
+     * new dashboard without a table.
+     * @return
+     *  What happened each loop: the tracked X, or -1, and whether the LED was
+     *  on, followed by the number of dashboard updates
+     */
+    private List<Long> runMatch()
+    {
+        List<Long> loops = new ArrayList<>();
+        DashboardPublisher dashboard = new DashboardPublisher();
+        DashboardPublisher.setInstance(dashboard);
+        try(Simulation simulation = new Simulation())
+        {
+            PixyCam pixy = new PixyCam(new SimulatedPixyTransport((time, frame) ->
+            {
+                double seconds = (time - Simulation.START_TIME) / 1e9;
+                if(seconds % 2 < 1.5)
+                {
+                    frame.addBlock(1, PixyFrame.CENTER_X + (int) Math.round(60 * Math.sin(seconds)), PixyFrame.CENTER_Y, 30, 30);
+                }
+            }, 20), PixyFrame.DEFAULT_CAPACITY);
+            PixyScheduler scheduler = new PixyScheduler();
+            scheduler.add(pixy, 20);
+            simulation.addPixyScheduler(scheduler);
+
+            LEDController led = new LEDController(CHANNEL, LEDController.Mode.OFF);
+            new ValuePrinter(pixy.getMetrics(), ValuePrinter.NORMAL_PRIORITY);
+            simulation.addPeriodic(() ->
+            {
+                boolean tracking = pixy.isTracking();
+                led.setMode(tracking ? LEDController.Mode.ON : LEDController.Mode.OFF);
+                loops.add(tracking ? pixy.getX() : -1L);
+                loops.add(PCMOutput.getInstance().isOn(CHANNEL) ? 1L : 0L);
+            }, 20);
+
+            simulation.run(10_000);
+            assertEquals(10_000, simulation.getElapsedTime());
+
+            led.close();
+            simulation.run(LEDScheduler.TICK_TIME);
+            TelemetryScheduler.getInstance().shutdown();
+        }
+
+        loops.add(dashboard.getUpdates());
+        return loops;
+    }
+
+    @Test
+    public void givesSameResultsEveryRun()
+    {
+        List<Long> first = runMatch();
+        List<Long> second = runMatch();
+        assertEquals(first, second);
+        assertTrue(first.remove(first.size() - 1) > 0);
+
+        //The ball was tracked and lost, and the LED followed it a loop later
+        assertTrue(first.contains(-1L));
+        assertTrue(first.contains(1L));
+        for(int i = 2; i < first.size(); i += 2)
+        {
+            assertEquals(first.get(i - 2) == -1 ? 0 : 1, (long) first.get(i + 1));
+        }
+    }
+
+    @Test
+    public void runsPeriodicTasksOnSchedule()
+    {
+        List<Long> runs = new ArrayList<>();
+        try(Simulation simulation = new Simulation())
+        {
+            assertTrue(RobotClock.isSimulated());
+            simulation.addPeriodic(() -> runs.add(RobotClock.nanoTime()), 20);
+
+            //Tasks due at the end of a run wait for the next run
+            simulation.run(1000);
+            assertEquals(49, runs.size());
+            for(int i = 0; i < runs.size(); i++)
+            {
+                assertEquals(Simulation.START_TIME + (i + 1) * 20_000_000L, (long) runs.get(i));
+            }
+
+            simulation.run(20);
+            assertEquals(50, runs.size());
+            assertEquals(1020, simulation.getElapsedTime());
+        }
+        assertFalse(RobotClock.isSimulated());
+    }
+}
@@ -0,0 +1,205 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that TelemetryGovernor slows down the lowest priority bucket that
+ * is sending when telemetry goes over budget, and speeds buckets back up
+ * highest first once it is well under.
+ *
+ */
+public class TelemetryGovernorTest
+{
+    /**
+     * The time the governor measures the rate over in nanoseconds
+     */
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The bucket of the highest priority printers
+     */
+    private static final int HIGHEST = TelemetryScheduler.bucketOf(ValuePrinter.HIGHEST_PRIORITY);
+
+    /**
+     * The bucket of the low priority printers
+     */
+    private static final int LOW = TelemetryScheduler.bucketOf(ValuePrinter.LOW_PRIORITY);
+
+    /**
+     * The bucket of the lowest priority printers
+     */
+    private static final int LOWEST = TelemetryScheduler.bucketOf(ValuePrinter.LOWEST_PRIORITY);
+
+    /**
+     * The shared scheduler the printers register with
+     */
+    private TelemetryScheduler scheduler;
+
+    /**
+     * Switches the clock to simulated time and the dashboard to one without a
+     * table, and starts with no printers.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+        DashboardPublisher.setInstance(new DashboardPublisher());
+        scheduler = TelemetryScheduler.getInstance();
+        scheduler.shutdown();
+    }
+
+    /**
+     * Removes the printers, lets the shared governor relax for later tests,
+     * and restores the clock and dashboard.
+     */
+    @After
+    public void tearDown()
+    {
+        scheduler.shutdown();
+        TelemetryGovernor governor = scheduler.getGovernor();
+        governor.setBudget(TelemetryGovernor.DEFAULT_BUDGET);
+        for(int i = 0; i < 20; i++)
+        {
+            RobotClock.advanceTo(RobotClock.nanoTime() + WINDOW);
+            governor.update(RobotClock.nanoTime());
+        }
+        DashboardPublisher.setInstance(null);
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Ends the current window of a governor one window from now.
+     * @param governor
+     *  The governor to update
+     */
+    private static void endWindow(TelemetryGovernor governor)
+    {
+        RobotClock.advanceTo(RobotClock.nanoTime() + WINDOW);
+        governor.update(RobotClock.nanoTime());
+    }
+
+    @Test
+    public void startsFirstWindowAtClockZero()
+    {
+        RobotClock.simulate(0);
+        TelemetryGovernor governor = new TelemetryGovernor();
+        governor.setBudget(1000);
+        ValuePrinter printer = new ValuePrinter(() -> { }, ValuePrinter.LOW_PRIORITY);
+
+        governor.update(0);
+        governor.record(printer, 2000, 100);
+        endWindow(governor);
+
+        assertEquals(2000, governor.getRate(), 1e-9);
+        assertEquals(100, governor.getUpdateRate(), 1e-9);
+        assertEquals(2, governor.getSlowdown(LOW));
+        assertEquals(2000, printer.getBytes());
+        assertEquals(100, printer.getUpdates());
+    }
+
+    @Test
+    public void throttlesLowestSendingBucketFirst()
+    {
+        TelemetryGovernor governor = new TelemetryGovernor();
+        governor.setBudget(1000);
+        ValuePrinter highest = new ValuePrinter(() -> { }, ValuePrinter.HIGHEST_PRIORITY);
+        ValuePrinter low = new ValuePrinter(() -> { }, ValuePrinter.LOW_PRIORITY);
+        governor.update(RobotClock.nanoTime());
+
+        //The lowest bucket sends nothing, so slowing it would not help
+        for(int i = 0; i < 5; i++)
+        {
+            governor.record(highest, 1000, 10);
+            governor.record(low, 1000, 10);
+            endWindow(governor);
+        }
+        assertEquals(1, governor.getSlowdown(LOWEST));
+        assertEquals(TelemetryGovernor.MAX_SLOWDOWN, governor.getSlowdown(LOW));
+        assertEquals(3, governor.getThrottles());
+
+        //Once the low bucket is as slow as it goes, the next one up is slowed
+        governor.record(highest, 1000, 10);
+        governor.record(low, 1000, 10);
+        endWindow(governor);
+        assertEquals(1, governor.getSlowdown(HIGHEST));
+        assertEquals(3, governor.getThrottles());
+    }
+
+    @Test
+    public void relaxesHighestSlowedBucketFirst()
+    {
+        TelemetryGovernor governor = new TelemetryGovernor();
+        governor.setBudget(1000);
+        ValuePrinter low = new ValuePrinter(() -> { }, ValuePrinter.LOW_PRIORITY);
+        ValuePrinter lowest = new ValuePrinter(() -> { }, ValuePrinter.LOWEST_PRIORITY);
+        governor.update(RobotClock.nanoTime());
+
+        governor.record(lowest, 2000, 10);
+        endWindow(governor);
+        governor.record(low, 2000, 10);
+        endWindow(governor);
+        assertEquals(2, governor.getSlowdown(LOW));
+        assertEquals(2, governor.getSlowdown(LOWEST));
+
+        //Between 70% and 100% of the budget nothing changes
+        governor.record(low, 800, 10);
+        endWindow(governor);
+        assertEquals(2, governor.getSlowdown(LOW));
+
+        endWindow(governor);
+        assertEquals(1, governor.getSlowdown(LOW));
+        assertEquals(2, governor.getSlowdown(LOWEST));
+        endWindow(governor);
+        assertEquals(1, governor.getSlowdown(LOWEST));
+    }
+
+    @Test
+    public void slowsNoisyPrinterThroughScheduler()
+    {
+        TelemetryGovernor governor = scheduler.getGovernor();
+        governor.setBudget(1000);
+        DashboardPublisher.NumberEntry[] entries = new DashboardPublisher.NumberEntry[200];
+        for(int i = 0; i < entries.length; i++)
+        {
+            entries[i] = DashboardPublisher.getInstance().getNumber("Noisy " + i);
+        }
+
+        //Every print sends 200 changed values, about 2800 bytes
+        int[] prints = new int[1];
+        new ValuePrinter(() ->
+        {
+            prints[0]++;
+            for(DashboardPublisher.NumberEntry entry : entries)
+            {
+                entry.set(prints[0]);
+            }
+        }, ValuePrinter.LOW_PRIORITY);
+
+        //A minute of ticks would print 48 times without the governor
+        long tick = TimeUnit.MILLISECONDS.toNanos(TelemetryScheduler.TICK_TIME);
+        long end = RobotClock.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while(RobotClock.nanoTime() - end < 0)
+        {
+            scheduler.tick();
+            RobotClock.advanceTo(RobotClock.nanoTime() + tick);
+        }
+
+        //Windows without a print relax it again, so it is slowed about every other print
+        assertTrue(governor.getThrottles() > 10);
+        assertTrue(prints[0] < 42);
+    }
+}
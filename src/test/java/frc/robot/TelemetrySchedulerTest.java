@@ -0,0 +1,183 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that TelemetryScheduler prints due printers highest priority first,
+ * stops at the tick's time budget, and prints the deferred printers on the
+ * next tick.
+ *
+ */
+public class TelemetrySchedulerTest
+{
+    /**
+     * The simulated time each print takes in nanoseconds
+     */
+    private static final long PRINT_TIME = TimeUnit.MILLISECONDS.toNanos(2);
+
+    /**
+     * The names of the printers in the order they printed
+     */
+    private final List<String> printed = new ArrayList<>();
+
+    /**
+     * The shared scheduler
+     */
+    private TelemetryScheduler scheduler;
+
+    /**
+     * Switches the clock to simulated time and the dashboard to one without a
+     * table, and starts with no printers.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+        DashboardPublisher.setInstance(new DashboardPublisher());
+        scheduler = TelemetryScheduler.getInstance();
+        scheduler.shutdown();
+        scheduler.setBudget(TelemetryScheduler.DEFAULT_BUDGET);
+    }
+
+    /**
+     * Removes the printers and restores the clock and dashboard.
+     */
+    @After
+    public void tearDown()
+    {
+        scheduler.shutdown();
+        scheduler.setBudget(TelemetryScheduler.DEFAULT_BUDGET);
+        DashboardPublisher.setInstance(null);
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Makes a printer that records its name and takes PRINT_TIME of simulated time.
+     * @param name
+     *  The name recorded when it prints
+     * @param waitTime
+     *  The time between prints in milliseconds
+     * @return
+     *  The value printer
+     */
+    private ValuePrinter add(String name, int waitTime)
+    {
+        return new ValuePrinter(() ->
+        {
+            printed.add(name);
+            RobotClock.advanceTo(RobotClock.nanoTime() + PRINT_TIME);
+        }, waitTime);
+    }
+
+    /**
+     * Moves time to the given time after the start and ticks the scheduler.
+     * @param millis
+     *  The time since the start in milliseconds
+     */
+    private void tickAt(int millis)
+    {
+        RobotClock.advanceTo(Simulation.START_TIME + TimeUnit.MILLISECONDS.toNanos(millis));
+        scheduler.tick();
+    }
+
+    @Test
+    public void printsHighestPriorityFirst()
+    {
+        add("Lowest", ValuePrinter.LOWEST_PRIORITY);
+        add("Normal", ValuePrinter.NORMAL_PRIORITY);
+        add("Highest", ValuePrinter.HIGHEST_PRIORITY);
+        scheduler.setBudget(100);
+
+        tickAt(0);
+        assertEquals(List.of("Highest", "Normal", "Lowest"), printed);
+    }
+
+    @Test
+    public void defersPrintsPastBudget()
+    {
+        for(int i = 0; i < 5; i++)
+        {
+            add("Printer " + i, ValuePrinter.NORMAL_PRIORITY);
+        }
+        long deferred = scheduler.getDeferred();
+
+        //Three 2 ms prints use up the 5 ms budget
+        tickAt(0);
+        assertEquals(List.of("Printer 0", "Printer 1", "Printer 2"), printed);
+        assertEquals(deferred + 2, scheduler.getDeferred());
+
+        //The rest stay due and print next tick, the others wait their whole wait time
+        printed.clear();
+        tickAt(TelemetryScheduler.TICK_TIME);
+        assertEquals(List.of("Printer 3", "Printer 4"), printed);
+
+        printed.clear();
+        tickAt(2 * TelemetryScheduler.TICK_TIME);
+        assertEquals(0, printed.size());
+    }
+
+    @Test
+    public void alwaysPrintsOneWithNoBudget()
+    {
+        add("Low", ValuePrinter.LOW_PRIORITY);
+        add("High", ValuePrinter.HIGH_PRIORITY);
+        scheduler.setBudget(0);
+
+        tickAt(0);
+        assertEquals(List.of("High"), printed);
+
+        printed.clear();
+        tickAt(TelemetryScheduler.TICK_TIME);
+        assertEquals(List.of("Low"), printed);
+    }
+
+    @Test
+    public void stopsPrintingAfterStop()
+    {
+        ValuePrinter printer = add("Stopped", ValuePrinter.HIGHEST_PRIORITY);
+        tickAt(0);
+        printer.stop();
+        tickAt(ValuePrinter.HIGHEST_PRIORITY);
+        assertEquals(List.of("Stopped"), printed);
+        assertEquals(0, scheduler.getPrinterCount());
+    }
+
+    @Test
+    public void keepsPrintingWhenPrinterThrows()
+    {
+        new ValuePrinter(() ->
+        {
+            throw new IllegalStateException("Simulated printer failure");
+        }, ValuePrinter.HIGHEST_PRIORITY);
+        add("Healthy", ValuePrinter.NORMAL_PRIORITY);
+
+        tickAt(0);
+        assertEquals(List.of("Healthy"), printed);
+    }
+
+    @Test
+    public void startsNoThreadWhileSimulated()
+    {
+        add("Printer", ValuePrinter.NORMAL_PRIORITY);
+        for(Thread thread : Thread.getAllStackTraces().keySet())
+        {
+            assertFalse(thread.getName().equals("TelemetryScheduler"));
+        }
+    }
+}
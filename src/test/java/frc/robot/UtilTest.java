@@ -0,0 +1,142 @@
+/*----------------------------------------------------------------------------*/
+/* Copyright (c) 2018 FIRST. All Rights Reserved.                             */
+/* Open Source Software - may be modified and shared by FRC teams. The code   */
+/* must be accompanied by the FIRST BSD license file in the root directory of */
+/* the project.                                                               */
+/*----------------------------------------------------------------------------*/
+
+package frc.robot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that Util.PeriodicTimer keeps its deadlines evenly spaced no
+ * matter how long each loop takes, and counts the deadlines a loop misses.
+ *
+ */
+public class UtilTest
+{
+    /**
+     * The time between deadlines in milliseconds
+     */
+    private static final int PERIOD = 20;
+
+    /**
+     * The largest difference allowed between expected and actual milliseconds
+     */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Switches the clock to simulated time.
+     */
+    @Before
+    public void setUp()
+    {
+        RobotClock.simulate(Simulation.START_TIME);
+    }
+
+    /**
+     * Clears any interrupt left by a test and switches the clock back to real time.
+     */
+    @After
+    public void tearDown()
+    {
+        Thread.interrupted();
+        RobotClock.useSystemTime();
+    }
+
+    /**
+     * Returns the time the given number of milliseconds after the start.
+     * @param millis
+     *  The milliseconds since the start
+     * @return
+     *  The RobotClock.nanoTime()
+     */
+    private static long at(int millis)
+    {
+        return Simulation.START_TIME + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    public void keepsDeadlinesEvenlySpaced()
+    {
+        Util.PeriodicTimer timer = new Util.PeriodicTimer(PERIOD);
+        assertTrue(timer.waitForNextPeriod());
+        assertEquals(at(20), timer.getDeadline());
+
+        //Simulated waits return right away, so move time as a real wait and loop would
+        for(int loop = 2; loop <= 50; loop++)
+        {
+            RobotClock.advanceTo(timer.getDeadline() + TimeUnit.MILLISECONDS.toNanos(loop % 15));
+            assertTrue(timer.waitForNextPeriod());
+            assertEquals(at(loop * PERIOD), timer.getDeadline());
+        }
+        assertEquals(0, timer.getMissed());
+    }
+
+    @Test
+    public void countsMissedDeadlineAndStartsFromThen()
+    {
+        Util.PeriodicTimer timer = new Util.PeriodicTimer(PERIOD);
+        timer.waitForNextPeriod();
+
+        //The loop ran until 50 ms, 10 ms past the 40 ms deadline
+        RobotClock.advanceTo(at(50));
+        assertTrue(timer.waitForNextPeriod());
+        assertEquals(1, timer.getMissed());
+        assertEquals(10, timer.getLastLateness(), DELTA);
+        assertEquals(at(50), timer.getDeadline());
+
+        //The missed periods are not run back to back
+        timer.waitForNextPeriod();
+        assertEquals(at(70), timer.getDeadline());
+        assertEquals(1, timer.getMissed());
+    }
+
+    @Test
+    public void keepsSpacingThroughDeadlineAtZero()
+    {
+        RobotClock.simulate(-TimeUnit.MILLISECONDS.toNanos(PERIOD));
+        Util.PeriodicTimer timer = new Util.PeriodicTimer(PERIOD);
+        timer.waitForNextPeriod();
+        assertEquals(0, timer.getDeadline());
+
+        RobotClock.advanceTo(TimeUnit.MILLISECONDS.toNanos(5));
+        timer.waitForNextPeriod();
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(PERIOD), timer.getDeadline());
+    }
+
+    @Test
+    public void startsOverAfterReset()
+    {
+        Util.PeriodicTimer timer = new Util.PeriodicTimer(PERIOD);
+        timer.waitForNextPeriod();
+
+        RobotClock.advanceTo(at(100));
+        timer.reset();
+        timer.waitForNextPeriod();
+        assertEquals(at(120), timer.getDeadline());
+        assertEquals(0, timer.getMissed());
+    }
+
+    @Test
+    public void reportsInterruptedWait()
+    {
+        Util.PeriodicTimer timer = new Util.PeriodicTimer(PERIOD);
+        Thread.currentThread().interrupt();
+        assertFalse(timer.waitForNextPeriod());
+        assertFalse(Util.sleepUntil(at(PERIOD)));
+
+        //The interrupt is kept for the loop to see
+        assertTrue(Thread.interrupted());
+        assertTrue(Util.sleepUntil(at(PERIOD)));
+    }
+}